@@ -0,0 +1,125 @@
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sets up the game code the benchmarks measure.<p>
+ * The game's classes are in the default package, which code in a named package (like the JMH
+ * benchmarks) can't refer to. This class lives in the default package too and hands each hot
+ * path back as a plain java.util.function interface the benchmarks can call.
+ */
+
+public class GameHotPaths {
+    // constants
+    private static final long SEED = 42;
+    private static final int MAX_TURNS = 1000;
+
+    /**
+     * @return Checks a hunter with a few items for one of them by name.
+     */
+    public static BooleanSupplier hasItemInKit() {
+        Hunter hunter = kittedHunter();
+        return () -> hunter.hasItemInKit("machete");
+    }
+
+    /**
+     * @return Checks a hunter with a few items for one of them by id.
+     */
+    public static BooleanSupplier hasItemInKitById() {
+        Hunter hunter = kittedHunter();
+        int machete = ItemCatalog.idOf("machete");
+        return () -> hunter.hasItemInKit(machete);
+    }
+
+    /**
+     * @return Builds a hunter's status line.
+     */
+    public static Supplier<String> hunterToString() {
+        Hunter hunter = kittedHunter();
+        return () -> hunter.toString();
+    }
+
+    /**
+     * @return Builds a hunter's list of items.
+     */
+    public static Supplier<String> getInventory() {
+        Hunter hunter = kittedHunter();
+        return () -> hunter.getInventory();
+    }
+
+    /**
+     * @return Looks up what the shop charges for an item by name.
+     */
+    public static IntSupplier checkMarketPrice() {
+        Shop shop = new Shop(Mode.NORMAL.getMarkdown(), NullOutput.INSTANCE, NullInput.INSTANCE);
+        return () -> shop.checkMarketPrice("horse", true) + shop.checkMarketPrice("boots", false);
+    }
+
+    /**
+     * @return Creates a new town, rolling its terrain, toughness and treasure.
+     */
+    public static Supplier<Object> newTown() {
+        GameRandom random = new GameRandom(SEED);
+        Shop shop = new Shop(Mode.NORMAL.getMarkdown(), NullOutput.INSTANCE, NullInput.INSTANCE);
+        return () -> new Town(shop, Mode.NORMAL.getToughness(), NullOutput.INSTANCE, random);
+    }
+
+    /**
+     * @return Looks for trouble in a tough town, putting the hunter's gold back afterwards
+     * so the hunter never goes broke.
+     */
+    public static IntSupplier lookForTrouble() {
+        GameRandom random = new GameRandom(SEED);
+        Hunter hunter = Mode.NORMAL.createHunter("bench");
+        Shop shop = new Shop(Mode.NORMAL.getMarkdown(), NullOutput.INSTANCE, NullInput.INSTANCE);
+        Town town = new Town(shop, 1.0, NullOutput.INSTANCE, random);
+        town.hunterArrives(hunter);
+        return () -> {
+            int before = hunter.getGold();
+            town.lookForTrouble();
+            int diff = hunter.getGold() - before;
+            hunter.changeGold(-diff);
+            return diff;
+        };
+    }
+
+    /**
+     * @return Plays a whole headless game with the greedy strategy, a different seed each time.
+     */
+    public static IntSupplier headlessGame() {
+        PlayerStrategy strategy = new GreedyStrategy();
+        SimulationStats stats = new SimulationStats(MAX_TURNS);
+        long[] game = {0};
+        return () -> {
+            SimulatedGame.play(Mode.NORMAL, strategy, MAX_TURNS, GameRandom.seedFor(SEED, game[0]), stats);
+            game[0]++;
+            return (int) stats.getWins();
+        };
+    }
+
+    /**
+     * @return Records one turn's metrics the way TreasureHunter.showMenu() does (with the
+     * action processed in between left out), whether or not metrics were turned on for this run.
+     */
+    public static IntSupplier recordMetrics() {
+        int[] turn = {0};
+        return () -> {
+            boolean timed = GameMetrics.isTimed(turn[0]);
+            long start = timed ? System.nanoTime() : 0;
+            GameMetrics.count(GameCounter.GOLD_GAINED, 3);
+            GameMetrics.count(GameCounter.ACTIONS);
+            if (timed) {
+                GameMetrics.recordLatency("l", start);
+            }
+            turn[0]++;
+            return turn[0];
+        };
+    }
+
+    private static Hunter kittedHunter() {
+        Hunter hunter = Mode.TEST.createHunter("bench");
+        hunter.removeItemFromKit("water");
+        hunter.removeItemFromKit("boots");
+        return hunter;
+    }
+}
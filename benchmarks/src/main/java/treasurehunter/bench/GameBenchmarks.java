@@ -0,0 +1,101 @@
+package treasurehunter.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for the game's hot paths.<p>
+ * Run with: java -jar benchmarks/target/benchmarks.jar -rf json -rff jmh-result.json<p>
+ * The code being measured is set up by GameHotPaths in the default package and looked up
+ * by name, because a class in a named package can't refer to the game's classes directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmarks {
+    private BooleanSupplier hasItemInKit;
+    private BooleanSupplier hasItemInKitById;
+    private Supplier<String> hunterToString;
+    private Supplier<String> getInventory;
+    private IntSupplier checkMarketPrice;
+    private Supplier<Object> newTown;
+    private IntSupplier lookForTrouble;
+    private IntSupplier headlessGame;
+    private IntSupplier recordMetrics;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws ReflectiveOperationException {
+        Class<?> hotPaths = Class.forName("GameHotPaths");
+        hasItemInKit = (BooleanSupplier) hotPaths.getMethod("hasItemInKit").invoke(null);
+        hasItemInKitById = (BooleanSupplier) hotPaths.getMethod("hasItemInKitById").invoke(null);
+        hunterToString = (Supplier<String>) hotPaths.getMethod("hunterToString").invoke(null);
+        getInventory = (Supplier<String>) hotPaths.getMethod("getInventory").invoke(null);
+        checkMarketPrice = (IntSupplier) hotPaths.getMethod("checkMarketPrice").invoke(null);
+        newTown = (Supplier<Object>) hotPaths.getMethod("newTown").invoke(null);
+        lookForTrouble = (IntSupplier) hotPaths.getMethod("lookForTrouble").invoke(null);
+        headlessGame = (IntSupplier) hotPaths.getMethod("headlessGame").invoke(null);
+        recordMetrics = (IntSupplier) hotPaths.getMethod("recordMetrics").invoke(null);
+    }
+
+    @Benchmark
+    public boolean hunterHasItemInKit() {
+        return hasItemInKit.getAsBoolean();
+    }
+
+    @Benchmark
+    public boolean hunterHasItemInKitById() {
+        return hasItemInKitById.getAsBoolean();
+    }
+
+    @Benchmark
+    public String hunterToString() {
+        return hunterToString.get();
+    }
+
+    @Benchmark
+    public String hunterGetInventory() {
+        return getInventory.get();
+    }
+
+    @Benchmark
+    public int shopCheckMarketPrice() {
+        return checkMarketPrice.getAsInt();
+    }
+
+    @Benchmark
+    public Object townConstruction() {
+        return newTown.get();
+    }
+
+    @Benchmark
+    public int townLookForTrouble() {
+        return lookForTrouble.getAsInt();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int headlessGame() {
+        return headlessGame.getAsInt();
+    }
+
+    @Benchmark
+    public int gameMetricsRecordAction() {
+        return recordMetrics.getAsInt();
+    }
+}
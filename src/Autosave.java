@@ -0,0 +1,353 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the games of many sessions in the background, so a turn never waits for the disk.<p>
+ * Usage: java Autosave log file [folder] lists the sessions saved in a log, and with a folder
+ * writes each one out as session-(seed).bin, a GameSnapshot that GameSnapshot.load() reads back.<p>
+ * save() only puts the session's latest snapshot in a map and returns. A session that saves again
+ * before the last one was written just replaces it, so only its newest state is ever written.
+ * One writer thread takes everything in the map, appends it to a log file in one write, and
+ * forces it to disk with a single fsync (a group commit); while that fsync runs, the next batch
+ * builds up, so the slower the disk, the more each fsync carries. Commits are at least
+ * COMMIT_INTERVAL_MILLIS apart, which caps how often the disk is forced; a crash loses at most
+ * that long plus one commit of progress.<p>
+ * Every snapshot waiting in the map holds a permit from a semaphore, and a session that isn't in
+ * the map yet waits for one, so if the disk falls so far behind that maxDirty sessions are waiting
+ * to be written, turns are held back until it catches up instead of piling up memory.<p>
+ * Each record in the log is (session, length, CRC32, snapshot), and a length of 0 means the
+ * session has ended and its save is dropped, here and from the log at the next compaction. When the log grows to several times the size of
+ * the live saves, it is rewritten with only the latest record per session and moved over the old
+ * one, and a log that was cut off by a crash is read up to its last whole record.
+ */
+
+public class Autosave implements AutoCloseable {
+    // constants
+    public static final String LOG_FILE = "autosave.log";
+    public static final int DEFAULT_MAX_DIRTY = 4096;
+    public static final long COMMIT_INTERVAL_MILLIS = 10;
+    private static final int RECORD_HEADER_SIZE = 8 + 4 + 4;
+    private static final long MIN_COMPACT_BYTES = 1 << 20;
+    private static final int COMPACT_RATIO = 4;
+    private static final byte[] GAME_OVER = new byte[0];
+
+    // instance variables
+    private Path file;
+    private FileChannel channel;
+    private long logBytes;
+    private int maxDirty;
+    private ConcurrentHashMap<Long, byte[]> pending;
+    private Semaphore dirtyPermits;
+    // the latest saved snapshot of every session, kept by the writer thread for compacting the log
+    private HashMap<Long, byte[]> saved;
+    private long savedBytes;
+    private ByteBuffer batch;
+    private CRC32 crc;
+    private Thread writer;
+    private volatile boolean closing;
+    private volatile IOException failure;
+    private LongAdder saves;
+    private LongAdder merged;
+    private volatile long commits;
+    private volatile long recordsWritten;
+    private volatile long biggestBatch;
+
+    /**
+     * @param file The log file; saves already in it are kept.
+     * @throws IOException if the log can't be read or opened.
+     */
+    public Autosave(Path file) throws IOException {
+        this(file, DEFAULT_MAX_DIRTY);
+    }
+
+    /**
+     * Opens the log, reading back any saves already in it, and starts the writer thread.
+     *
+     * @param file The log file; saves already in it are kept.
+     * @param maxDirty How many sessions may be waiting to be written before turns are held back.
+     * @throws IOException if the log can't be read or opened.
+     */
+    public Autosave(Path file, int maxDirty) throws IOException {
+        this.file = file;
+        this.maxDirty = maxDirty;
+        pending = new ConcurrentHashMap<Long, byte[]>();
+        dirtyPermits = new Semaphore(maxDirty);
+        saved = new HashMap<Long, byte[]>();
+        batch = ByteBuffer.allocate(64 * 1024);
+        crc = new CRC32();
+        saves = new LongAdder();
+        merged = new LongAdder();
+        if (Files.exists(file)) {
+            saved.putAll(recover(file));
+            for (byte[] snapshot : saved.values()) {
+                savedBytes += RECORD_HEADER_SIZE + snapshot.length;
+            }
+        }
+        // starts from a clean log, which also drops a record a crash cut off halfway
+        compact();
+        writer = new Thread(() -> writeUntilClosed(), "autosave-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java Autosave log file [folder]");
+            return;
+        }
+        Map<Long, byte[]> sessions = recover(Paths.get(args[0]));
+        for (Map.Entry<Long, byte[]> session : sessions.entrySet()) {
+            String name = "session-" + Long.toHexString(session.getKey()) + ".bin";
+            System.out.println(name + ": " + session.getValue().length + " bytes");
+            if (args.length > 1) {
+                Files.write(Paths.get(args[1]).resolve(name), session.getValue());
+            }
+        }
+        System.out.println(sessions.size() + " saved sessions");
+    }
+
+    /**
+     * Queues a session's latest snapshot to be written. Returns at once unless the disk has
+     * fallen maxDirty sessions behind.
+     *
+     * @param session The session's key, like its seed.
+     * @param snapshot The session's game, as GameSnapshot.encode() writes it; it must not be changed afterwards.
+     */
+    public void save(long session, byte[] snapshot) {
+        if (snapshot.length == 0) {
+            throw new IllegalArgumentException("An empty snapshot would read back as a finished game");
+        }
+        queue(session, snapshot);
+    }
+
+    /**
+     * Drops a session's save, for a session that has ended.
+     *
+     * @param session The session's key.
+     */
+    public void forget(long session) {
+        queue(session, GAME_OVER);
+    }
+
+    // accessors
+    public long getSaves() {
+        return saves.sum();
+    }
+
+    /**
+     * @return How many saves were replaced by a newer save of the same session before being written.
+     */
+    public long getMerged() {
+        return merged.sum();
+    }
+
+    public long getCommits() {
+        return commits;
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    public long getBiggestBatch() {
+        return biggestBatch;
+    }
+
+    public String toString() {
+        return String.format("autosave: %d saves, %d merged, %d records in %d commits (biggest %d)",
+                getSaves(), getMerged(), recordsWritten, commits, biggestBatch);
+    }
+
+    /**
+     * Writes everything still waiting, stops the writer thread and closes the log.
+     */
+    public void close() throws IOException {
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Reads every session's latest snapshot from a log, stopping at the first record that isn't
+     * whole (the one a crash was writing).
+     *
+     * @param file The log file.
+     * @return Each session's snapshot; finished games are left out.
+     * @throws IOException if the file can't be read.
+     */
+    public static Map<Long, byte[]> recover(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        HashMap<Long, byte[]> sessions = new HashMap<Long, byte[]>();
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= RECORD_HEADER_SIZE) {
+            int start = in.position();
+            long session = in.getLong();
+            int length = in.getInt();
+            int checksum = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                break;
+            }
+            byte[] snapshot = new byte[length];
+            in.get(snapshot);
+            crc.reset();
+            crc.update(in.array(), start, 12);
+            crc.update(snapshot);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (length == 0) {
+                sessions.remove(session);
+            } else {
+                sessions.put(session, snapshot);
+            }
+        }
+        return sessions;
+    }
+
+    private void queue(long session, byte[] snapshot) {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        saves.increment();
+        // the writer may take the old snapshot at the same moment; then this one is queued anew below
+        if (pending.replace(session, snapshot) != null) {
+            merged.increment();
+            return;
+        }
+        dirtyPermits.acquireUninterruptibly();
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        if (pending.put(session, snapshot) != null) {
+            // only happens if one session saves from two threads; it still holds just one permit
+            dirtyPermits.release();
+            merged.increment();
+        }
+        LockSupport.unpark(writer);
+    }
+
+    private void writeUntilClosed() {
+        long lastCommit = 0;
+        try {
+            while (true) {
+                if (pending.isEmpty()) {
+                    if (closing) {
+                        return;
+                    }
+                    LockSupport.park(this);
+                    continue;
+                }
+                long wait = lastCommit + COMMIT_INTERVAL_MILLIS * 1_000_000 - System.nanoTime();
+                if (wait > 0 && !closing) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+                lastCommit = System.nanoTime();
+                commit();
+            }
+        } catch (IOException e) {
+            failure = e;
+            // let every turn waiting for a permit go, so it finds the failure instead of waiting forever
+            dirtyPermits.release(maxDirty);
+        }
+    }
+
+    /**
+     * Appends everything waiting in one write and forces it to disk.
+     */
+    private void commit() throws IOException {
+        batch.clear();
+        int records = 0;
+        for (Long session : pending.keySet()) {
+            byte[] snapshot = pending.remove(session);
+            if (snapshot == null) {
+                continue;
+            }
+            putRecord(session, snapshot);
+            records++;
+            byte[] old = snapshot == GAME_OVER ? saved.remove(session) : saved.put(session, snapshot);
+            if (old != null) {
+                savedBytes -= RECORD_HEADER_SIZE + old.length;
+            }
+            if (snapshot != GAME_OVER) {
+                savedBytes += RECORD_HEADER_SIZE + snapshot.length;
+            }
+        }
+        batch.flip();
+        while (batch.hasRemaining()) {
+            logBytes += channel.write(batch);
+        }
+        channel.force(false);
+        dirtyPermits.release(records);
+        commits++;
+        recordsWritten += records;
+        biggestBatch = Math.max(biggestBatch, records);
+        if (logBytes > Math.max(MIN_COMPACT_BYTES, COMPACT_RATIO * savedBytes)) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the log with only each session's latest snapshot and moves it over the old one.
+     */
+    private void compact() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<Long, byte[]> session : saved.entrySet()) {
+                batch.clear();
+                putRecord(session.getKey(), session.getValue());
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    out.write(batch);
+                }
+            }
+            out.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        logBytes = channel.size();
+    }
+
+    private void putRecord(long session, byte[] snapshot) {
+        if (batch.remaining() < RECORD_HEADER_SIZE + snapshot.length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(batch.capacity() * 2, batch.position() + RECORD_HEADER_SIZE + snapshot.length));
+            batch.flip();
+            bigger.put(batch);
+            batch = bigger;
+        }
+        int start = batch.position();
+        batch.putLong(session);
+        batch.putInt(snapshot.length);
+        crc.reset();
+        crc.update(batch.array(), start, 12);
+        crc.update(snapshot);
+        batch.putInt((int) crc.getValue());
+        batch.put(snapshot);
+    }
+}
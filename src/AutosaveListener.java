@@ -0,0 +1,41 @@
+/**
+ * Hands a session's game to an Autosave after every turn.<p>
+ * The snapshot is encoded on the session's own thread into an array of just the right size,
+ * which takes a microsecond or two, and the writing is left to the Autosave's writer thread. A
+ * won or lost game isn't saved, and once the session ends for any reason but parking (the
+ * player exits, hangs up, which exits too, or the game is over) finish() drops the save, since
+ * there is nothing left to pick up again.
+ */
+
+public class AutosaveListener implements TurnListener {
+    // instance variables
+    private Autosave autosave;
+    private long session;
+
+    /**
+     * @param autosave Where the game is saved.
+     * @param session The session's key in the autosave, like its seed.
+     */
+    public AutosaveListener(Autosave autosave, long session) {
+        this.autosave = autosave;
+        this.session = session;
+    }
+
+    public void turnPlayed(TreasureHunter game, String choice) {
+        Hunter hunter = game.getHunter();
+        if (hunter == null || game.getCurrentTown() == null) {
+            return;
+        }
+        if (hunter.getGold() < 0 || hunter.treasureIsFull()) {
+            return;
+        }
+        autosave.save(session, GameSnapshot.toBytes(game));
+    }
+
+    /**
+     * Drops the session's save, for a session that has ended.
+     */
+    public void finish() {
+        autosave.forget(session);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * One set of rules a Balancer is trying out, and how the games played with it have gone so far.<p>
+ * Games are added in chunks from many threads, so add() is synchronized; only sums are kept, so a
+ * trial costs the same whether it has played a thousand games or a million.
+ */
+
+public class BalanceTrial {
+    // constants
+    // a win rate this close to the target counts as on target
+    public static final double WIN_RATE_TOLERANCE = 0.02;
+    // and a game length within this fraction of the target
+    public static final double TURNS_TOLERANCE = 0.1;
+
+    // instance variables
+    private Rules rules;
+    private long games;
+    private long wins;
+    private double turnSum;
+    private double turnSquares;
+
+    /**
+     * @param rules The rules being tried.
+     */
+    public BalanceTrial(Rules rules) {
+        this.rules = rules;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /**
+     * Adds the results of a chunk of games.
+     *
+     * @param games How many games were played.
+     * @param wins How many of them were won.
+     * @param turnSum The total number of turns they took.
+     * @param turnSquares The total of the squares of the number of turns each one took.
+     */
+    public synchronized void add(long games, long wins, double turnSum, double turnSquares) {
+        this.games += games;
+        this.wins += wins;
+        this.turnSum += turnSum;
+        this.turnSquares += turnSquares;
+    }
+
+    public synchronized long getGames() {
+        return games;
+    }
+
+    public synchronized long getWins() {
+        return wins;
+    }
+
+    public synchronized double getWinRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    public synchronized double getMeanTurns() {
+        return games == 0 ? 0 : turnSum / games;
+    }
+
+    /**
+     * How far the rules are from the targets: 0 is spot on, and anything up to 1 is within
+     * WIN_RATE_TOLERANCE and TURNS_TOLERANCE.
+     *
+     * @param winRate The win rate wanted.
+     * @param turns The average game length wanted.
+     * @return The squared distance, with each target measured in its tolerance.
+     */
+    public synchronized double loss(double winRate, double turns) {
+        double winError = (getWinRate() - winRate) / WIN_RATE_TOLERANCE;
+        double turnError = (getMeanTurns() - turns) / (TURNS_TOLERANCE * turns);
+        return winError * winError + turnError * turnError;
+    }
+
+    /**
+     * @return Roughly how far loss() could be off from the loss after infinitely many games
+     *         (one standard error), worked out from the spread of the games played so far.
+     */
+    public synchronized double lossError(double winRate, double turns) {
+        if (games < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double p = getWinRate();
+        double mean = getMeanTurns();
+        double winSpread = Math.sqrt(p * (1 - p) / games) / WIN_RATE_TOLERANCE;
+        double turnVariance = Math.max(0, turnSquares / games - mean * mean);
+        double turnSpread = Math.sqrt(turnVariance / games) / (TURNS_TOLERANCE * turns);
+        double winError = (p - winRate) / WIN_RATE_TOLERANCE;
+        double turnError = (mean - turns) / (TURNS_TOLERANCE * turns);
+        // the first part is how the loss moves with the estimates; the second is its bias near the target
+        return Math.hypot(2 * winError * winSpread, 2 * turnError * turnSpread)
+                + winSpread * winSpread + turnSpread * turnSpread;
+    }
+}
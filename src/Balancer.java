@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Tunes the rules of each mode until simulated players win about as often, and games last about
+ * as long, as wanted, then writes the tuned rules to a ruleset file the game can load.<p>
+ * Usage: java Balancer [ruleset file] [mode=winRate:turns ...] [--rules rule,rule,...] [--strategy greedy|random] [--seed seed]<p>
+ * For example "java Balancer tuned.txt normal=0.5:20 hard=0.3:25" and then
+ * "java -Dtreasurehunter.rules=tuned.txt TreasureHunterRunner". Without targets, easy, normal,
+ * hard and samurai get the DEFAULT_TARGETS. By default it tunes the rules the greedy strategy
+ * feels (it never digs or sells, so the dig odds and markdown would make no difference).<p>
+ * The search is a compass search: each round tries moving every rule one step up and one step
+ * down from the best rules so far, and halves the steps when no move helps. The moves are raced
+ * against each other in batches that all run in parallel on the same seeded games with common
+ * rolls (see SimulatedGame), so their differences aren't drowned in luck; after each batch any
+ * move that is clearly worse than the leader is dropped, the batch size doubles for the rest,
+ * and a move that wins early is only kept if it still beats the best rules on a full batch.
+ * A mode stops as soon as its best rules hit the targets on a full batch.
+ */
+
+public class Balancer {
+    // constants
+    public static final String[] DEFAULT_TARGETS = {"easy=0.7:15", "normal=0.5:20", "hard=0.3:25", "samurai=0.35:20"};
+    private static final Rule[] DEFAULT_RULES = {Rule.STARTING_GOLD, Rule.TOUGHNESS, Rule.PRICE_SCALE,
+            Rule.NO_TROUBLE_CHANCE, Rule.TOUGH_NO_TROUBLE_CHANCE, Rule.MAX_BRAWL_GOLD, Rule.ITEM_BREAK_CHANCE};
+    private static final int FIRST_BATCH = 1000;
+    private static final int FULL_BATCH = 16000;
+    private static final int CHUNK_GAMES = 250;
+    private static final int MAX_TURNS = 1000;
+    private static final int MAX_ROUNDS = 60;
+    // how many times the starting step a rule's step may shrink to before the search gives up on it
+    private static final double SMALLEST_STEP = 1.0 / 16;
+    // how many standard errors apart two trials must be before the worse one is dropped
+    private static final double RACE_MARGIN = 2;
+
+    // instance variables
+    private Rule[] rules;
+    private PlayerStrategy strategy;
+    private long seed;
+    private long gamesPlayed;
+
+    /**
+     * @param rules The rules the search may change.
+     * @param strategy The strategy the simulated players use.
+     * @param seed The seed for the simulated games.
+     */
+    public Balancer(Rule[] rules, PlayerStrategy strategy, long seed) {
+        this.rules = rules;
+        this.strategy = strategy;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get("tuned-rules.txt");
+        ArrayList<String> targets = new ArrayList<String>();
+        Rule[] rules = DEFAULT_RULES;
+        String strategyName = "greedy";
+        long seed = System.nanoTime();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rules")) {
+                i++;
+                String[] keys = args[i].split(",");
+                rules = new Rule[keys.length];
+                for (int k = 0; k < keys.length; k++) {
+                    rules[k] = Rule.fromKey(keys[k].trim());
+                    if (rules[k] == null) {
+                        throw new IllegalArgumentException("There is no rule called " + keys[k]);
+                    }
+                }
+            } else if (args[i].equals("--strategy")) {
+                i++;
+                strategyName = args[i];
+            } else if (args[i].equals("--seed")) {
+                i++;
+                seed = Long.parseLong(args[i]);
+            } else if (args[i].contains("=")) {
+                targets.add(args[i]);
+            } else {
+                output = Paths.get(args[i]);
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.addAll(Arrays.asList(DEFAULT_TARGETS));
+        }
+
+        Balancer balancer = new Balancer(rules, Simulation.strategyFor(strategyName), seed);
+        Ruleset ruleset = Ruleset.current();
+        ArrayList<String> comments = new ArrayList<String>();
+        comments.add("tuned by Balancer with the " + strategyName + " strategy, seed " + seed);
+        long start = System.nanoTime();
+        for (String target : targets) {
+            int equals = target.indexOf('=');
+            int colon = target.indexOf(':');
+            Mode mode = Mode.valueOf(target.substring(0, equals).trim().toUpperCase());
+            double winRate = Double.parseDouble(target.substring(equals + 1, colon));
+            double turns = Double.parseDouble(target.substring(colon + 1));
+
+            long modeStart = System.nanoTime();
+            BalanceTrial best = balancer.balance(mode, ruleset.forMode(mode), winRate, turns);
+            ruleset = ruleset.with(mode, best.getRules());
+            double[] interval = TournamentStats.wilsonInterval(best.getWins(), best.getGames(), TournamentStats.Z_95);
+            String result = String.format("%s: wanted win rate %.3f and %.1f turns, got %.3f (95%% CI %.3f-%.3f) and %.1f over %d games (%s, %.1f s)",
+                    mode.name().toLowerCase(), winRate, turns, best.getWinRate(), interval[0], interval[1],
+                    best.getMeanTurns(), best.getGames(),
+                    best.loss(winRate, turns) <= 1 ? "on target" : "closest found",
+                    (System.nanoTime() - modeStart) / 1e9);
+            System.out.println(result);
+            System.out.println("  " + best.getRules());
+            comments.add(result);
+        }
+        ruleset.write(output, comments);
+        System.out.printf("Wrote %s after %d simulated games in %.1f s%n", output, balancer.gamesPlayed,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Searches for rules for one mode that hit the targets.
+     *
+     * @param mode The mode being tuned.
+     * @param startingRules The rules to start the search from.
+     * @param winRate The win rate wanted.
+     * @param turns The average game length wanted.
+     * @return The best trial found, played on a full batch of games.
+     */
+    public BalanceTrial balance(Mode mode, Rules startingRules, double winRate, double turns) {
+        BalanceTrial best = new BalanceTrial(startingRules);
+        play(mode, List.of(best), FULL_BATCH);
+        double[] steps = new double[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            steps[i] = rules[i].getStep();
+        }
+
+        for (int round = 0; round < MAX_ROUNDS && best.loss(winRate, turns) > 1; round++) {
+            ArrayList<BalanceTrial> trials = new ArrayList<BalanceTrial>();
+            trials.add(best);
+            for (int i = 0; i < rules.length; i++) {
+                double current = best.getRules().get(rules[i]);
+                for (int direction = -1; direction <= 1; direction += 2) {
+                    double moved = rules[i].clamp(current + direction * steps[i]);
+                    if (moved != current) {
+                        trials.add(new BalanceTrial(best.getRules().with(rules[i], moved)));
+                    }
+                }
+            }
+
+            BalanceTrial winner = race(mode, trials, winRate, turns);
+            if (winner != best) {
+                // a winner that pulled ahead early is only trusted if it still beats the best so far on the full batch
+                play(mode, List.of(best, winner), FULL_BATCH);
+                if (winner.loss(winRate, turns) < best.loss(winRate, turns)) {
+                    best = winner;
+                    continue;
+                }
+            }
+            boolean searching = false;
+            for (int i = 0; i < rules.length; i++) {
+                double previous = steps[i];
+                steps[i] /= 2;
+                if (rules[i].isWhole()) {
+                    steps[i] = Math.max(1, steps[i]);
+                }
+                // a whole rule already down to a step of 1 has nothing finer left to try
+                searching = searching || (steps[i] < previous && steps[i] >= rules[i].getStep() * SMALLEST_STEP);
+            }
+            if (!searching) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays the trials on the same games in growing batches, dropping the ones that are clearly
+     * worse than the leader after each batch, until one is left or a full batch has been played.
+     *
+     * @return The trial that did best; trials[0], the best so far, wins ties.
+     */
+    private BalanceTrial race(Mode mode, List<BalanceTrial> trials, double winRate, double turns) {
+        ArrayList<BalanceTrial> racing = new ArrayList<BalanceTrial>(trials);
+        for (int batch = FIRST_BATCH; ; batch = Math.min(FULL_BATCH, batch * 2)) {
+            play(mode, racing, batch);
+            BalanceTrial leader = racing.get(0);
+            for (BalanceTrial trial : racing) {
+                if (trial.loss(winRate, turns) < leader.loss(winRate, turns)) {
+                    leader = trial;
+                }
+            }
+            double cutoff = leader.loss(winRate, turns) + RACE_MARGIN * leader.lossError(winRate, turns);
+            ArrayList<BalanceTrial> kept = new ArrayList<BalanceTrial>();
+            for (BalanceTrial trial : racing) {
+                if (trial == leader || trial.loss(winRate, turns) - RACE_MARGIN * trial.lossError(winRate, turns) <= cutoff) {
+                    kept.add(trial);
+                }
+            }
+            racing = kept;
+            if (racing.size() == 1 || batch == FULL_BATCH) {
+                return leader;
+            }
+        }
+    }
+
+    /**
+     * Plays each trial up to the given number of games, all trials and chunks at once on the
+     * common pool. Game n has the same seed for every trial.
+     */
+    private void play(Mode mode, List<BalanceTrial> trials, int games) {
+        ArrayList<long[]> chunks = new ArrayList<long[]>();
+        for (int t = 0; t < trials.size(); t++) {
+            for (long first = trials.get(t).getGames(); first < games; first += CHUNK_GAMES) {
+                chunks.add(new long[] {t, first, Math.min(games, first + CHUNK_GAMES)});
+            }
+        }
+        IntStream.range(0, chunks.size()).parallel().forEach(c -> {
+            long[] chunk = chunks.get(c);
+            BalanceTrial trial = trials.get((int) chunk[0]);
+            long wins = 0;
+            double turnSum = 0;
+            double turnSquares = 0;
+            for (long game = chunk[1]; game < chunk[2]; game++) {
+                SimulatedGame played = new SimulatedGame(mode, trial.getRules(), strategy, GameRandom.seedFor(seed, game), true);
+                if (played.play(MAX_TURNS) == GameOutcome.WON) {
+                    wins++;
+                }
+                turnSum += played.getTurns();
+                turnSquares += (double) played.getTurns() * played.getTurns();
+            }
+            trial.add(chunk[2] - chunk[1], wins, turnSum, turnSquares);
+        });
+        for (long[] chunk : chunks) {
+            gamesPlayed += chunk[2] - chunk[1];
+        }
+    }
+}
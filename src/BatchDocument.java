@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+
+/**
+ * A styled document that can take a whole batch of styled text in one insert.<p>
+ * Calling insertString() once per piece of text makes the document fire an event and redo its
+ * layout every time. Here the pieces are collected as element specs first and then put in with
+ * a single call to insert(), so the text pane only has to lay itself out once.
+ */
+
+public class BatchDocument extends DefaultStyledDocument {
+    // constants
+    private static final long serialVersionUID = 1L;
+    private static final char[] EOL_ARRAY = {'\n'};
+
+    // instance variables
+    private ArrayList<ElementSpec> batch = new ArrayList<ElementSpec>();
+
+    /**
+     * Adds text to the batch; any line breaks in it become new paragraphs.
+     *
+     * @param text The text to add.
+     * @param attributes The style to show the text in.
+     */
+    public void appendBatchString(String text, AttributeSet attributes) {
+        appendBatchString(text, 0, text.length(), attributes);
+    }
+
+    /**
+     * Adds part of a String to the batch; any line breaks in it become new paragraphs.
+     *
+     * @param text The text to take the part from.
+     * @param from Where the part starts.
+     * @param to Where the part ends (exclusive).
+     * @param attributes The style to show the text in.
+     */
+    public void appendBatchString(String text, int from, int to, AttributeSet attributes) {
+        int start = from;
+        int newline = text.indexOf('\n', start);
+        while (newline >= 0 && newline < to) {
+            appendBatchContent(text, start, newline, attributes);
+            appendBatchLineFeed(attributes);
+            start = newline + 1;
+            newline = text.indexOf('\n', start);
+        }
+        appendBatchContent(text, start, to, attributes);
+    }
+
+    /**
+     * Adds a line break to the batch, starting a new paragraph.
+     *
+     * @param attributes The style of the line break.
+     */
+    public void appendBatchLineBreak(AttributeSet attributes) {
+        appendBatchLineFeed(attributes);
+    }
+
+    private void appendBatchContent(String text, int start, int end, AttributeSet attributes) {
+        if (end > start) {
+            char[] chars = new char[end - start];
+            text.getChars(start, end, chars, 0);
+            batch.add(new ElementSpec(attributes, ElementSpec.ContentType, chars, 0, chars.length));
+        }
+    }
+
+    private void appendBatchLineFeed(AttributeSet attributes) {
+        batch.add(new ElementSpec(attributes, ElementSpec.ContentType, EOL_ARRAY, 0, 1));
+        Element paragraph = getParagraphElement(0);
+        batch.add(new ElementSpec(null, ElementSpec.EndTagType));
+        batch.add(new ElementSpec(paragraph.getAttributes(), ElementSpec.StartTagType));
+    }
+
+    /**
+     * Puts everything in the batch at the end of the document with a single insert and empties the batch.
+     *
+     * @throws BadLocationException if the document changed in a way the batch doesn't fit.
+     */
+    public void processBatchUpdates() throws BadLocationException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ElementSpec[] inserts = batch.toArray(new ElementSpec[0]);
+        batch.clear();
+        insert(getLength(), inserts);
+    }
+}
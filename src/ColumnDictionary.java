@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The values a dictionary-encoded column stands for, like the terrain names behind the terrain
+ * column of a ColumnExport.<p>
+ * The column only holds each value's code, an unsigned byte (or two, for a column with more
+ * values than a byte can tell apart), and the dictionary is saved next to it as a text file with
+ * one value per line: the code is the line number, counting from 0. The all-ones code is never
+ * handed out, so a column can use it for "none". Codes are handed out in the order values are
+ * first seen and never change, so a store can keep growing.
+ */
+
+public class ColumnDictionary {
+    // constants
+    // the most values an unsigned one-byte or two-byte code can stand for, leaving out all ones
+    public static final int BYTE_CODES = 0xff;
+    public static final int SHORT_CODES = 0xffff;
+
+    // instance variables
+    private ArrayList<String> values;
+    private HashMap<String, Integer> codes;
+    private int maxSize;
+
+    /**
+     * @param values The values to start with, given codes 0, 1, 2 and so on.
+     */
+    public ColumnDictionary(List<String> values) {
+        this(values, BYTE_CODES);
+    }
+
+    /**
+     * @param values The values to start with, given codes 0, 1, 2 and so on.
+     * @param maxSize The most values the column's codes can stand for, like BYTE_CODES.
+     */
+    public ColumnDictionary(List<String> values, int maxSize) {
+        this.values = new ArrayList<String>();
+        codes = new HashMap<String, Integer>();
+        this.maxSize = maxSize;
+        for (String value : values) {
+            codeOf(value);
+        }
+    }
+
+    /**
+     * @param file A dictionary saved with write().
+     * @return The dictionary, with one-byte codes, or an empty one if the file doesn't exist yet.
+     * @throws IOException if the file can't be read.
+     */
+    public static ColumnDictionary read(Path file) throws IOException {
+        return read(file, BYTE_CODES);
+    }
+
+    /**
+     * @param file A dictionary saved with write().
+     * @param maxSize The most values the column's codes can stand for, like BYTE_CODES.
+     * @return The dictionary, or an empty one if the file doesn't exist yet.
+     * @throws IOException if the file can't be read.
+     */
+    public static ColumnDictionary read(Path file, int maxSize) throws IOException {
+        if (!Files.exists(file)) {
+            return new ColumnDictionary(new ArrayList<String>(), maxSize);
+        }
+        return new ColumnDictionary(Files.readAllLines(file, StandardCharsets.UTF_8), maxSize);
+    }
+
+    /**
+     * @param file Where to save the dictionary; it is replaced.
+     * @throws IOException if the file can't be written.
+     */
+    public synchronized void write(Path file) throws IOException {
+        Files.write(file, values, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param value A value to put in the column.
+     * @return Its code, which is given out now if the value is new.
+     */
+    public synchronized int codeOf(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (values.size() >= maxSize) {
+            throw new IllegalStateException("A column can't tell more than " + maxSize + " values apart: " + value);
+        }
+        values.add(value);
+        codes.put(value, values.size() - 1);
+        return values.size() - 1;
+    }
+
+    /**
+     * @param value A value to look for.
+     * @return Its code, or -1 if the column has never held it.
+     */
+    public synchronized int find(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            return -1;
+        }
+        return code;
+    }
+
+    /**
+     * @param code A code from the column.
+     * @return The value it stands for.
+     */
+    public synchronized String valueOf(int code) {
+        return values.get(code);
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * @param maxSize The most values the column's codes can stand for from now on; no less than size().
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+}
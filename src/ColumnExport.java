@@ -0,0 +1,436 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Writes finished games into a columnar store that ColumnQuery can scan quickly.<p>
+ * Usage: java ColumnExport folder simulate [games per mode] [greedy|random] [max turns] [seed]<p>
+ * or: java ColumnExport folder journals [journal file]...<p>
+ * The store is a folder with one file per column and two tables: a row per game (mode, outcome,
+ * seed, starting and final gold, turns, treasures and where its turns start) and a row per
+ * turn (game, action, terrain, item, gold after the turn, and flags for what happened). Every
+ * file holds nothing but fixed-width little-endian numbers, so row i of a column is at
+ * i times its width and a scan reads only the columns it needs. Modes, outcomes, actions,
+ * terrains and items are stored as unsigned one-byte codes, with a ColumnDictionary file per
+ * kind; a turn with no item has code 255. A store made with a terrain catalog too big for one
+ * byte (see terrainWidth()) has two-byte terrain codes instead, and keeps them. turn.game is an
+ * unsigned 32-bit game number, so a store holds up to MAX_GAMES games, while game.first_turn is
+ * 64-bit since the turns run far past that.<p>
+ * Simulated games are played on every core in batches of BATCH_GAMES, each recorded by its own
+ * thread into a GameColumnBatch and appended as a whole, so the batches land in whatever order
+ * they finish; the seed column says which game is which. A store can be added to by later
+ * exports. Turns are always written before their game's row, and a store cut short by a crash
+ * is read (and added to) as if it ended after the last game whose turns are all there.
+ */
+
+public class ColumnExport implements AutoCloseable {
+    // constants
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    public static final String COLUMN_SUFFIX = ".col";
+    public static final String DICTIONARY_SUFFIX = ".dict";
+    public static final String[] GAME_COLUMNS = {"game.mode", "game.outcome", "game.seed", "game.start_gold",
+            "game.gold", "game.turns", "game.treasures", "game.first_turn"};
+    public static final int[] GAME_WIDTHS = {1, 1, 8, 4, 4, 4, 1, 8};
+    public static final int GAME_MODE = 0;
+    public static final int GAME_OUTCOME = 1;
+    public static final int GAME_SEED = 2;
+    public static final int GAME_START_GOLD = 3;
+    public static final int GAME_GOLD = 4;
+    public static final int GAME_TURNS = 5;
+    public static final int GAME_TREASURES = 6;
+    public static final int GAME_FIRST_TURN = 7;
+    public static final String[] TURN_COLUMNS = {"turn.game", "turn.action", "turn.terrain", "turn.item",
+            "turn.gold", "turn.flags"};
+    // the widths with one-byte terrain codes; see turnWidths()
+    public static final int[] TURN_WIDTHS = {4, 1, 1, 1, 4, 1};
+    public static final int TURN_GAME = 0;
+    public static final int TURN_ACTION = 1;
+    public static final int TURN_TERRAIN = 2;
+    public static final int TURN_ITEM = 3;
+    public static final int TURN_GOLD = 4;
+    public static final int TURN_FLAGS = 5;
+    public static final String MODES = "mode";
+    public static final String OUTCOMES = "outcome";
+    public static final String ACTIONS_DICTIONARY = "action";
+    public static final String TERRAINS = "terrain";
+    public static final String ITEMS = "item";
+    // the menu choices in the order of their codes; anything else is recorded as "?"
+    public static final String ACTIONS = "bsmlhdx";
+    // turn.flags bits
+    public static final int LEFT_TOWN = 0x1;
+    public static final int STRANDED = 0x2;
+    public static final int ITEM_GAINED = 0x4;
+    public static final int ITEM_LOST = 0x8;
+    public static final int TREASURE_FOUND = 0x10;
+    public static final long MAX_GAMES = 0xffffffffL;
+    private static final int BATCH_GAMES = 2048;
+
+    // instance variables
+    private Path folder;
+    private FileChannel[] gameFiles;
+    private FileChannel[] turnFiles;
+    private long gameRows;
+    private long turnRows;
+    private ColumnDictionary modes;
+    private ColumnDictionary outcomes;
+    private ColumnDictionary actions;
+    private ColumnDictionary terrains;
+    private ColumnDictionary items;
+    private int terrainWidth;
+    private int[] turnWidths;
+    private int[] terrainCodes;
+    private int[] itemCodes;
+
+    /**
+     * Opens a store to add games to, creating it if it doesn't exist.
+     *
+     * @param folder The store's folder.
+     * @throws IOException if the folder or its files can't be opened.
+     */
+    public ColumnExport(Path folder) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(folder);
+        modes = openDictionary(MODES, namesOf(Mode.values()));
+        outcomes = openDictionary(OUTCOMES, namesOf(GameOutcome.values()));
+        ArrayList<String> actionNames = new ArrayList<String>();
+        for (int i = 0; i < ACTIONS.length(); i++) {
+            actionNames.add(ACTIONS.substring(i, i + 1));
+        }
+        actionNames.add("?");
+        actions = openDictionary(ACTIONS_DICTIONARY, actionNames);
+        items = ColumnDictionary.read(dictionaryFile(ITEMS));
+        itemCodes = new int[ItemCatalog.size()];
+        for (int id = 0; id < itemCodes.length; id++) {
+            itemCodes[id] = items.codeOf(ItemCatalog.nameOf(id));
+        }
+        terrains = ColumnDictionary.read(dictionaryFile(TERRAINS), ColumnDictionary.SHORT_CODES);
+        terrainWidth = terrainWidth(terrains.size());
+        turnWidths = turnWidths(terrainWidth);
+
+        gameFiles = openColumns(GAME_COLUMNS);
+        turnFiles = openColumns(TURN_COLUMNS);
+        gameRows = Long.MAX_VALUE;
+        for (int i = 0; i < gameFiles.length; i++) {
+            gameRows = Math.min(gameRows, gameFiles[i].size() / GAME_WIDTHS[i]);
+        }
+        long turnsWritten = Long.MAX_VALUE;
+        for (int i = 0; i < turnFiles.length; i++) {
+            turnsWritten = Math.min(turnsWritten, turnFiles[i].size() / turnWidths[i]);
+        }
+        turnRows = 0;
+        while (gameRows > 0) {
+            turnRows = endOfGame(gameRows - 1);
+            if (turnRows <= turnsWritten) {
+                break;
+            }
+            gameRows--;
+        }
+        if (gameRows == 0) {
+            turnRows = 0;
+        }
+        // drops whatever a crash left half written
+        truncate(gameFiles, GAME_WIDTHS, gameRows);
+        truncate(turnFiles, turnWidths, turnRows);
+
+        terrainCodes = new int[TerrainCatalog.size()];
+        for (int id = 0; id < terrainCodes.length; id++) {
+            terrainCodes[id] = terrains.codeOf(TerrainCatalog.get(id).getTerrainNamePlain());
+        }
+        if (turnRows == 0) {
+            // nothing is written yet, so the terrain column can still be as wide as the catalog needs
+            terrainWidth = terrainWidth(terrains.size());
+            turnWidths = turnWidths(terrainWidth);
+        } else if (terrainWidth(terrains.size()) != terrainWidth) {
+            // leaves the dictionaries as they were, so the store keeps its width
+            closeColumns();
+            throw new IOException("The store at " + folder + " has one-byte terrain codes, too few for "
+                    + terrains.size() + " terrains; export them to a new store");
+        }
+        terrains.setMaxSize(terrainWidth == 1 ? ColumnDictionary.BYTE_CODES : ColumnDictionary.SHORT_CODES);
+        writeDictionaries();
+    }
+
+    /**
+     * @param terrains How many values a store's terrain dictionary holds.
+     * @return How many bytes each terrain code takes in the turn.terrain column.
+     */
+    public static int terrainWidth(int terrains) {
+        return terrains > ColumnDictionary.BYTE_CODES ? 2 : 1;
+    }
+
+    /**
+     * @param terrainWidth How many bytes each terrain code takes (see terrainWidth()).
+     * @return The width of each of the TURN_COLUMNS.
+     */
+    public static int[] turnWidths(int terrainWidth) {
+        int[] widths = TURN_WIDTHS.clone();
+        widths[TURN_TERRAIN] = terrainWidth;
+        return widths;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java ColumnExport folder simulate [games per mode] [greedy|random] [max turns] [seed]");
+            System.out.println("   or: java ColumnExport folder journals [journal file]...");
+            return;
+        }
+        Path folder = Paths.get(args[0]);
+        long start = System.nanoTime();
+        try (ColumnExport export = new ColumnExport(folder)) {
+            if (args[1].equals("journals")) {
+                for (int i = 2; i < args.length; i++) {
+                    export.exportJournal(GameJournal.load(Paths.get(args[i])));
+                }
+            } else {
+                long games = 100_000;
+                PlayerStrategy strategy = new GreedyStrategy();
+                int maxTurns = 1000;
+                long seed = System.nanoTime();
+                if (args.length > 2) {
+                    games = Long.parseLong(args[2]);
+                }
+                if (args.length > 3) {
+                    strategy = Simulation.strategyFor(args[3]);
+                }
+                if (args.length > 4) {
+                    maxTurns = Integer.parseInt(args[4]);
+                }
+                if (args.length > 5) {
+                    seed = Long.parseLong(args[5]);
+                }
+                for (Mode mode : Mode.values()) {
+                    export.exportSimulated(mode, strategy, games, maxTurns, seed);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s now holds %d games and %d turns (%.1f s)%n", folder, export.getGames(),
+                    export.getTurns(), seconds);
+        }
+    }
+
+    public synchronized long getGames() {
+        return gameRows;
+    }
+
+    public synchronized long getTurns() {
+        return turnRows;
+    }
+
+    /**
+     * @return How many bytes each terrain code takes in this store.
+     */
+    public int getTerrainWidth() {
+        return terrainWidth;
+    }
+
+    /**
+     * Plays simulated games on every core and adds them to the store.
+     *
+     * @param mode The difficulty to play on.
+     * @param strategy The strategy making the moves.
+     * @param games How many games to play.
+     * @param maxTurns How many moves a game may take before it is stopped.
+     * @param seed The seed for the batch; game n gets the same seed as in a Simulation with this seed.
+     * @throws IOException if the store can't be written.
+     */
+    public void exportSimulated(Mode mode, PlayerStrategy strategy, long games, int maxTurns, long seed)
+            throws IOException {
+        int batches = (int) ((games + BATCH_GAMES - 1) / BATCH_GAMES);
+        try {
+            IntStream.range(0, batches).parallel().forEach(b -> {
+                GameColumnBatch batch = new GameColumnBatch(this);
+                long last = Math.min(games, (long) (b + 1) * BATCH_GAMES);
+                for (long game = (long) b * BATCH_GAMES; game < last; game++) {
+                    long gameSeed = GameRandom.seedFor(seed, game);
+                    record(new SimulatedGame(mode, strategy, gameSeed, false), mode, gameSeed, maxTurns, batch);
+                }
+                try {
+                    append(batch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Replays a recorded game and adds it to the store.
+     *
+     * @param journal The recorded game.
+     * @throws IOException if the store can't be written.
+     */
+    public void exportJournal(GameJournal journal) throws IOException {
+        GameColumnBatch batch = new GameColumnBatch(this);
+        GameRecorder recorder = new GameRecorder(batch, new ScriptInput(journal.getInputs()));
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, recorder, journal.getSeed());
+        journal.prepare(game);
+        game.addTurnListener(recorder);
+        game.play();
+        recorder.finish(game);
+        append(batch);
+    }
+
+    /**
+     * Adds a batch of games to the end of the store.
+     *
+     * @param batch The games.
+     * @throws IOException if the store can't be written.
+     */
+    public synchronized void append(GameColumnBatch batch) throws IOException {
+        if (gameRows + batch.getGames() > MAX_GAMES) {
+            throw new IOException("The store at " + folder + " can't hold more than " + MAX_GAMES + " games");
+        }
+        batch.writeTo(gameFiles, turnFiles, gameRows, turnRows);
+        gameRows += batch.getGames();
+        turnRows += batch.getTurns();
+    }
+
+    /**
+     * @return The mode's code in the mode column.
+     */
+    public int modeCode(Mode mode) {
+        // the constructor checked that the dictionary lists the modes in order
+        return mode.ordinal();
+    }
+
+    /**
+     * @return The terrain's code in the terrain column.
+     */
+    public int terrainCode(Terrain terrain) {
+        int id = terrain.getId();
+        if (id >= 0 && id < terrainCodes.length) {
+            return terrainCodes[id];
+        }
+        return terrains.codeOf(terrain.getTerrainNamePlain());
+    }
+
+    /**
+     * @param id An item's ItemCatalog id.
+     * @return The item's code in the item column.
+     */
+    public int itemCode(int id) {
+        return itemCodes[id];
+    }
+
+    /**
+     * Saves the dictionaries and makes sure everything is on the disk.
+     */
+    public void close() throws IOException {
+        writeDictionaries();
+        closeColumns();
+    }
+
+    private void closeColumns() throws IOException {
+        for (FileChannel file : gameFiles) {
+            file.force(false);
+            file.close();
+        }
+        for (FileChannel file : turnFiles) {
+            file.force(false);
+            file.close();
+        }
+    }
+
+    /**
+     * Plays a simulated game the way SimulatedGame.play() does, recording every turn.
+     */
+    private static void record(SimulatedGame game, Mode mode, long seed, int maxTurns, GameColumnBatch batch) {
+        Hunter hunter = game.getHunter();
+        batch.startGame(mode, seed, hunter);
+        GameOutcome outcome;
+        while (true) {
+            if (game.getTurns() >= maxTurns) {
+                outcome = GameOutcome.UNFINISHED;
+                break;
+            }
+            if (hunter.getGold() < 0) {
+                outcome = GameOutcome.LOST;
+                break;
+            }
+            if (hunter.treasureIsFull()) {
+                outcome = GameOutcome.WON;
+                break;
+            }
+            Town before = game.getTown();
+            long kit = GameColumnBatch.kitBits(hunter);
+            int treasures = hunter.getCollectedTreasure().size();
+            String choice = game.playTurn();
+            batch.addTurn(choice, before, kit, treasures, hunter, game.getTown());
+            if (choice.equals("x")) {
+                outcome = GameOutcome.QUIT;
+                break;
+            }
+        }
+        batch.endGame(outcome, hunter);
+    }
+
+    /**
+     * @return The turn row just past a game's last turn.
+     */
+    private long endOfGame(long game) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).order(ORDER);
+        gameFiles[GAME_FIRST_TURN].read(buffer, game * GAME_WIDTHS[GAME_FIRST_TURN]);
+        long firstTurn = buffer.getLong(0);
+        buffer.clear();
+        gameFiles[GAME_TURNS].read(buffer, game * GAME_WIDTHS[GAME_TURNS]);
+        return firstTurn + buffer.getInt(0);
+    }
+
+    private ColumnDictionary openDictionary(String name, List<String> values) throws IOException {
+        ColumnDictionary dictionary = ColumnDictionary.read(dictionaryFile(name));
+        for (String value : values) {
+            int code = dictionary.codeOf(value);
+            if (code != values.indexOf(value)) {
+                throw new IOException("The store at " + folder + " has a different " + name + " dictionary");
+            }
+        }
+        return dictionary;
+    }
+
+    private void writeDictionaries() throws IOException {
+        modes.write(dictionaryFile(MODES));
+        outcomes.write(dictionaryFile(OUTCOMES));
+        actions.write(dictionaryFile(ACTIONS_DICTIONARY));
+        terrains.write(dictionaryFile(TERRAINS));
+        items.write(dictionaryFile(ITEMS));
+    }
+
+    private Path dictionaryFile(String name) {
+        return folder.resolve(name + DICTIONARY_SUFFIX);
+    }
+
+    private FileChannel[] openColumns(String[] names) throws IOException {
+        FileChannel[] files = new FileChannel[names.length];
+        for (int i = 0; i < names.length; i++) {
+            files[i] = FileChannel.open(folder.resolve(names[i] + COLUMN_SUFFIX),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return files;
+    }
+
+    private static void truncate(FileChannel[] files, int[] widths, long rows) throws IOException {
+        for (int i = 0; i < files.length; i++) {
+            files[i].truncate(rows * widths[i]);
+            files[i].position(rows * widths[i]);
+        }
+    }
+
+    private static List<String> namesOf(Enum<?>[] values) {
+        ArrayList<String> names = new ArrayList<String>();
+        for (Enum<?> value : values) {
+            names.add(value.name());
+        }
+        return names;
+    }
+}
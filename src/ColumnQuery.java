@@ -0,0 +1,316 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+/**
+ * Answers questions about every game in a ColumnExport store by scanning its columns.<p>
+ * Usage: java ColumnQuery folder [gold curve turns]<p>
+ * The column files are memory-mapped (see MappedColumn) and each query only touches the columns
+ * it needs. A scan is split at chunk boundaries and the chunks run on every core through a
+ * parallel stream; each chunk counts into its own arrays, which are added up at the end, so the
+ * threads share nothing but the read-only mappings. The game a turn belongs to is looked up
+ * through the turn.game column, which only changes every few dozen rows. Codes are unsigned, and
+ * the terrain codes take one byte or two depending on the store (see ColumnExport.terrainWidth()).
+ */
+
+public class ColumnQuery {
+    // constants
+    private static final int DEFAULT_CURVE_TURNS = 50;
+    private static final int CURVE_STEP = 5;
+
+    // instance variables
+    private long games;
+    private long turns;
+    private MappedColumn[] gameColumns;
+    private MappedColumn[] turnColumns;
+    private ColumnDictionary modes;
+    private ColumnDictionary outcomes;
+    private ColumnDictionary actions;
+    private ColumnDictionary terrains;
+    private ColumnDictionary items;
+    private int terrainWidth;
+
+    /**
+     * Opens a store for reading; games added to it afterwards aren't seen.
+     *
+     * @param folder The store's folder.
+     * @throws IOException if a file can't be read.
+     */
+    public ColumnQuery(Path folder) throws IOException {
+        modes = ColumnDictionary.read(folder.resolve(ColumnExport.MODES + ColumnExport.DICTIONARY_SUFFIX));
+        outcomes = ColumnDictionary.read(folder.resolve(ColumnExport.OUTCOMES + ColumnExport.DICTIONARY_SUFFIX));
+        actions = ColumnDictionary.read(folder.resolve(ColumnExport.ACTIONS_DICTIONARY + ColumnExport.DICTIONARY_SUFFIX));
+        terrains = ColumnDictionary.read(folder.resolve(ColumnExport.TERRAINS + ColumnExport.DICTIONARY_SUFFIX),
+                ColumnDictionary.SHORT_CODES);
+        items = ColumnDictionary.read(folder.resolve(ColumnExport.ITEMS + ColumnExport.DICTIONARY_SUFFIX));
+        gameColumns = mapColumns(folder, ColumnExport.GAME_COLUMNS, ColumnExport.GAME_WIDTHS);
+        terrainWidth = ColumnExport.terrainWidth(terrains.size());
+        turnColumns = mapColumns(folder, ColumnExport.TURN_COLUMNS, ColumnExport.turnWidths(terrainWidth));
+
+        games = Long.MAX_VALUE;
+        for (MappedColumn column : gameColumns) {
+            games = Math.min(games, column.getRows());
+        }
+        long turnRows = Long.MAX_VALUE;
+        for (MappedColumn column : turnColumns) {
+            turnRows = Math.min(turnRows, column.getRows());
+        }
+        // an export that was cut short may have written a game's row without all of its turns
+        turns = 0;
+        while (games > 0) {
+            turns = endOfGame(games - 1);
+            if (turns <= turnRows) {
+                break;
+            }
+            games--;
+        }
+        if (games == 0) {
+            turns = 0;
+        }
+        for (MappedColumn column : gameColumns) {
+            column.limitRows(games);
+        }
+        for (MappedColumn column : turnColumns) {
+            column.limitRows(turns);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java ColumnQuery folder [gold curve turns]");
+            return;
+        }
+        ColumnQuery query = new ColumnQuery(Paths.get(args[0]));
+        int curveTurns = DEFAULT_CURVE_TURNS;
+        if (args.length > 1) {
+            curveTurns = Integer.parseInt(args[1]);
+        }
+        System.out.println(query.getGames() + " games, " + query.getTurns() + " turns");
+
+        long start = System.nanoTime();
+        long[][] outcomeCounts = query.outcomesByMode();
+        long gameNanos = System.nanoTime() - start;
+        int won = query.outcomes.find(GameOutcome.WON.name());
+        System.out.println("Win rate by mode:");
+        for (int mode = 0; mode < outcomeCounts.length; mode++) {
+            long total = 0;
+            for (long count : outcomeCounts[mode]) {
+                total += count;
+            }
+            if (total > 0) {
+                System.out.printf("  %-10s %6.2f%% of %d games%n", query.modes.valueOf(mode),
+                        100.0 * outcomeCounts[mode][won] / total, total);
+            }
+        }
+
+        start = System.nanoTime();
+        long[][] moves = query.movesByTerrain();
+        long moveNanos = System.nanoTime() - start;
+        System.out.println("Stranded when moving, by terrain:");
+        for (int terrain = 0; terrain < moves.length; terrain++) {
+            if (moves[terrain][0] > 0) {
+                System.out.printf("  %-10s %6.2f%% of %d moves%n", query.terrains.valueOf(terrain),
+                        100.0 * moves[terrain][1] / moves[terrain][0], moves[terrain][0]);
+            }
+        }
+
+        long curveNanos = 0;
+        System.out.println("Mean gold of the games still going, by turn:");
+        for (int mode = 0; mode < query.modes.size(); mode++) {
+            start = System.nanoTime();
+            double[] curve = query.goldCurve(Mode.valueOf(query.modes.valueOf(mode)), curveTurns);
+            curveNanos += System.nanoTime() - start;
+            StringBuilder line = new StringBuilder(String.format("  %-10s", query.modes.valueOf(mode)));
+            for (int turn = 0; turn <= curveTurns; turn += CURVE_STEP) {
+                line.append(String.format(" %6.1f", curve[turn]));
+            }
+            System.out.println(line);
+        }
+        System.out.printf("Scans: games %.1f ms, moves %.1f ms (%.0fM turns/s), gold curves %.1f ms%n",
+                gameNanos / 1e6, moveNanos / 1e6, query.getTurns() / (moveNanos / 1e3), curveNanos / 1e6);
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getTurns() {
+        return turns;
+    }
+
+    /**
+     * @param name One of ColumnExport.MODES, OUTCOMES, ACTIONS_DICTIONARY, TERRAINS or ITEMS.
+     * @return The values behind that kind of column's codes.
+     */
+    public ColumnDictionary getDictionary(String name) {
+        if (name.equals(ColumnExport.MODES)) {
+            return modes;
+        } else if (name.equals(ColumnExport.OUTCOMES)) {
+            return outcomes;
+        } else if (name.equals(ColumnExport.ACTIONS_DICTIONARY)) {
+            return actions;
+        } else if (name.equals(ColumnExport.TERRAINS)) {
+            return terrains;
+        } else if (name.equals(ColumnExport.ITEMS)) {
+            return items;
+        }
+        throw new IllegalArgumentException("Unknown dictionary: " + name);
+    }
+
+    /**
+     * Counts how every game ended, by the mode it was played on.
+     *
+     * @return The number of games for each mode code and outcome code.
+     */
+    public long[][] outcomesByMode() {
+        int outcomeCount = outcomes.size();
+        long[] counts = IntStream.range(0, MappedColumn.chunkCount(games)).parallel().mapToObj(c -> {
+            long[] chunkCounts = new long[modes.size() * outcomeCount];
+            ByteBuffer mode = gameColumns[ColumnExport.GAME_MODE].getChunk(c);
+            ByteBuffer outcome = gameColumns[ColumnExport.GAME_OUTCOME].getChunk(c);
+            int rows = rowsIn(c, games);
+            for (int i = 0; i < rows; i++) {
+                chunkCounts[(mode.get(i) & 0xff) * outcomeCount + (outcome.get(i) & 0xff)]++;
+            }
+            return chunkCounts;
+        }).reduce(ColumnQuery::add).orElse(new long[modes.size() * outcomeCount]);
+        long[][] byMode = new long[modes.size()][outcomeCount];
+        for (int mode = 0; mode < byMode.length; mode++) {
+            System.arraycopy(counts, mode * outcomeCount, byMode[mode], 0, outcomeCount);
+        }
+        return byMode;
+    }
+
+    /**
+     * Counts the turns a hunter tried to leave town, and the ones they were stranded because
+     * they lacked the item for the terrain (see Town.leaveTown()).
+     *
+     * @return For each terrain code, the moves tried and then the moves that stranded the hunter.
+     */
+    public long[][] movesByTerrain() {
+        int move = actions.find("m");
+        int terrainCount = terrains.size();
+        long[] counts = IntStream.range(0, MappedColumn.chunkCount(turns)).parallel().mapToObj(c -> {
+            long[] chunkCounts = new long[terrainCount * 2];
+            ByteBuffer action = turnColumns[ColumnExport.TURN_ACTION].getChunk(c);
+            ByteBuffer terrain = turnColumns[ColumnExport.TURN_TERRAIN].getChunk(c);
+            ByteBuffer flags = turnColumns[ColumnExport.TURN_FLAGS].getChunk(c);
+            int rows = rowsIn(c, turns);
+            for (int i = 0; i < rows; i++) {
+                if ((action.get(i) & 0xff) == move) {
+                    int code = terrainWidth == 1 ? terrain.get(i) & 0xff : terrain.getShort(i * Short.BYTES) & 0xffff;
+                    int at = code * 2;
+                    chunkCounts[at]++;
+                    if ((flags.get(i) & ColumnExport.STRANDED) != 0) {
+                        chunkCounts[at + 1]++;
+                    }
+                }
+            }
+            return chunkCounts;
+        }).reduce(ColumnQuery::add).orElse(new long[terrainCount * 2]);
+        long[][] byTerrain = new long[terrainCount][2];
+        for (int terrain = 0; terrain < terrainCount; terrain++) {
+            byTerrain[terrain][0] = counts[terrain * 2];
+            byTerrain[terrain][1] = counts[terrain * 2 + 1];
+        }
+        return byTerrain;
+    }
+
+    /**
+     * Works out how much gold the hunters of one mode have as their games go on. Only games
+     * that are still going count towards a turn, so the curve shows the survivors.
+     *
+     * @param mode The mode.
+     * @param maxTurn The last turn to go up to.
+     * @return The mean gold after each turn, with the starting gold at 0; NaN where no game got that far.
+     */
+    public double[] goldCurve(Mode mode, int maxTurn) {
+        int code = modes.find(mode.name());
+        int size = maxTurn + 1;
+        // gold totals then game counts, by turn
+        long[] totals = new long[size * 2];
+        if (code >= 0) {
+            long[] starts = IntStream.range(0, MappedColumn.chunkCount(games)).parallel().mapToObj(c -> {
+                long[] chunkTotals = new long[2];
+                ByteBuffer gameMode = gameColumns[ColumnExport.GAME_MODE].getChunk(c);
+                ByteBuffer gold = gameColumns[ColumnExport.GAME_START_GOLD].getChunk(c);
+                int rows = rowsIn(c, games);
+                for (int i = 0; i < rows; i++) {
+                    if ((gameMode.get(i) & 0xff) == code) {
+                        chunkTotals[0] += gold.getInt(i * Integer.BYTES);
+                        chunkTotals[1]++;
+                    }
+                }
+                return chunkTotals;
+            }).reduce(ColumnQuery::add).orElse(new long[2]);
+            totals[0] = starts[0];
+            totals[size] = starts[1];
+
+            MappedColumn gameModes = gameColumns[ColumnExport.GAME_MODE];
+            MappedColumn firstTurns = gameColumns[ColumnExport.GAME_FIRST_TURN];
+            long[] byTurn = IntStream.range(0, MappedColumn.chunkCount(turns)).parallel().mapToObj(c -> {
+                long[] chunkTotals = new long[size * 2];
+                ByteBuffer game = turnColumns[ColumnExport.TURN_GAME].getChunk(c);
+                ByteBuffer gold = turnColumns[ColumnExport.TURN_GOLD].getChunk(c);
+                long firstRow = (long) c << MappedColumn.CHUNK_SHIFT;
+                int rows = rowsIn(c, turns);
+                long currentGame = -1;
+                boolean counted = false;
+                long firstTurn = 0;
+                for (int i = 0; i < rows; i++) {
+                    long g = Integer.toUnsignedLong(game.getInt(i * Integer.BYTES));
+                    if (g != currentGame) {
+                        currentGame = g;
+                        counted = (gameModes.getByte(g) & 0xff) == code;
+                        firstTurn = firstTurns.getLong(g);
+                    }
+                    if (counted) {
+                        long turn = firstRow + i - firstTurn + 1;
+                        if (turn <= maxTurn) {
+                            chunkTotals[(int) turn] += gold.getInt(i * Integer.BYTES);
+                            chunkTotals[size + (int) turn]++;
+                        }
+                    }
+                }
+                return chunkTotals;
+            }).reduce(ColumnQuery::add).orElse(new long[size * 2]);
+            for (int turn = 1; turn < size; turn++) {
+                totals[turn] = byTurn[turn];
+                totals[size + turn] = byTurn[size + turn];
+            }
+        }
+        double[] curve = new double[size];
+        for (int turn = 0; turn < size; turn++) {
+            curve[turn] = totals[size + turn] == 0 ? Double.NaN : (double) totals[turn] / totals[size + turn];
+        }
+        return curve;
+    }
+
+    private long endOfGame(long game) {
+        return gameColumns[ColumnExport.GAME_FIRST_TURN].getLong(game) + gameColumns[ColumnExport.GAME_TURNS].getInt(game);
+    }
+
+    /**
+     * @return How many of a chunk's rows are below the limit.
+     */
+    private static int rowsIn(int chunk, long rows) {
+        return (int) Math.min(MappedColumn.CHUNK_ROWS, rows - ((long) chunk << MappedColumn.CHUNK_SHIFT));
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    private static MappedColumn[] mapColumns(Path folder, String[] names, int[] widths) throws IOException {
+        MappedColumn[] columns = new MappedColumn[names.length];
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = new MappedColumn(folder.resolve(names[i] + ColumnExport.COLUMN_SUFFIX), widths[i]);
+        }
+        return columns;
+    }
+}
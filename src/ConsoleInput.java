@@ -0,0 +1,21 @@
+import java.util.Scanner;
+
+/**
+ * Reads the player's input from the keyboard (System.in).
+ */
+
+public class ConsoleInput implements InputSource {
+    // static variables
+    private static final Scanner SCANNER = new Scanner(System.in);
+
+    public String nextLine() {
+        if (!SCANNER.hasNextLine()) {
+            return null;
+        }
+        return SCANNER.nextLine();
+    }
+
+    public void waitForEnter() {
+        nextLine();
+    }
+}
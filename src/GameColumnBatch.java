@@ -0,0 +1,265 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A batch of finished games, kept as one primitive array per column until a ColumnExport
+ * appends it to its files.<p>
+ * Each thread of an export fills its own batch, so recording a turn is a few array stores with
+ * no locking; only appending the whole batch takes the export's lock. Games and turns are
+ * numbered from 0 within the batch, so turnGames and firstTurns fit in ints; they are renumbered
+ * to the file widths when the batch is appended, turn.game as an unsigned 32-bit game number and
+ * game.first_turn as a long. Terrain codes are kept as shorts and written in one byte or two,
+ * whichever the export's terrain column takes.
+ */
+
+public class GameColumnBatch {
+    // constants
+    private static final int START_GAMES = 256;
+    private static final int START_TURNS = 4096;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    // instance variables
+    private ColumnExport export;
+    private int games;
+    private byte[] modes;
+    private byte[] outcomes;
+    private long[] seeds;
+    private int[] startGold;
+    private int[] finalGold;
+    private int[] gameTurns;
+    private byte[] treasures;
+    private int[] firstTurns;
+    private int turns;
+    private int[] turnGames;
+    private byte[] actions;
+    private short[] terrains;
+    private byte[] items;
+    private int[] turnGold;
+    private byte[] flags;
+    private ByteBuffer writeBuffer;
+
+    /**
+     * @param export The export the batch will be appended to, which hands out the dictionary codes.
+     */
+    public GameColumnBatch(ColumnExport export) {
+        this.export = export;
+        modes = new byte[START_GAMES];
+        outcomes = new byte[START_GAMES];
+        seeds = new long[START_GAMES];
+        startGold = new int[START_GAMES];
+        finalGold = new int[START_GAMES];
+        gameTurns = new int[START_GAMES];
+        treasures = new byte[START_GAMES];
+        firstTurns = new int[START_GAMES];
+        turnGames = new int[START_TURNS];
+        actions = new byte[START_TURNS];
+        terrains = new short[START_TURNS];
+        items = new byte[START_TURNS];
+        turnGold = new int[START_TURNS];
+        flags = new byte[START_TURNS];
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Empties the batch so it can be filled again.
+     */
+    public void clear() {
+        games = 0;
+        turns = 0;
+    }
+
+    /**
+     * Starts recording a game; its turns follow with addTurn() and it is closed with endGame().
+     *
+     * @param mode The difficulty the game is played on.
+     * @param seed The game's seed.
+     * @param hunter The hunter, before their first turn.
+     */
+    public void startGame(Mode mode, long seed, Hunter hunter) {
+        if (games == modes.length) {
+            int size = games * 2;
+            modes = Arrays.copyOf(modes, size);
+            outcomes = Arrays.copyOf(outcomes, size);
+            seeds = Arrays.copyOf(seeds, size);
+            startGold = Arrays.copyOf(startGold, size);
+            finalGold = Arrays.copyOf(finalGold, size);
+            gameTurns = Arrays.copyOf(gameTurns, size);
+            treasures = Arrays.copyOf(treasures, size);
+            firstTurns = Arrays.copyOf(firstTurns, size);
+        }
+        modes[games] = (byte) export.modeCode(mode);
+        seeds[games] = seed;
+        startGold[games] = hunter.getGold();
+        firstTurns[games] = turns;
+        games++;
+    }
+
+    /**
+     * Records a turn of the game being recorded.
+     *
+     * @param choice The menu choice.
+     * @param before The town the turn was played in.
+     * @param kitBefore The hunter's kit before the turn (see kitBits()).
+     * @param treasuresBefore How many treasures the hunter had before the turn.
+     * @param hunter The hunter, after the turn.
+     * @param after The town the hunter is in after the turn.
+     */
+    public void addTurn(String choice, Town before, long kitBefore, int treasuresBefore, Hunter hunter, Town after) {
+        if (turns == actions.length) {
+            int size = turns * 2;
+            turnGames = Arrays.copyOf(turnGames, size);
+            actions = Arrays.copyOf(actions, size);
+            terrains = Arrays.copyOf(terrains, size);
+            items = Arrays.copyOf(items, size);
+            turnGold = Arrays.copyOf(turnGold, size);
+            flags = Arrays.copyOf(flags, size);
+        }
+        int action = choice.length() == 1 ? ColumnExport.ACTIONS.indexOf(choice.charAt(0)) : -1;
+        int turnFlags = 0;
+        if (action == -1) {
+            action = ColumnExport.ACTIONS.length();
+        } else if (choice.equals("m")) {
+            turnFlags |= after == before ? ColumnExport.STRANDED : ColumnExport.LEFT_TOWN;
+        }
+
+        long kitAfter = kitBits(hunter);
+        long gained = kitAfter & ~kitBefore;
+        long lost = kitBefore & ~kitAfter;
+        int item = -1;
+        if (gained != 0) {
+            turnFlags |= ColumnExport.ITEM_GAINED;
+            item = export.itemCode(Long.numberOfTrailingZeros(gained));
+        } else if (lost != 0) {
+            turnFlags |= ColumnExport.ITEM_LOST;
+            item = export.itemCode(Long.numberOfTrailingZeros(lost));
+        }
+        if (hunter.getCollectedTreasure().size() > treasuresBefore) {
+            turnFlags |= ColumnExport.TREASURE_FOUND;
+        }
+
+        turnGames[turns] = games - 1;
+        actions[turns] = (byte) action;
+        terrains[turns] = (short) export.terrainCode(before.getTerrain());
+        items[turns] = (byte) item;
+        turnGold[turns] = hunter.getGold();
+        flags[turns] = (byte) turnFlags;
+        turns++;
+    }
+
+    /**
+     * Finishes the game being recorded.
+     *
+     * @param outcome How it ended.
+     * @param hunter The hunter at the end.
+     */
+    public void endGame(GameOutcome outcome, Hunter hunter) {
+        int game = games - 1;
+        outcomes[game] = (byte) outcome.ordinal();
+        finalGold[game] = hunter.getGold();
+        gameTurns[game] = turns - firstTurns[game];
+        treasures[game] = (byte) hunter.getCollectedTreasure().size();
+    }
+
+    /**
+     * @param hunter A hunter.
+     * @return The items in their kit as one bit per ItemCatalog id (ids over 62 are left out).
+     */
+    public static long kitBits(Hunter hunter) {
+        ItemSet kit = hunter.getKit();
+        long bits = 0;
+        for (int id = kit.nextItem(0); id != -1 && id < 63; id = kit.nextItem(id + 1)) {
+            bits |= 1L << id;
+        }
+        return bits;
+    }
+
+    /**
+     * Adds the batch to the end of an export's column files, in the order of
+     * ColumnExport.GAME_COLUMNS and ColumnExport.TURN_COLUMNS.
+     *
+     * @param gameFiles The game columns.
+     * @param turnFiles The turn columns.
+     * @param firstGame The number the batch's first game gets in the files.
+     * @param firstTurn The number the batch's first turn gets in the files.
+     * @throws IOException if a file can't be written.
+     */
+    public void writeTo(FileChannel[] gameFiles, FileChannel[] turnFiles, long firstGame, long firstTurn)
+            throws IOException {
+        if (writeBuffer == null) {
+            writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ColumnExport.ORDER);
+        }
+        int terrainWidth = export.getTerrainWidth();
+        // the turns go first, so a game row is only ever written after all of its turns
+        for (int column = 0; column < turnFiles.length; column++) {
+            FileChannel file = turnFiles[column];
+            writeBuffer.clear();
+            for (int i = 0; i < turns; i++) {
+                if (writeBuffer.remaining() < Long.BYTES) {
+                    drain(file);
+                }
+                if (column == ColumnExport.TURN_GAME) {
+                    writeBuffer.putInt((int) (firstGame + turnGames[i]));
+                } else if (column == ColumnExport.TURN_ACTION) {
+                    writeBuffer.put(actions[i]);
+                } else if (column == ColumnExport.TURN_TERRAIN) {
+                    if (terrainWidth == 1) {
+                        writeBuffer.put((byte) terrains[i]);
+                    } else {
+                        writeBuffer.putShort(terrains[i]);
+                    }
+                } else if (column == ColumnExport.TURN_ITEM) {
+                    writeBuffer.put(items[i]);
+                } else if (column == ColumnExport.TURN_GOLD) {
+                    writeBuffer.putInt(turnGold[i]);
+                } else {
+                    writeBuffer.put(flags[i]);
+                }
+            }
+            drain(file);
+        }
+        for (int column = 0; column < gameFiles.length; column++) {
+            FileChannel file = gameFiles[column];
+            writeBuffer.clear();
+            for (int i = 0; i < games; i++) {
+                if (writeBuffer.remaining() < Long.BYTES) {
+                    drain(file);
+                }
+                if (column == ColumnExport.GAME_MODE) {
+                    writeBuffer.put(modes[i]);
+                } else if (column == ColumnExport.GAME_OUTCOME) {
+                    writeBuffer.put(outcomes[i]);
+                } else if (column == ColumnExport.GAME_SEED) {
+                    writeBuffer.putLong(seeds[i]);
+                } else if (column == ColumnExport.GAME_START_GOLD) {
+                    writeBuffer.putInt(startGold[i]);
+                } else if (column == ColumnExport.GAME_GOLD) {
+                    writeBuffer.putInt(finalGold[i]);
+                } else if (column == ColumnExport.GAME_TURNS) {
+                    writeBuffer.putInt(gameTurns[i]);
+                } else if (column == ColumnExport.GAME_TREASURES) {
+                    writeBuffer.put(treasures[i]);
+                } else {
+                    writeBuffer.putLong(firstTurn + firstTurns[i]);
+                }
+            }
+            drain(file);
+        }
+    }
+
+    private void drain(FileChannel file) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            file.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * The things GameMetrics keeps count of.<p>
+ * Each counter is one slot in GameMetrics' array of LongAdders, found by its ordinal.
+ */
+
+public enum GameCounter {
+    ACTIONS,
+    BRAWLS_WON,
+    BRAWLS_LOST,
+    GOLD_GAINED,
+    GOLD_LOST,
+    ITEMS_BROKEN,
+    ITEMS_BOUGHT,
+    ITEMS_SOLD,
+    GAMES_WON,
+    GAMES_LOST
+}
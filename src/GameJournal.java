@@ -0,0 +1,186 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A record of everything needed to play a game again exactly: its seed, the world seed if it was
+ * played on a World, and every line of input it read, in order (menu choices, shop answers and
+ * "Press Enter" pauses).<p>
+ * The file is plain text and is only ever added to: a header with the format version and the
+ * seed, then the world seed if there is one, then one line per input starting with "&gt;" so that
+ * empty inputs are kept too. The version changes whenever the same seed and inputs would play out
+ * differently, and a journal of another version is refused rather than replayed wrongly.
+ */
+
+public class GameJournal implements AutoCloseable {
+    // constants
+    // 2: terrains are picked with TerrainCatalog's alias table, which rolls differently
+    public static final int VERSION = 2;
+    private static final String HEADER_PREFIX = "# Treasure Hunter journal v";
+    private static final String SEED_PREFIX = "seed=";
+    private static final String WORLD_PREFIX = "world=";
+    private static final String INPUT_PREFIX = ">";
+
+    // instance variables
+    private long seed;
+    private boolean hasWorld;
+    private long worldSeed;
+    private ArrayList<String> inputs;
+    private FileChannel file;
+    private Path path;
+
+    /**
+     * Starts a journal that is only kept in memory.
+     *
+     * @param seed The seed of the game being recorded.
+     */
+    public GameJournal(long seed) {
+        this.seed = seed;
+        inputs = new ArrayList<String>();
+        file = null;
+    }
+
+    /**
+     * Starts a journal that is also written to a file as the game goes.
+     *
+     * @param seed The seed of the game being recorded.
+     * @param path The file to write; it is replaced if it already exists.
+     * @throws IOException if the file can't be created.
+     */
+    public GameJournal(long seed, Path path) throws IOException {
+        this(seed);
+        this.path = path;
+        file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        write(HEADER_PREFIX + VERSION + "\n" + SEED_PREFIX + seed + "\n");
+    }
+
+    /**
+     * Reads a journal that was written to a file.
+     *
+     * @param path The journal file.
+     * @return The journal, kept in memory only.
+     * @throws IOException if the file can't be read, isn't a journal or is another version's.
+     */
+    public static GameJournal load(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).startsWith(HEADER_PREFIX)) {
+            throw new IOException(path + " is not a Treasure Hunter journal");
+        }
+        String version = lines.get(0).substring(HEADER_PREFIX.length());
+        if (!version.equals(String.valueOf(VERSION))) {
+            throw new IOException(path + " is journal version " + version + ", expected " + VERSION
+                    + "; its game would not play the same way");
+        }
+        GameJournal journal = null;
+        for (String line : lines) {
+            if (line.startsWith(SEED_PREFIX)) {
+                journal = new GameJournal(Long.parseLong(line.substring(SEED_PREFIX.length())));
+            } else if (line.startsWith(WORLD_PREFIX)) {
+                if (journal == null || !journal.inputs.isEmpty()) {
+                    throw new IOException(path + " has its world seed out of place");
+                }
+                journal.hasWorld = true;
+                journal.worldSeed = Long.parseLong(line.substring(WORLD_PREFIX.length()));
+            } else if (line.startsWith(INPUT_PREFIX)) {
+                if (journal == null) {
+                    throw new IOException(path + " has input before its seed");
+                }
+                journal.inputs.add(line.substring(INPUT_PREFIX.length()));
+            }
+        }
+        if (journal == null) {
+            throw new IOException(path + " is not a Treasure Hunter journal");
+        }
+        return journal;
+    }
+
+    /**
+     * Records that the game is played on a World, before any input is recorded.
+     *
+     * @param worldSeed The seed passed to TreasureHunter.useWorld().
+     * @throws IOException if the file can't be written.
+     */
+    public void recordWorld(long worldSeed) throws IOException {
+        if (!inputs.isEmpty()) {
+            throw new IllegalStateException("The world has to be recorded before the first input");
+        }
+        hasWorld = true;
+        this.worldSeed = worldSeed;
+        if (file != null) {
+            write(WORLD_PREFIX + worldSeed + "\n");
+        }
+    }
+
+    /**
+     * Sets up a game to be played again from this journal: its world, if it had one.
+     *
+     * @param game A game made with this journal's seed and inputs, before it is played.
+     */
+    public void prepare(TreasureHunter game) {
+        if (hasWorld) {
+            game.useWorld(worldSeed);
+        }
+    }
+
+    /**
+     * Adds a line of input to the end of the journal. If the file can't be written, that is
+     * reported on System.err and the file is left as it was; the game carries on regardless.
+     *
+     * @param line The line the game read.
+     */
+    public void record(String line) {
+        inputs.add(line);
+        if (file != null) {
+            try {
+                write(INPUT_PREFIX + line + "\n");
+            } catch (IOException e) {
+                // keep playing, since the in-memory journal still has the line, but the file
+                // now ends early and a replay of it would stop short of the real game
+                System.err.println("The journal " + path + " couldn't be written and stops after "
+                        + (inputs.size() - 1) + " inputs: " + e);
+                try {
+                    file.close();
+                } catch (IOException closeFailure) {
+                    // already reported
+                }
+                file = null;
+            }
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean hasWorld() {
+        return hasWorld;
+    }
+
+    public long getWorldSeed() {
+        return worldSeed;
+    }
+
+    public List<String> getInputs() {
+        return inputs;
+    }
+
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    private void write(String text) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            file.write(bytes);
+        }
+    }
+}
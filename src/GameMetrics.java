@@ -0,0 +1,233 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts what players do and how long turns take, for every game running in this program.<p>
+ * Turn it on with -Dtreasurehunter.metrics=true; add -Dtreasurehunter.metrics.dump=seconds to
+ * also print a snapshot that often. When it is off, ENABLED is a false constant and the JIT
+ * removes the calls to this class altogether.<p>
+ * The counters are LongAdders, which spread the adds over several cells so that sessions on
+ * different threads don't fight over one value. A turn's latency goes into a histogram with
+ * one bucket per power of two nanoseconds, and nothing is allocated. Reading the clock costs
+ * more than the rest put together (around 50ns on some virtual machines), so only one turn in
+ * TIMED_TURNS is timed; the latency histograms are a sample, but every action is counted.
+ */
+
+public class GameMetrics implements GameMetricsMBean {
+    // constants
+    public static final boolean ENABLED = Boolean.getBoolean("treasurehunter.metrics");
+    private static final String ACTIONS = "bsmlhdx";
+    private static final int OTHER_ACTION = ACTIONS.length();
+    private static final int BUCKETS = 64;
+    private static final int TIMED_TURNS = 8;
+    private static final String OBJECT_NAME = "TreasureHunter:type=GameMetrics";
+
+    // static variables
+    private static final LongAdder[] counters = newAdders(GameCounter.values().length);
+    private static final LongAdder[][] latencies = new LongAdder[OTHER_ACTION + 1][];
+    private static ScheduledExecutorService dumper;
+
+    static {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = newAdders(BUCKETS);
+        }
+    }
+
+    /**
+     * Registers the JMX bean and, if a dump interval was given, starts printing snapshots to
+     * standard error. Does nothing when metrics are turned off.
+     */
+    public static synchronized void start() {
+        if (!ENABLED || dumper != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new GameMetrics(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Couldn't register the game metrics: " + e);
+        }
+        long seconds = Long.getLong("treasurehunter.metrics.dump", 0);
+        if (seconds > 0) {
+            startDumping(seconds, System.err);
+        }
+    }
+
+    /**
+     * Prints a snapshot every so often on a background thread, until the program ends.
+     *
+     * @param seconds How long to wait between snapshots.
+     * @param out Where to print them.
+     */
+    public static synchronized void startDumping(long seconds, PrintStream out) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "game-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        GameMetrics metrics = new GameMetrics();
+        dumper.scheduleAtFixedRate(() -> out.println(metrics.snapshot()), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Adds one to a counter.
+     *
+     * @param counter The counter to add to.
+     */
+    public static void count(GameCounter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    /**
+     * Adds an amount to a counter.
+     *
+     * @param counter The counter to add to.
+     * @param amount How much to add.
+     */
+    public static void count(GameCounter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * @param turn The game's turn number.
+     * @return true if this turn should be timed with recordLatency().
+     */
+    public static boolean isTimed(int turn) {
+        return turn % TIMED_TURNS == 0;
+    }
+
+    /**
+     * Records how long a processed menu choice took.
+     *
+     * @param choice The menu choice, in lower case.
+     * @param startNanos System.nanoTime() from just before the choice was processed.
+     */
+    public static void recordLatency(String choice, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        int action = choice.length() == 1 ? ACTIONS.indexOf(choice.charAt(0)) : -1;
+        if (action < 0) {
+            action = OTHER_ACTION;
+        }
+        latencies[action][BUCKETS - Long.numberOfLeadingZeros(Math.max(1, nanos))].increment();
+    }
+
+    /**
+     * @param counter The counter to read.
+     * @return Its total so far.
+     */
+    public static long get(GameCounter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Finds a latency below which a fraction of the recorded turns fell.
+     *
+     * @param action The action's index in ACTIONS, or OTHER_ACTION; -1 means all actions.
+     * @param fraction How many of the turns should be at or below the answer, from 0 to 1.
+     * @return The latency in nanoseconds, rounded up to a power of two, or 0 if nothing was recorded.
+     */
+    private static long latencyPercentile(int action, double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int a = 0; a < latencies.length; a++) {
+            if (action == -1 || action == a) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    long count = latencies[a][b].sum();
+                    counts[b] += count;
+                    total += count;
+                }
+            }
+        }
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (total > 0 && seen >= fraction * total) {
+                // bucket b holds latencies from 2^(b-1) up to 2^b - 1
+                return b == 0 ? 0 : 1L << Math.min(62, b);
+            }
+        }
+        return 0;
+    }
+
+    public long getActions() {
+        return get(GameCounter.ACTIONS);
+    }
+
+    public long getBrawlsWon() {
+        return get(GameCounter.BRAWLS_WON);
+    }
+
+    public long getBrawlsLost() {
+        return get(GameCounter.BRAWLS_LOST);
+    }
+
+    public long getGoldGained() {
+        return get(GameCounter.GOLD_GAINED);
+    }
+
+    public long getGoldLost() {
+        return get(GameCounter.GOLD_LOST);
+    }
+
+    public long getItemsBroken() {
+        return get(GameCounter.ITEMS_BROKEN);
+    }
+
+    public long getItemsBought() {
+        return get(GameCounter.ITEMS_BOUGHT);
+    }
+
+    public long getItemsSold() {
+        return get(GameCounter.ITEMS_SOLD);
+    }
+
+    public long getGamesWon() {
+        return get(GameCounter.GAMES_WON);
+    }
+
+    public long getGamesLost() {
+        return get(GameCounter.GAMES_LOST);
+    }
+
+    public long getTurnLatencyMedian() {
+        return latencyPercentile(-1, 0.5);
+    }
+
+    public long getTurnLatency99th() {
+        return latencyPercentile(-1, 0.99);
+    }
+
+    public String snapshot() {
+        StringBuilder str = new StringBuilder("metrics");
+        for (GameCounter counter : GameCounter.values()) {
+            str.append(' ').append(counter.name().toLowerCase()).append('=').append(get(counter));
+        }
+        for (int action = 0; action <= OTHER_ACTION; action++) {
+            String name = action < OTHER_ACTION ? ACTIONS.substring(action, action + 1) : "other";
+            str.append(' ').append(name).append("_p50=").append(latencyPercentile(action, 0.5))
+                    .append(' ').append(name).append("_p99=").append(latencyPercentile(action, 0.99));
+        }
+        return str.toString();
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * What GameMetrics shows through JMX (for example in JConsole, under TreasureHunter:type=GameMetrics).<p>
+ * Latencies are in nanoseconds and are rounded up to the next power of two.
+ */
+
+public interface GameMetricsMBean {
+    long getActions();
+
+    long getBrawlsWon();
+
+    long getBrawlsLost();
+
+    long getGoldGained();
+
+    long getGoldLost();
+
+    long getItemsBroken();
+
+    long getItemsBought();
+
+    long getItemsSold();
+
+    long getGamesWon();
+
+    long getGamesLost();
+
+    long getTurnLatencyMedian();
+
+    long getTurnLatency99th();
+
+    /**
+     * @return Every counter and each action's latencies on one line.
+     */
+    String snapshot();
+}
@@ -0,0 +1,10 @@
+/**
+ * How a simulated game ended.
+ */
+
+public enum GameOutcome {
+    WON,
+    LOST,
+    QUIT,
+    UNFINISHED
+}
@@ -0,0 +1,78 @@
+/**
+ * The random number generator used by the game.<p>
+ * Every game gets its own GameRandom made from a seed, so the same seed always plays out exactly
+ * the same way, and games running on different threads never share a generator.
+ * It uses the SplitMix64 algorithm (the same one behind java.util.SplittableRandom), but unlike
+ * SplittableRandom its state can be read back and restored.
+ */
+
+public class GameRandom {
+    // constants
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    // instance variables
+    private long state;
+
+    /**
+     * @param seed The seed; two generators with the same seed give the same numbers.
+     */
+    public GameRandom(long seed) {
+        state = seed;
+    }
+
+    /**
+     * Works out the seed for one game out of a numbered series of games.<p>
+     * The seed only depends on the series seed and the game number, so it does not matter
+     * which thread plays the game or in what order the games are played.
+     *
+     * @param seed The seed for the whole series.
+     * @param index The number of the game in the series.
+     * @return The seed for that game.
+     */
+    public static long seedFor(long seed, long index) {
+        return mix64(seed + index * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return A new generator whose numbers do not overlap with this one's.
+     */
+    public GameRandom split() {
+        return new GameRandom(mix64(nextLong()));
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * @return A random number from 0 (inclusive) to 1 (exclusive), like Math.random().
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @param bound How many different values there are; must be positive.
+     * @return A random number from 0 (inclusive) to bound (exclusive).
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    // accessors for saving and restoring a game
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Records a TreasureHunter game turn by turn into a GameColumnBatch, for a ColumnExport.<p>
+ * The recorder is the game's TurnListener and also its InputSource, passing the player's lines
+ * through from the real input. That way it knows when the input has run out: the game then
+ * gives up the hunt with an "x" nobody typed (see TreasureHunter.ask()), and that turn is
+ * left out and the game recorded as unfinished rather than quit.
+ */
+
+public class GameRecorder implements TurnListener, InputSource {
+    // instance variables
+    private GameColumnBatch batch;
+    private InputSource input;
+    private boolean started;
+    private boolean inputEnded;
+    private boolean recordingTurn;
+    private String lastChoice;
+    private Town townBefore;
+    private long kitBefore;
+    private int treasuresBefore;
+
+    /**
+     * @param batch Where the game is recorded.
+     * @param input Where the player's input really comes from.
+     */
+    public GameRecorder(GameColumnBatch batch, InputSource input) {
+        this.batch = batch;
+        this.input = input;
+        lastChoice = "";
+    }
+
+    public String nextLine() {
+        String line = input.nextLine();
+        if (line == null) {
+            inputEnded = true;
+        }
+        return line;
+    }
+
+    public void waitForEnter() {
+        input.waitForEnter();
+    }
+
+    public void turnStarting(TreasureHunter game, String choice) {
+        // a turn whose choice was read before the input ran out still counts
+        recordingTurn = !inputEnded;
+        if (!recordingTurn) {
+            return;
+        }
+        Hunter hunter = game.getHunter();
+        if (!started) {
+            batch.startGame(game.getMode(), game.getSeed(), hunter);
+            started = true;
+        }
+        townBefore = game.getCurrentTown();
+        kitBefore = GameColumnBatch.kitBits(hunter);
+        treasuresBefore = hunter.getCollectedTreasure().size();
+    }
+
+    public void turnPlayed(TreasureHunter game, String choice) {
+        if (!recordingTurn) {
+            return;
+        }
+        batch.addTurn(choice, townBefore, kitBefore, treasuresBefore, game.getHunter(), game.getCurrentTown());
+        lastChoice = choice;
+    }
+
+    /**
+     * Records how the game ended, once play() or resume() has returned.
+     *
+     * @param game The game.
+     */
+    public void finish(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        if (hunter == null) {
+            // the input ran out before the game even started
+            return;
+        }
+        if (!started) {
+            batch.startGame(game.getMode(), game.getSeed(), hunter);
+            started = true;
+        }
+        GameOutcome outcome;
+        if (hunter.getGold() < 0) {
+            outcome = GameOutcome.LOST;
+        } else if (hunter.treasureIsFull()) {
+            outcome = GameOutcome.WON;
+        } else if (lastChoice.equals("x")) {
+            outcome = GameOutcome.QUIT;
+        } else {
+            outcome = GameOutcome.UNFINISHED;
+        }
+        batch.endGame(outcome, hunter);
+    }
+}
@@ -0,0 +1,64 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Plays a recorded game again from its GameJournal, with all output switched off.<p>
+ * Usage: java GameReplay [journal file] [turn]<p>
+ * Since every roll comes from the journal's seed (and the map from its world seed, if the game was
+ * played on a World) and every answer from its inputs, the replay
+ * goes exactly the same way as the original game. It can stop at any turn so the Hunter and
+ * Town can be looked at as they were at that point.
+ */
+
+public class GameReplay {
+    // instance variables
+    private GameJournal journal;
+
+    /**
+     * @param journal The recorded game.
+     */
+    public GameReplay(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    public static void main(String[] args) throws IOException {
+        GameReplay replay = new GameReplay(GameJournal.load(Paths.get(args[0])));
+        int turn = Integer.MAX_VALUE;
+        if (args.length > 1) {
+            turn = Integer.parseInt(args[1]);
+        }
+
+        long start = System.nanoTime();
+        TreasureHunter game = replay.replayTo(turn);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        System.out.println("Replayed " + game.getTurn() + " turns in " + micros + " us");
+        System.out.println(game.getHunter());
+        System.out.println(game.getCurrentTown());
+        System.out.println("Tough town: " + game.getCurrentTown().isToughTown()
+                + ", searched: " + game.getCurrentTown().isTreasureFound());
+    }
+
+    /**
+     * Replays the whole game.
+     *
+     * @return The game as it was when the recording ended.
+     */
+    public TreasureHunter replay() {
+        return replayTo(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Replays the game up to a turn.
+     *
+     * @param turn The number of menu choices to play before stopping.
+     * @return The game as it was right after that turn.
+     */
+    public TreasureHunter replayTo(int turn) {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new ScriptInput(journal.getInputs()), journal.getSeed());
+        journal.prepare(game);
+        game.setTurnLimit(turn);
+        game.play();
+        return game;
+    }
+}
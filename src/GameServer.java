@@ -0,0 +1,185 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lets many people play Treasure Hunter at once over plain line-based TCP (telnet or nc work).<p>
+ * Usage: java GameServer [port] [checkpoint folder|-] [leaderboard file|-] [idle seconds]<p>
+ * Every connection gets its own GameSession with its own game, input and output. Sessions run on
+ * virtual threads when the JVM has them, so players waiting at a prompt cost very little;
+ * older JVMs fall back to one ordinary thread per player.<p>
+ * Given a checkpoint folder, every session's game is saved after each turn to an Autosave log
+ * in it, and dropped again when the session ends, so the log only ever holds the games still
+ * being played. The server never reads the log back; it is for getting the games out offline
+ * after a crash (see Autosave). A player who leaves the menu waiting
+ * for longer than the idle seconds (30 by default, 0 for never) has their game parked in a
+ * SessionStore until they type again.
+ */
+
+public class GameServer implements AutoCloseable {
+    // constants
+    private static final int DEFAULT_PORT = 4242;
+    private static final int BACKLOG = 1024;
+    // how long to wait before accepting again after it failed, so running out of file handles doesn't spin
+    private static final long ACCEPT_RETRY_MILLIS = 100;
+
+    // instance variables
+    private ServerSocketChannel serverChannel;
+    private ExecutorService sessions;
+    private Thread acceptThread;
+    private long seed;
+    private long connections;
+    private Autosave autosave;
+    private Leaderboard leaderboard;
+    private SessionStore store;
+
+    /**
+     * Opens the server on a port; port 0 picks any free port (see getPort()).
+     *
+     * @param port The port to listen on.
+     * @throws IOException if the port can't be opened.
+     */
+    public GameServer(int port) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), BACKLOG);
+        sessions = newSessionExecutor();
+        seed = System.nanoTime();
+        connections = 0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        if (args.length > 0) {
+            port = Integer.parseInt(args[0]);
+        }
+        GameServer server = new GameServer(port);
+        if (args.length > 1 && !args[1].equals("-")) {
+            Path folder = Paths.get(args[1]);
+            Files.createDirectories(folder);
+            server.setAutosave(new Autosave(folder.resolve(Autosave.LOG_FILE)));
+        }
+        if (args.length > 2 && !args[2].equals("-")) {
+            server.setLeaderboard(new Leaderboard(Paths.get(args[2])));
+        }
+        long idleMillis = SessionStore.DEFAULT_IDLE_MILLIS;
+        if (args.length > 3) {
+            idleMillis = Long.parseLong(args[3]) * 1000;
+        }
+        if (idleMillis > 0) {
+            server.setIdleTimeout(idleMillis);
+        }
+        GameMetrics.start();
+        System.out.println("Treasure Hunter server listening on port " + server.getPort());
+        server.start();
+    }
+
+    /**
+     * @param autosave Where each session saves its game after every turn, or null to not save games.
+     */
+    public void setAutosave(Autosave autosave) {
+        this.autosave = autosave;
+    }
+
+    /**
+     * @param leaderboard Where each session adds its finished run, or null to not keep runs.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     * Parks the games of players who go idle in a SessionStore. Must be called before start().
+     *
+     * @param idleMillis How long a player can leave the menu waiting before their game is parked.
+     * @throws IOException if the store's selector can't be opened.
+     */
+    public void setIdleTimeout(long idleMillis) throws IOException {
+        store = new SessionStore(idleMillis, (channel, parkedGame) -> sessions.execute(
+                new GameSession(channel, 0, parkedGame, store, autosave, leaderboard)));
+    }
+
+    public SessionStore getSessionStore() {
+        return store;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Starts accepting players on a background thread.
+     */
+    public void start() {
+        acceptThread = new Thread(() -> acceptPlayers(), "game-server-accept");
+        acceptThread.start();
+    }
+
+    private void acceptPlayers() {
+        while (serverChannel.isOpen()) {
+            SocketChannel channel = null;
+            try {
+                channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                sessions.execute(new GameSession(channel, GameRandom.seedFor(seed, connections), ParkedGames.NO_GAME,
+                        store, autosave, leaderboard));
+                connections++;
+            } catch (IOException e) {
+                if (!serverChannel.isOpen()) {
+                    // closed by close()
+                    return;
+                }
+                System.err.println("Accepting a player failed: " + e);
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException closeFailure) {
+                        // already gone
+                    }
+                }
+                // a failure like "too many open files" lasts a while, so give it time to clear
+                try {
+                    Thread.sleep(ACCEPT_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting players and ends every session.
+     */
+    public void close() throws IOException {
+        serverChannel.close();
+        sessions.shutdownNow();
+        if (store != null) {
+            store.close();
+        }
+        if (autosave != null) {
+            autosave.close();
+        }
+        if (leaderboard != null) {
+            leaderboard.close();
+        }
+    }
+
+    /**
+     * Uses Executors.newVirtualThreadPerTaskExecutor() when this JVM supports virtual threads.
+     * It is looked up by name so the game still compiles and runs on older JDKs.
+     */
+    private static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
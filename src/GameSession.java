@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One player connected to the GameServer.<p>
+ * The session runs its own TreasureHunter game, reading the player's lines from the connection
+ * and sending the game's text back with ANSI colors, and closes the connection when the game ends.
+ * If the server was given an Autosave, the game is queued to it after every turn and dropped from
+ * it when the session ends without parking the game, and if it was given a Leaderboard, the
+ * finished run is added to it. If the server has a SessionStore and
+ * the player goes idle at the menu, the game is parked there instead and the session ends with
+ * the connection left open; a new session resumes the game when the player is back.
+ */
+
+public class GameSession implements Runnable {
+    // constants
+    private static final int OUTPUT_BUFFER_SIZE = 1024;
+
+    // instance variables
+    private SocketChannel channel;
+    private long seed;
+    private int parkedGame;
+    private SessionStore store;
+    private Autosave autosave;
+    private Leaderboard leaderboard;
+    private AutosaveListener saver;
+
+    /**
+     * @param channel The player's connection, in blocking mode.
+     * @param seed The seed for the player's game, if it is a new one.
+     * @param parkedGame The handle of the player's parked game in the store, or ParkedGames.NO_GAME to start a new game.
+     * @param store Where to park the game if the player goes idle, or null to always wait for them.
+     * @param autosave Where to save the game after every turn, or null to not save it.
+     * @param leaderboard Where to add the finished run, or null to not keep it.
+     */
+    public GameSession(SocketChannel channel, long seed, int parkedGame, SessionStore store, Autosave autosave,
+                       Leaderboard leaderboard) {
+        this.channel = channel;
+        this.seed = seed;
+        this.parkedGame = parkedGame;
+        this.store = store;
+        this.autosave = autosave;
+        this.leaderboard = leaderboard;
+    }
+
+    public void run() {
+        boolean parked = false;
+        try {
+            InputSource input = new StreamInput(channel.socket());
+            OutputSink output = new TerminalOutput(channel, OUTPUT_BUFFER_SIZE);
+            TreasureHunter game = new TreasureHunter(output, input, seed);
+            if (store != null) {
+                game.setIdleTimeout(store.getIdleMillis());
+            }
+            if (parkedGame == ParkedGames.NO_GAME) {
+                addAutosave(game, seed);
+                game.play();
+            } else {
+                store.getGames().restore(parkedGame, game);
+                parkedGame = ParkedGames.NO_GAME;
+                addAutosave(game, game.getSeed());
+                game.resume();
+            }
+            if (game.isIdle()) {
+                store.park(channel, game);
+                parked = true;
+                return;
+            }
+            if (leaderboard != null && game.getHunter() != null) {
+                leaderboard.add(LeaderboardEntry.of(game));
+            }
+        } catch (UncheckedIOException e) {
+            // the game's output couldn't be sent: the player hung up and there is nobody left to tell
+        } catch (IOException e) {
+            System.err.println("Session " + Long.toHexString(seed) + " failed: " + e);
+        } catch (RuntimeException e) {
+            // a bug, not the player leaving; the server carries on without this session
+            System.err.println("Session " + Long.toHexString(seed) + " crashed:");
+            e.printStackTrace();
+        } finally {
+            if (parkedGame != ParkedGames.NO_GAME) {
+                // the connection failed before the parked game could be picked up again
+                store.getGames().discard(parkedGame);
+            }
+            if (!parked && saver != null) {
+                try {
+                    saver.finish();
+                } catch (UncheckedIOException e) {
+                    // the autosave has failed and reports it itself when the server closes it
+                }
+            }
+            if (!parked) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // already gone
+                }
+            }
+        }
+    }
+
+    private void addAutosave(TreasureHunter game, long session) {
+        if (autosave != null) {
+            saver = new AutosaveListener(autosave, session);
+            game.addTurnListener(saver);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Saves a TreasureHunter game to a small binary snapshot and loads it back.<p>
+ * A snapshot holds the mode (by name, so reordering Mode doesn't change old snapshots), the seed
+ * and random number state, the turn count, the Hunter (gold, kit, treasures, samurai flag) and
+ * the current Town (terrain, toughness, whether it is tough, its treasure and whether it has been
+ * searched). It is a header (magic number, version, body length) followed by the body, written
+ * and read through NIO channels with one reused buffer, so saving a game after every turn costs a
+ * few microseconds. The buffer grows if a snapshot (say, one with a long
+ * hunter name) doesn't fit. The version changes whenever a field is added or its meaning does.
+ */
+
+public class GameSnapshot {
+    // constants
+    public static final int MAGIC = 0x54485356; // "THSV"
+    // 2: the mode is stored by name
+    // 3: the turn count is stored
+    public static final short VERSION = 3;
+    private static final int HEADER_SIZE = 4 + 2 + 4;
+    private static final int BUFFER_SIZE = 1024;
+    // anything bigger is a damaged file, not a game
+    private static final int MAX_BODY_SIZE = 1 << 20;
+
+    // instance variables
+    private ByteBuffer buffer;
+
+    public GameSnapshot() {
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Writes a snapshot of the game to a channel.
+     *
+     * @param game The game to save; it must have been started.
+     * @param channel Where the snapshot is written.
+     * @throws IOException if the channel can't be written to.
+     */
+    public void save(TreasureHunter game, WritableByteChannel channel) throws IOException {
+        int size = encodedSize(game);
+        if (size > buffer.capacity()) {
+            buffer = ByteBuffer.allocate(size);
+        }
+        buffer.clear();
+        encode(game, buffer);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a channel and puts the game back into the saved state.
+     *
+     * @param game The game to restore into.
+     * @param channel Where the snapshot is read from.
+     * @throws IOException if the channel can't be read or doesn't hold a snapshot.
+     */
+    public void load(TreasureHunter game, ReadableByteChannel channel) throws IOException {
+        buffer.clear();
+        buffer.limit(HEADER_SIZE);
+        readFully(channel);
+        buffer.flip();
+        int bodyLength = checkHeader(buffer);
+        if (bodyLength < 0 || bodyLength > MAX_BODY_SIZE) {
+            throw new IOException("Snapshot is too big: " + bodyLength + " bytes");
+        }
+        if (bodyLength > buffer.capacity()) {
+            buffer = ByteBuffer.allocate(bodyLength);
+        }
+        buffer.clear();
+        buffer.limit(bodyLength);
+        readFully(channel);
+        buffer.flip();
+        decodeBody(buffer, game);
+    }
+
+    /**
+     * @param game A started game.
+     * @return How many bytes encode() writes for it.
+     */
+    public static int encodedSize(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+        Terrain terrain = town.getTerrain();
+        return HEADER_SIZE
+                + stringSize(game.getMode().name()) + 2 * Long.BYTES + Integer.BYTES
+                + stringSize(hunter.getName()) + Integer.BYTES + 1
+                + hunter.getKit().getWrittenSize() + hunter.getCollectedTreasure().getWrittenSize()
+                + stringSize(terrain.getTerrainNamePlain()) + stringSize(terrain.getNeededItemName()) + 1
+                + stringSize(town.getTreasure()) + 1;
+    }
+
+    /**
+     * @param game A started game.
+     * @return A whole snapshot of it, in an array of exactly the right size.
+     */
+    public static byte[] toBytes(TreasureHunter game) {
+        ByteBuffer out = ByteBuffer.allocate(encodedSize(game));
+        encode(game, out);
+        return out.array();
+    }
+
+    /**
+     * Writes a whole snapshot (header and body) of the game into a buffer.
+     *
+     * @param game The game to save.
+     * @param out Where the snapshot goes; it needs encodedSize() bytes left.
+     */
+    public static void encode(TreasureHunter game, ByteBuffer out) {
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+        Terrain terrain = town.getTerrain();
+
+        out.putInt(MAGIC);
+        out.putShort(VERSION);
+        int lengthPosition = out.position();
+        out.putInt(0);
+        int bodyStart = out.position();
+
+        putString(out, game.getMode().name());
+        out.putLong(game.getSeed());
+        out.putLong(game.getRandom().getState());
+        out.putInt(game.getTurn());
+
+        putString(out, hunter.getName());
+        out.putInt(hunter.getGold());
+        out.put((byte) (hunter.getIsSamurai() ? 1 : 0));
+        hunter.getKit().writeTo(out);
+        hunter.getCollectedTreasure().writeTo(out);
+
+        putString(out, terrain.getTerrainNamePlain());
+        putString(out, terrain.getNeededItemName());
+        out.put((byte) (town.isToughTown() ? 1 : 0));
+        putString(out, town.getTreasure());
+        out.put((byte) (town.isTreasureFound() ? 1 : 0));
+
+        out.putInt(lengthPosition, out.position() - bodyStart);
+    }
+
+    /**
+     * Reads a whole snapshot (header and body) from a buffer and puts the game back into that state.
+     *
+     * @param in Where the snapshot is read from.
+     * @param game The game to restore into.
+     * @throws IOException if the buffer doesn't hold a snapshot this version can read.
+     */
+    public static void decode(ByteBuffer in, TreasureHunter game) throws IOException {
+        checkHeader(in);
+        decodeBody(in, game);
+    }
+
+    private static int checkHeader(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a Treasure Hunter snapshot");
+        }
+        short version = in.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        return in.getInt();
+    }
+
+    private static void decodeBody(ByteBuffer in, TreasureHunter game) throws IOException {
+        String modeName = getString(in);
+        Mode mode;
+        try {
+            mode = Mode.valueOf(modeName);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown mode in snapshot: " + modeName);
+        }
+        long seed = in.getLong();
+        long randomState = in.getLong();
+        int turn = in.getInt();
+
+        String name = getString(in);
+        int gold = in.getInt();
+        boolean samurai = in.get() != 0;
+        ItemSet kit = ItemSet.readFrom(in);
+        ItemSet treasures = ItemSet.readFrom(in);
+        Hunter hunter = new Hunter(name, gold, samurai, kit, treasures);
+
+        String terrainName = getString(in);
+        String neededItem = getString(in);
+        Terrain terrain = TerrainCatalog.named(terrainName);
+        if (terrain == null || !terrain.getNeededItemName().equals(neededItem)) {
+            terrain = new Terrain(terrainName, neededItem);
+        }
+        boolean toughTown = in.get() != 0;
+        String treasure = getString(in);
+        boolean treasureFound = in.get() != 0;
+
+        game.restore(mode, seed, randomState, turn, hunter, terrain, toughTown, treasure, treasureFound);
+    }
+
+    private void readFully(ReadableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot ended early");
+            }
+        }
+    }
+
+    private static int stringSize(String str) {
+        return Short.BYTES + str.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer out, String str) {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xffff];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
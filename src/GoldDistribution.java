@@ -0,0 +1,229 @@
+import java.util.Arrays;
+
+/**
+ * The exact chance of a hunter ending up with each amount of gold, worked out by TownOdds
+ * instead of by playing games.<p>
+ * The chances are kept in one array indexed by gold (shifted so the lowest amount is at 0). Gold
+ * below 0 means the game is over, so a step only moves the chances at 0 gold or more and leaves
+ * the rest where they are; what's below 0 is exactly the chance the hunter has lost. Each step
+ * is the distribution of how much gold one action changes, and applying it is a convolution, so
+ * a sequence of n actions costs about n times the width of the array times the width of a step.<p>
+ * The chance that each item the hunter crosses terrain with is still whole is kept alongside,
+ * indexed by ItemCatalog id: the break roll in Town.leaveTown() doesn't touch gold, and terrain
+ * items are never a sword or a shovel, so it is independent of everything else here.
+ */
+
+public class GoldDistribution {
+    // instance variables
+    private double[] chances;
+    private int lowestGold;
+    private double[] itemKeptChances;
+
+    /**
+     * @param chances The chance of each amount of gold, starting at lowestGold.
+     * @param lowestGold The amount of gold chances[0] is for.
+     * @param itemKeptChances The chance each of the hunter's items hasn't broken, by ItemCatalog id.
+     */
+    private GoldDistribution(double[] chances, int lowestGold, double[] itemKeptChances) {
+        this.chances = chances;
+        this.lowestGold = lowestGold;
+        this.itemKeptChances = itemKeptChances;
+    }
+
+    /**
+     * @param gold The hunter's gold; must not be negative.
+     * @return A distribution where the hunter has exactly that much gold and every item whole.
+     */
+    public static GoldDistribution of(int gold) {
+        if (gold < 0) {
+            throw new IllegalArgumentException("A hunter with " + gold + " gold has already lost");
+        }
+        double[] kept = new double[ItemCatalog.size()];
+        Arrays.fill(kept, 1);
+        return new GoldDistribution(new double[] {1}, gold, kept);
+    }
+
+    /**
+     * Applies one action to every hunter still playing.
+     *
+     * @param changeChances The chance of each change in gold, starting at smallestChange.
+     * @param smallestChange The change in gold changeChances[0] is for.
+     * @return The distribution after the action.
+     */
+    public GoldDistribution then(double[] changeChances, int smallestChange) {
+        // changes that can't happen (like losing a brawl with a sword) would only widen the array
+        int first = 0;
+        int last = changeChances.length - 1;
+        while (first < last && changeChances[first] == 0) {
+            first++;
+        }
+        while (last > first && changeChances[last] == 0) {
+            last--;
+        }
+        if (first > 0 || last < changeChances.length - 1) {
+            changeChances = Arrays.copyOfRange(changeChances, first, last + 1);
+            smallestChange += first;
+        }
+        int largestChange = smallestChange + changeChances.length - 1;
+        int low = Math.min(lowestGold, Math.max(0, lowestGold) + smallestChange);
+        int high = Math.max(getHighestGold(), getHighestGold() + largestChange);
+        double[] next = new double[high - low + 1];
+        for (int i = 0; i < chances.length; i++) {
+            double chance = chances[i];
+            if (chance == 0) {
+                continue;
+            }
+            int gold = lowestGold + i;
+            if (gold < 0) {
+                next[gold - low] += chance;
+            } else {
+                int start = gold + smallestChange - low;
+                for (int c = 0; c < changeChances.length; c++) {
+                    next[start + c] += chance * changeChances[c];
+                }
+            }
+        }
+        return new GoldDistribution(next, low, itemKeptChances);
+    }
+
+    /**
+     * Applies the same action several times in a row.
+     *
+     * @param changeChances The chance of each change in gold, starting at smallestChange.
+     * @param smallestChange The change in gold changeChances[0] is for.
+     * @param times How many times the action is taken.
+     * @return The distribution after the actions.
+     */
+    public GoldDistribution then(double[] changeChances, int smallestChange, int times) {
+        GoldDistribution distribution = this;
+        for (int i = 0; i < times; i++) {
+            distribution = distribution.then(changeChances, smallestChange);
+        }
+        return distribution;
+    }
+
+    /**
+     * @param breakChances The chance each item breaks on this crossing, by ItemCatalog id.
+     * @return The distribution after crossing terrain once more.
+     */
+    public GoldDistribution thenCross(double[] breakChances) {
+        double[] kept = new double[itemKeptChances.length];
+        for (int id = 0; id < kept.length; id++) {
+            kept[id] = itemKeptChances[id] * (1 - breakChances[id]);
+        }
+        return new GoldDistribution(chances, lowestGold, kept);
+    }
+
+    /**
+     * @param first One distribution.
+     * @param second Another distribution.
+     * @param secondChance The chance of being in the second one's situation, like a town being tough.
+     * @return The distribution when it isn't known which of the two situations the hunter is in.
+     */
+    public static GoldDistribution mix(GoldDistribution first, GoldDistribution second, double secondChance) {
+        int low = Math.min(first.lowestGold, second.lowestGold);
+        int high = Math.max(first.getHighestGold(), second.getHighestGold());
+        double[] mixed = new double[high - low + 1];
+        for (int i = 0; i < first.chances.length; i++) {
+            mixed[first.lowestGold - low + i] += (1 - secondChance) * first.chances[i];
+        }
+        for (int i = 0; i < second.chances.length; i++) {
+            mixed[second.lowestGold - low + i] += secondChance * second.chances[i];
+        }
+        double[] kept = new double[first.itemKeptChances.length];
+        for (int id = 0; id < kept.length; id++) {
+            kept[id] = (1 - secondChance) * first.itemKeptChances[id] + secondChance * second.itemKeptChances[id];
+        }
+        return new GoldDistribution(mixed, low, kept);
+    }
+
+    // accessors
+    public int getLowestGold() {
+        return lowestGold;
+    }
+
+    public int getHighestGold() {
+        return lowestGold + chances.length - 1;
+    }
+
+    /**
+     * @param id An item's ItemCatalog id.
+     * @return The chance the hunter still has it, if they had it to begin with.
+     */
+    public double getItemKeptChance(int id) {
+        return itemKeptChances[id];
+    }
+
+    /**
+     * @param gold An amount of gold.
+     * @return The chance of ending up with exactly that much.
+     */
+    public double chanceOf(int gold) {
+        int i = gold - lowestGold;
+        if (i < 0 || i >= chances.length) {
+            return 0;
+        }
+        return chances[i];
+    }
+
+    /**
+     * @param gold An amount of gold.
+     * @return The chance of ending up with at least that much.
+     */
+    public double chanceOfAtLeast(int gold) {
+        double sum = 0;
+        for (int i = Math.max(0, gold - lowestGold); i < chances.length; i++) {
+            sum += chances[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return The chance the hunter lost all their gold and more in a brawl, ending the game.
+     */
+    public double getLostChance() {
+        return 1 - chanceOfAtLeast(0);
+    }
+
+    /**
+     * @return The average gold at the end, counting the debts of hunters who lost.
+     */
+    public double getExpectedGold() {
+        double sum = 0;
+        for (int i = 0; i < chances.length; i++) {
+            sum += chances[i] * (lowestGold + i);
+        }
+        return sum;
+    }
+
+    /**
+     * @param fraction A number between 0 and 1, like 0.1 for the unluckiest tenth of hunters.
+     * @return The least gold that at least that fraction of hunters end up at or below.
+     */
+    public int quantile(double fraction) {
+        double seen = 0;
+        for (int i = 0; i < chances.length - 1; i++) {
+            seen += chances[i];
+            // a little slack for the rounding in all the sums behind the chances
+            if (seen >= fraction - 1e-12) {
+                return lowestGold + i;
+            }
+        }
+        return getHighestGold();
+    }
+
+    /**
+     * @return A summary of the distribution.
+     */
+    public String toString() {
+        StringBuilder kept = new StringBuilder();
+        for (int id = 0; id < itemKeptChances.length; id++) {
+            // only the items a crossing could have broken
+            if (itemKeptChances[id] < 1) {
+                kept.append(String.format(", %s kept %.6f", ItemCatalog.nameOf(id), itemKeptChances[id]));
+            }
+        }
+        return String.format("expected gold %.4f, lost %.6f, p10 %d, p50 %d, p90 %d",
+                getExpectedGold(), getLostChance(), quantile(0.1), quantile(0.5), quantile(0.9)) + kept;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * A simple strategy that always goes straight for the treasure.<p>
+ * It hunts in every town, buys whatever it needs to cross the terrain when it can afford it,
+ * moves on as soon as it can, and looks for trouble to earn gold when it is short.
+ */
+
+public class GreedyStrategy implements PlayerStrategy {
+    public String chooseAction(Hunter hunter, Town town, GameRandom random) {
+        if (!town.isTreasureFound()) {
+            return "h";
+        }
+        if (hunter.hasItemInKit(town.getTerrain().getNeededItemId())) {
+            return "m";
+        }
+        if (hunter.getGold() >= town.getShop().checkMarketPrice(town.getTerrain().getNeededItemId(), true)) {
+            return "b";
+        }
+        return "l";
+    }
+
+    public String chooseItem(Hunter hunter, Town town, boolean isBuying, GameRandom random) {
+        if (isBuying) {
+            return town.getTerrain().getNeededItemName();
+        }
+        return null;
+    }
+}
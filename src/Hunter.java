@@ -6,10 +6,15 @@
 
 
 public class Hunter {
+    // constants
+    public static final int TREASURES_TO_WIN = 3;
+    private static final int SWORD = ItemCatalog.idOf("sword");
+
     //instance variables
+    private String name;
     private String hunterName;
-    private String[] kit;
-    private String[] collectedTreasure;
+    private ItemSet kit;
+    private ItemSet collectedTreasure;
     private int gold;
     private boolean isSamurai;
 
@@ -24,27 +29,57 @@ public class Hunter {
      */
     public Hunter(String hunterName, int startingGold, boolean isSamurai) {
 
+        this.name = hunterName;
         this.hunterName = Colors.PURPLE + hunterName;
         this.isSamurai = isSamurai;
-        if(isSamurai) {
-            kit = new String[8];
-        } else {
-            kit = new String[7];
-        }
-        collectedTreasure = new String[3];
+        kit = new ItemSet();
+        collectedTreasure = new ItemSet();
         gold = startingGold;
         if (startingGold == 100){
             for (String i : allGameItems){
-                addItem(i);
+                addItem(ItemCatalog.idOf(i));
             }
         }
     }
 
+    /**
+     * Rebuilds a hunter exactly as it was when a game was saved.
+     *
+     * @param hunterName The hunter's name.
+     * @param gold The gold the hunter has.
+     * @param isSamurai Whether the hunter is a samurai.
+     * @param kit The items in the hunter's kit.
+     * @param collectedTreasure The treasures the hunter has found.
+     */
+    public Hunter(String hunterName, int gold, boolean isSamurai, ItemSet kit, ItemSet collectedTreasure) {
+        this.name = hunterName;
+        this.hunterName = Colors.PURPLE + hunterName;
+        this.gold = gold;
+        this.isSamurai = isSamurai;
+        this.kit = kit;
+        this.collectedTreasure = collectedTreasure;
+    }
+
     //Accessors
     public String getHunterName() {
         return hunterName;
     }
 
+    /**
+     * @return The hunter's name without any color codes.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public ItemSet getKit() {
+        return kit;
+    }
+
+    public ItemSet getCollectedTreasure() {
+        return collectedTreasure;
+    }
+
     /**
      * Updates the amount of gold the hunter has.
      *
@@ -62,15 +97,16 @@ public class Hunter {
      * @return true if the item is successfully bought.
      */
     public boolean buyItem(String item, int costOfItem) {
-        if(hasItemInKit("sword")) {
+        if(hasItemInKit(SWORD)) {
             return true;
         }
-        if (costOfItem == -1 || gold < costOfItem || hasItemInKit(item)) {
+        int id = ItemCatalog.idOf(item);
+        if (costOfItem == -1 || gold < costOfItem || hasItemInKit(id)) {
             return false;
         }
 
         gold -= costOfItem;
-        addItem(item);
+        addItem(id);
         return true;
     }
 
@@ -83,75 +119,70 @@ public class Hunter {
      * @return true if the item was successfully sold.
      */
     public boolean sellItem(String item, int buyBackPrice) {
-        if (buyBackPrice <= 0 || !hasItemInKit(item)) {
+        int id = ItemCatalog.idOf(item);
+        if (buyBackPrice <= 0 || !hasItemInKit(id)) {
             return false;
         }
 
         gold += buyBackPrice;
-        removeItemFromKit(item);
+        removeItemFromKit(id);
         return true;
     }
 
     /**
-     * Removes an item from the kit by setting the index of the item to null.
+     * Removes an item from the kit.
      *
      * @param item The item to be removed.
      */
     public void removeItemFromKit(String item) {
-        int itmIdx = findItemInKit(item);
+        removeItemFromKit(ItemCatalog.idOf(item));
+    }
 
-        // if item is found
-        if (itmIdx >= 0) {
-            kit[itmIdx] = null;
-        }
+    /**
+     * Removes an item from the kit.
+     *
+     * @param id The id of the item to be removed.
+     */
+    public void removeItemFromKit(int id) {
+        kit.remove(id);
     }
 
     /**
-     * Checks to make sure that the item is not already in the kit.
-     * If not, it assigns the item to an index in the kit with a null value ("empty" position).
+     * Checks to make sure that the item is not already in the kit, and adds it if it isn't.
      *
-     * @param item The item to be added to the kit.
+     * @param id The id of the item to be added to the kit.
      * @return true if the item is not in the kit and has been added.
      */
-    private boolean addItem(String item) {
-        if (!hasItemInKit(item)) {
-            int idx = emptyPositionInKit();
-            kit[idx] = item;
-            return true;
-        }
-
-        return false;
+    private boolean addItem(int id) {
+        return kit.add(id);
     }
 
     public void addTreasure(String treasure) {
-        int idx = emptyPositionInTreasure();
-        collectedTreasure[idx] = treasure;
+        collectedTreasure.add(ItemCatalog.idOf(treasure));
     }
 
     /**
-     * Checks if the kit Array has the specified item.
+     * Checks if the kit has the specified item.
      *
      * @param item The search item
      * @return true if the item is found.
      */
     public boolean hasItemInKit(String item) {
-        for (String tmpItem : kit) {
-            if (item.equals(tmpItem)) {
-                // early return
-                return true;
-            }
-        }
+        return kit.contains(ItemCatalog.idOf(item));
+    }
 
-        return false;
+    /**
+     * Checks if the kit has the specified item.
+     *
+     * @param id The id of the search item.
+     * @return true if the item is found.
+     */
+    public boolean hasItemInKit(int id) {
+        return kit.contains(id);
     }
 
     public boolean hasTreasure(String treasure) {
-        for(String tmpTreasure : collectedTreasure) {
-            if(treasure.equals(tmpTreasure)) {
-                return true;
-            }
-        }
-        return false;
+        return collectedTreasure.contains(ItemCatalog.idOf(treasure));
     }
 
      /**
@@ -161,27 +192,20 @@ public class Hunter {
      * @return The printable String representation of the inventory.
      */
     public String getInventory() {
-        String printableKit = "";
-        String space = " ";
-
-        for (String item : kit) {
-            if (item != null) {
-                printableKit += Colors.PURPLE + item + Colors.RESET + space;
-            }
-        }
-
-        return printableKit;
+        return printable(kit);
     }
 
     public String getTreasuresFound() {
-        String printableTreasures = "";
+        return printable(collectedTreasure);
+    }
+
+    private String printable(ItemSet items) {
+        StringBuilder printable = new StringBuilder();
         String space = " ";
-        for(String treasure : collectedTreasure) {
-            if(treasure != null) {
-                printableTreasures += Colors.PURPLE + treasure + Colors.RESET + space;
-            }
+        for (int id = items.nextItem(0); id >= 0; id = items.nextItem(id + 1)) {
+            printable.append(Colors.PURPLE).append(ItemCatalog.nameOf(id)).append(Colors.RESET).append(space);
         }
-        return printableTreasures;
+        return printable.toString();
     }
 
     public int getGold() {
@@ -209,77 +233,19 @@ public class Hunter {
     }
 
     /**
-     * Searches kit Array for the index of the specified value.
-     *
-     * @param item String to look for.
-     * @return The index of the item, or -1 if not found.
-     */
-    private int findItemInKit(String item) {
-        for (int i = 0; i < kit.length; i++) {
-            String tmpItem = kit[i];
-
-            if (item.equals(tmpItem)) {
-                return i;
-            }
-        }
-
-        return -1;
-    }
-
-    /**
-     * Check if the kit is empty - meaning all elements are null.
+     * Check if the kit is empty.
      *
      * @return true if kit is completely empty.
      */
     private boolean kitIsEmpty() {
-        for (String string : kit) {
-            if (string != null) {
-                return false;
-            }
-        }
-
-        return true;
+        return kit.isEmpty();
     }
 
     public boolean treasureIsEmpty() {
-        for(String treasure : collectedTreasure) {
-            if(treasure != null) {
-                return false;
-            }
-        }
-        return true;
+        return collectedTreasure.isEmpty();
     }
 
     public boolean treasureIsFull() {
-        for(String treasure : collectedTreasure) {
-            if(treasure == null) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    /**
-     * Finds the first index where there is a null value.
-     *
-     * @return index of empty index, or -1 if not found.
-     */
-    private int emptyPositionInKit() {
-        for (int i = 0; i < kit.length; i++) {
-            if (kit[i] == null) {
-                return i;
-            }
-        }
-
-        return -1;
-    }
-
-    private int emptyPositionInTreasure() {
-        for(int i = 0; i < collectedTreasure.length; i++) {
-            if(collectedTreasure[i] == null) {
-                return i;
-            }
-        }
-        return -1;
+        return collectedTreasure.size() >= TREASURES_TO_WIN;
     }
-}
\ No newline at end of file
+}
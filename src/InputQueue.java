@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An InputSource fed from a queue of lines, which any thread (or a whole script at once) can add to.<p>
+ * The game only waits when the queue is empty, so a script that was loaded up front runs without
+ * ever blocking. For scripts, "Press Enter to Continue" pauses can be skipped altogether, so the
+ * script only has to list the real answers.
+ */
+
+public class InputQueue implements InputSource {
+    // constants
+    // put on the queue by close(); compared by identity, so no real line can be mistaken for it
+    private static final String END = new String("end of input");
+
+    // instance variables
+    private LinkedBlockingQueue<String> lines;
+    private boolean pausesSkipped;
+    private boolean ended;
+
+    /**
+     * Makes an empty queue; pauses wait for a line like any other answer.
+     */
+    public InputQueue() {
+        lines = new LinkedBlockingQueue<String>();
+        pausesSkipped = false;
+        ended = false;
+    }
+
+    /**
+     * Loads a whole script in one read and queues every line, with pauses skipped.<p>
+     * Each line is one answer: a menu choice, a name, an item or y/n. Lines starting with # are
+     * comments. The input ends after the last line, which the game treats as the player leaving.
+     *
+     * @param in Where the script comes from, like a file or System.in; it is read to the end.
+     * @return The queue, already closed.
+     * @throws IOException if the script can't be read.
+     */
+    public static InputQueue script(InputStream in) throws IOException {
+        InputQueue queue = new InputQueue();
+        queue.setPausesSkipped(true);
+        String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            int lineEnd = end;
+            if (lineEnd > start && text.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd == start || text.charAt(start) != '#') {
+                queue.add(text.substring(start, lineEnd));
+            }
+            start = end + 1;
+        }
+        queue.close();
+        return queue;
+    }
+
+    /**
+     * @param pausesSkipped true to make waitForEnter() return right away without using up a line.
+     */
+    public void setPausesSkipped(boolean pausesSkipped) {
+        this.pausesSkipped = pausesSkipped;
+    }
+
+    /**
+     * Adds a line for the game to read; can be called from any thread.
+     *
+     * @param line The line, without its line break.
+     */
+    public void add(String line) {
+        lines.add(line);
+    }
+
+    /**
+     * Ends the input; once the lines already queued are used up, nextLine() returns null.
+     */
+    public void close() {
+        lines.add(END);
+    }
+
+    /**
+     * @return How many lines are waiting to be read.
+     */
+    public int size() {
+        return lines.size();
+    }
+
+    /**
+     * @return The next line, waiting for one if the queue is empty, or null once the input has ended.
+     */
+    public String nextLine() {
+        if (ended) {
+            return null;
+        }
+        String line = lines.poll();
+        if (line == null) {
+            try {
+                line = lines.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                ended = true;
+                return null;
+            }
+        }
+        if (line == END) {
+            ended = true;
+            return null;
+        }
+        return line;
+    }
+
+    public void waitForEnter() {
+        if (!pausesSkipped) {
+            nextLine();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Where the game gets the player's typed input from.<p>
+ * The TreasureHunter and Shop classes read every answer through this interface instead of
+ * using their own Scanner, so the same game can be played from the keyboard or by a program.
+ */
+
+public interface InputSource {
+    /**
+     * @return The next line the player typed, or null if the player is gone and there will be no more input.
+     */
+    String nextLine();
+
+    /**
+     * Waits for the player to "Press Enter to Continue".
+     */
+    void waitForEnter();
+
+    /**
+     * Waits a limited time for the player to start typing, without reading anything. Sources
+     * that can't wait with a time limit say the input is there, and nextLine() waits as usual.
+     *
+     * @param millis How long to wait.
+     * @return false if nothing arrived in time.
+     */
+    default boolean awaitInput(long millis) {
+        return true;
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The list of every item and treasure in the game, loaded once from items.txt.<p>
+ * Each name gets a small number (its id) so the rest of the game can keep items in an ItemSet
+ * and compare numbers instead of Strings. The same name always gives back the same id.
+ */
+
+public class ItemCatalog {
+    // constants
+    public static final String ITEM = "item";
+    public static final String TREASURE = "treasure";
+    private static final String CATALOG_FILE = "items.txt";
+
+    // static variables
+    private static final ArrayList<String> NAMES = new ArrayList<String>();
+    private static final ArrayList<String> KINDS = new ArrayList<String>();
+    private static final HashMap<String, Integer> IDS = new HashMap<String, Integer>();
+
+    static {
+        load();
+    }
+
+    private ItemCatalog() {
+    }
+
+    /**
+     * @param name The name of an item or treasure, in lower case.
+     * @return The item's id, or -1 if there is no such item.
+     */
+    public static int idOf(String name) {
+        Integer id = IDS.get(name);
+        if (id == null) {
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * @param id An item's id.
+     * @return The item's name.
+     */
+    public static String nameOf(int id) {
+        return NAMES.get(id);
+    }
+
+    /**
+     * @param id An item's id.
+     * @return true if the item is a treasure rather than something for the kit.
+     */
+    public static boolean isTreasure(int id) {
+        return KINDS.get(id).equals(TREASURE);
+    }
+
+    /**
+     * @return How many items and treasures there are; ids go from 0 to size() - 1.
+     */
+    public static int size() {
+        return NAMES.size();
+    }
+
+    private static void load() {
+        InputStream in = ItemCatalog.class.getResourceAsStream(CATALOG_FILE);
+        if (in == null) {
+            throw new IllegalStateException(CATALOG_FILE + " is missing from the classpath");
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    String[] fields = line.split(",");
+                    String name = fields[0].trim().toLowerCase();
+                    if (IDS.containsKey(name)) {
+                        throw new IllegalStateException(CATALOG_FILE + " lists " + name + " twice");
+                    }
+                    IDS.put(name, NAMES.size());
+                    NAMES.add(name);
+                    KINDS.add(fields[1].trim().toLowerCase());
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import java.nio.ByteBuffer;
+
+/**
+ * A set of items from the ItemCatalog, stored as one bit per item id.<p>
+ * Checking for, adding and removing an item are single bit operations and never create objects,
+ * and the set grows with the catalog, so there is no limit on how many items it can hold.
+ */
+
+public class ItemSet {
+    // instance variables
+    private long[] words;
+    private int count;
+
+    /**
+     * Creates an empty set big enough for every item in the catalog.
+     */
+    public ItemSet() {
+        words = new long[(ItemCatalog.size() + 63) / 64];
+        count = 0;
+    }
+
+    /**
+     * @param id An item's id.
+     * @return true if the item is in the set.
+     */
+    public boolean contains(int id) {
+        return id >= 0 && (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * @param id An item's id.
+     * @return true if the item was not in the set and has been added.
+     */
+    public boolean add(int id) {
+        if (id < 0 || contains(id)) {
+            return false;
+        }
+        words[id >>> 6] |= 1L << id;
+        count++;
+        return true;
+    }
+
+    /**
+     * @param id An item's id.
+     * @return true if the item was in the set and has been removed.
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        words[id >>> 6] &= ~(1L << id);
+        count--;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Writes the set as a word count followed by its bits.
+     *
+     * @param buffer Where the set is written.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put((byte) words.length);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+    }
+
+    /**
+     * @return How many bytes writeTo() writes.
+     */
+    public int getWrittenSize() {
+        return 1 + words.length * Long.BYTES;
+    }
+
+    /**
+     * Reads a set that was written with writeTo().
+     *
+     * @param buffer Where the set is read from.
+     * @return The set.
+     */
+    public static ItemSet readFrom(ByteBuffer buffer) {
+        ItemSet set = new ItemSet();
+        int wordCount = buffer.get() & 0xff;
+        for (int i = 0; i < wordCount; i++) {
+            long word = buffer.getLong();
+            if (i < set.words.length) {
+                set.words[i] = word;
+                set.count += Long.bitCount(word);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Used to go through the set in id order: start with nextItem(0), then nextItem(id + 1).
+     *
+     * @param from The smallest id to look at.
+     * @return The smallest id in the set that is at least from, or -1 if there is none.
+     */
+    public int nextItem(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            word++;
+            if (word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Passes the player's input through from another InputSource and writes every line into a GameJournal.
+ */
+
+public class JournalInput implements InputSource {
+    // instance variables
+    private InputSource input;
+    private GameJournal journal;
+
+    /**
+     * @param input Where the player's input really comes from.
+     * @param journal Where each line is recorded.
+     */
+    public JournalInput(InputSource input, GameJournal journal) {
+        this.input = input;
+        this.journal = journal;
+    }
+
+    public String nextLine() {
+        String line = input.nextLine();
+        if (line != null) {
+            journal.record(line);
+        }
+        return line;
+    }
+
+    public void waitForEnter() {
+        // the pause is left to the real input (a script may skip it), but it is recorded as an
+        // empty line so the replay, which reads pauses as lines, uses up the same input
+        input.waitForEnter();
+        journal.record("");
+    }
+}
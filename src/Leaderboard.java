@@ -0,0 +1,425 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Keeps every finished run, for every mode, in one file and ranks them.<p>
+ * Usage: java Leaderboard file top [mode] [k] | rank mode name<p>
+ * The file is only ever added to. After a 64-byte header (magic number, version, record size and
+ * how many records are in the file) every run is a fixed 64-byte record, so record n is always at
+ * the same place and the file is memory-mapped in 4 MB chunks: adding a run is a few puts into
+ * mapped memory, and the record count in the header is written last, so a run that was cut off
+ * halfway is simply not counted.<p>
+ * Each mode has a RankIndex in memory that answers "top k" and "what rank is this run" in
+ * O(log n), plus the best run of every hunter name. The indexes aren't saved: opening the file
+ * reads the records once, sorts each mode's scores and builds the indexes from the sorted runs
+ * in O(n). All methods are synchronized, so games on many threads can share one Leaderboard.
+ */
+
+public class Leaderboard implements AutoCloseable {
+    // constants
+    public static final int MAGIC = 0x54484C42; // "THLB"
+    public static final short VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_SIZE;
+
+    // where each field is in a record
+    // the mode's id (see Mode.getId()), so adding or reordering modes doesn't relabel old runs
+    private static final int MODE = 0;
+    private static final int TREASURES = 1;
+    private static final int NAME_LENGTH = 2;
+    private static final int GOLD = 4;
+    private static final int TURNS = 8;
+    private static final int SEED = 12;
+    private static final int NAME = 20;
+    private static final int MAX_NAME_BYTES = RECORD_SIZE - NAME;
+    private static final Mode[] MODES = Mode.values();
+
+    // instance variables
+    private FileChannel file;
+    private MappedByteBuffer header;
+    private ArrayList<MappedByteBuffer> chunks;
+    private int count;
+    private RankIndex[] indexes;
+    // each mode maps a hunter's name to a slot in bestScores and bestRecords, which hold their best run
+    private ArrayList<HashMap<String, Integer>> playerSlots;
+    private long[] bestScores;
+    private int[] bestRecords;
+    private int players;
+
+    /**
+     * Opens a leaderboard file, creating it if it doesn't exist, and rebuilds its indexes.
+     *
+     * @param path The file.
+     * @throws IOException if the file can't be opened or isn't a leaderboard.
+     */
+    public Leaderboard(Path path) throws IOException {
+        file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean isNew = file.size() == 0;
+        header = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (isNew) {
+            header.putInt(0, MAGIC);
+            header.putShort(4, VERSION);
+            header.putShort(6, (short) RECORD_SIZE);
+            header.putLong(COUNT_OFFSET, 0);
+        } else if (header.getInt(0) != MAGIC) {
+            file.close();
+            throw new IOException(path + " is not a Treasure Hunter leaderboard");
+        } else if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+            file.close();
+            throw new IOException(path + " is leaderboard version " + header.getShort(4) + ", expected " + VERSION);
+        }
+
+        chunks = new ArrayList<MappedByteBuffer>();
+        long counted = header.getLong(COUNT_OFFSET);
+        long stored = (file.size() - HEADER_SIZE) / RECORD_SIZE;
+        count = (int) Math.max(0, Math.min(counted, Math.min(stored, Integer.MAX_VALUE)));
+        mapChunksFor(count);
+        rebuildIndexes();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java Leaderboard file top [mode] [k] | rank mode name");
+            return;
+        }
+        try (Leaderboard board = new Leaderboard(Paths.get(args[0]))) {
+            if (args[1].equals("rank")) {
+                Mode mode = Mode.valueOf(args[2].toUpperCase());
+                int rank = board.rankOf(mode, args[3]);
+                if (rank < 0) {
+                    System.out.println(args[3] + " has no runs on " + args[2]);
+                } else {
+                    System.out.println(args[3] + " is number " + (rank + 1) + " of " + board.size(mode)
+                            + ": " + board.bestRunOf(mode, args[3]));
+                }
+                return;
+            }
+            int k = 10;
+            if (args.length > 3) {
+                k = Integer.parseInt(args[3]);
+            }
+            for (Mode mode : Mode.values()) {
+                if (args.length > 2 && !mode.toString().equalsIgnoreCase(args[2])) {
+                    continue;
+                }
+                System.out.println(mode + " (" + board.size(mode) + " runs)");
+                List<LeaderboardEntry> best = board.top(mode, k);
+                for (int i = 0; i < best.size(); i++) {
+                    System.out.println("  " + (i + 1) + ". " + best.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a finished run.
+     *
+     * @param entry The run.
+     * @return The run's record number.
+     * @throws IOException if the file can't be made bigger.
+     */
+    public synchronized int add(LeaderboardEntry entry) throws IOException {
+        if (count == Integer.MAX_VALUE) {
+            throw new IOException("The leaderboard is full");
+        }
+        int record = count;
+        mapChunksFor(record + 1);
+        ByteBuffer chunk = chunkFor(record);
+        int at = offsetOf(record);
+        byte[] name = nameBytes(entry.getName());
+        chunk.put(at + MODE, (byte) entry.getMode().getId());
+        chunk.put(at + TREASURES, (byte) Math.max(0, Math.min(Byte.MAX_VALUE, entry.getTreasures())));
+        chunk.put(at + NAME_LENGTH, (byte) name.length);
+        chunk.putInt(at + GOLD, entry.getGold());
+        chunk.putInt(at + TURNS, entry.getTurns());
+        chunk.putLong(at + SEED, entry.getSeed());
+        chunk.put(at + NAME, name);
+        count++;
+        header.putLong(COUNT_OFFSET, count);
+
+        Mode mode = entry.getMode();
+        long score = entry.getScore();
+        indexes[mode.ordinal()].add(score, record);
+        // the name as it was stored, so a name that was cut short matches itself after a restart
+        noteBest(mode, new String(name, StandardCharsets.UTF_8), score, record);
+        return record;
+    }
+
+    /**
+     * @param mode A mode.
+     * @param k How many runs to list.
+     * @return The best k runs on that mode, best first.
+     */
+    public synchronized List<LeaderboardEntry> top(Mode mode, int k) {
+        int[] best = indexes[mode.ordinal()].top(k);
+        ArrayList<LeaderboardEntry> entries = new ArrayList<LeaderboardEntry>(best.length);
+        for (int record : best) {
+            entries.add(read(record));
+        }
+        return entries;
+    }
+
+    /**
+     * @param mode A mode.
+     * @param name A hunter's name.
+     * @return Where the hunter's best run on that mode ranks (0 is first place), or -1 if they haven't played it.
+     */
+    public synchronized int rankOf(Mode mode, String name) {
+        Integer slot = playerSlots.get(mode.ordinal()).get(name);
+        if (slot == null) {
+            return -1;
+        }
+        return indexes[mode.ordinal()].rankOf(bestScores[slot], bestRecords[slot]);
+    }
+
+    /**
+     * @param record A run's record number.
+     * @return Where the run ranks among the runs on its mode, 0 being first place.
+     */
+    public synchronized int rankOf(int record) {
+        LeaderboardEntry entry = read(record);
+        return indexes[entry.getMode().ordinal()].rankOf(entry.getScore(), record);
+    }
+
+    /**
+     * @param mode A mode.
+     * @param name A hunter's name.
+     * @return The hunter's best run on that mode, or null if they haven't played it.
+     */
+    public synchronized LeaderboardEntry bestRunOf(Mode mode, String name) {
+        Integer slot = playerSlots.get(mode.ordinal()).get(name);
+        if (slot == null) {
+            return null;
+        }
+        return read(bestRecords[slot]);
+    }
+
+    /**
+     * @param record A run's record number.
+     * @return The run.
+     */
+    public synchronized LeaderboardEntry get(int record) {
+        if (record < 0 || record >= count) {
+            throw new IndexOutOfBoundsException("No record " + record + " in a leaderboard of " + count);
+        }
+        return read(record);
+    }
+
+    /**
+     * @return How many runs there are on every mode together.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @return How many runs there are on one mode.
+     */
+    public synchronized int size(Mode mode) {
+        return indexes[mode.ordinal()].size();
+    }
+
+    /**
+     * Writes everything added so far out to the disk and closes the file.
+     */
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        header.force();
+        file.close();
+    }
+
+    /**
+     * Reads every record once to count the runs on each mode, then again to fill in their
+     * scores; records are read in order, so each mode's runs come out already ordered by
+     * record number and only need sorting by score.
+     */
+    private void rebuildIndexes() throws IOException {
+        Mode[] modes = MODES;
+        int[] sizes = new int[modes.length];
+        for (int record = 0; record < count; record++) {
+            sizes[modeOrdinalAt(record)]++;
+        }
+
+        long[][] scores = new long[modes.length][];
+        int[][] records = new int[modes.length][];
+        for (int i = 0; i < modes.length; i++) {
+            scores[i] = new long[sizes[i]];
+            records[i] = new int[sizes[i]];
+        }
+        playerSlots = new ArrayList<HashMap<String, Integer>>();
+        for (int i = 0; i < modes.length; i++) {
+            playerSlots.add(new HashMap<String, Integer>());
+        }
+        bestScores = new long[16];
+        bestRecords = new int[16];
+        players = 0;
+        int[] filled = new int[modes.length];
+        for (int record = 0; record < count; record++) {
+            ByteBuffer chunk = chunkFor(record);
+            int at = offsetOf(record);
+            int mode = modeOrdinalAt(record);
+            long score = LeaderboardEntry.scoreOf(chunk.get(at + TREASURES), chunk.getInt(at + GOLD), chunk.getInt(at + TURNS));
+            scores[mode][filled[mode]] = score;
+            records[mode][filled[mode]] = record;
+            filled[mode]++;
+            noteBest(modes[mode], readName(chunk, at), score, record);
+        }
+
+        indexes = new RankIndex[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            sortByRank(scores[i], records[i]);
+            indexes[i] = RankIndex.build(scores[i], records[i], sizes[i]);
+        }
+    }
+
+    /**
+     * Sorts one mode's runs into rank order with an LSD radix sort, a byte at a time; bytes
+     * that are the same in every score (most of them: few runs have more than a few thousand
+     * gold) are skipped. The sort is stable and the runs start in record order, so runs with
+     * the same score stay in record order, as RankIndex wants.
+     */
+    private static void sortByRank(long[] scores, int[] records) {
+        int n = scores.length;
+        int[][] counts = new int[Long.BYTES][256];
+        for (long score : scores) {
+            long key = ~score;
+            for (int digit = 0; digit < Long.BYTES; digit++) {
+                counts[digit][(int) (key >>> (digit * 8)) & 0xFF]++;
+            }
+        }
+
+        long[] fromScores = scores;
+        int[] fromRecords = records;
+        long[] toScores = new long[n];
+        int[] toRecords = new int[n];
+        for (int digit = 0; digit < Long.BYTES; digit++) {
+            int[] starts = counts[digit];
+            int shift = digit * 8;
+            if (n == 0 || starts[(int) (~fromScores[0] >>> shift) & 0xFF] == n) {
+                continue;
+            }
+            int start = 0;
+            for (int i = 0; i < starts.length; i++) {
+                int size = starts[i];
+                starts[i] = start;
+                start += size;
+            }
+            for (int i = 0; i < n; i++) {
+                int to = starts[(int) (~fromScores[i] >>> shift) & 0xFF]++;
+                toScores[to] = fromScores[i];
+                toRecords[to] = fromRecords[i];
+            }
+            long[] swapScores = fromScores;
+            fromScores = toScores;
+            toScores = swapScores;
+            int[] swapRecords = fromRecords;
+            fromRecords = toRecords;
+            toRecords = swapRecords;
+        }
+        if (fromScores != scores) {
+            System.arraycopy(fromScores, 0, scores, 0, n);
+            System.arraycopy(fromRecords, 0, records, 0, n);
+        }
+    }
+
+    /**
+     * Remembers a run if it is the best one its hunter has had on its mode; the best score is
+     * kept next to the record number so the old best never has to be read back from the file.
+     */
+    private void noteBest(Mode mode, String name, long score, int record) {
+        HashMap<String, Integer> slots = playerSlots.get(mode.ordinal());
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            if (players == bestScores.length) {
+                bestScores = Arrays.copyOf(bestScores, players * 2);
+                bestRecords = Arrays.copyOf(bestRecords, players * 2);
+            }
+            slots.put(name, players);
+            bestScores[players] = score;
+            bestRecords[players] = record;
+            players++;
+        } else if (score > bestScores[slot]) {
+            bestScores[slot] = score;
+            bestRecords[slot] = record;
+        }
+    }
+
+    private LeaderboardEntry read(int record) {
+        ByteBuffer chunk = chunkFor(record);
+        int at = offsetOf(record);
+        return new LeaderboardEntry(modeAt(chunk, at), readName(chunk, at), chunk.getInt(at + GOLD),
+                chunk.get(at + TREASURES), chunk.getInt(at + TURNS), chunk.getLong(at + SEED));
+    }
+
+    private int modeOrdinalAt(int record) throws IOException {
+        int id = chunkFor(record).get(offsetOf(record) + MODE);
+        Mode mode = Mode.fromId(id);
+        if (mode == null) {
+            throw new IOException("Leaderboard record " + record + " has an unknown mode " + id);
+        }
+        return mode.ordinal();
+    }
+
+    /**
+     * For a record that was already checked when the file was opened.
+     */
+    private static Mode modeAt(ByteBuffer chunk, int at) {
+        return Mode.fromId(chunk.get(at + MODE));
+    }
+
+    private static String readName(ByteBuffer chunk, int at) {
+        byte[] name = new byte[chunk.get(at + NAME_LENGTH)];
+        chunk.get(at + NAME, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The name in UTF-8, cut short (between characters) if it doesn't fit in a record.
+     */
+    private static byte[] nameBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        int length = MAX_NAME_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] cut = new byte[length];
+        System.arraycopy(bytes, 0, cut, 0, length);
+        return cut;
+    }
+
+    private static int offsetOf(int record) {
+        return (record & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+    private MappedByteBuffer chunkFor(int record) {
+        return chunks.get(record >>> CHUNK_SHIFT);
+    }
+
+    /**
+     * Maps enough chunks to hold this many records; mapping past the end of the file makes it bigger.
+     */
+    private void mapChunksFor(int records) throws IOException {
+        while ((long) chunks.size() * CHUNK_RECORDS < records) {
+            chunks.add(file.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + chunks.size() * CHUNK_BYTES, CHUNK_BYTES));
+        }
+    }
+}
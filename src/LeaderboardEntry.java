@@ -0,0 +1,94 @@
+/**
+ * One finished run on a Leaderboard: who played, on which mode, and how it went.<p>
+ * Runs are ranked by treasures found, then final gold, then fewest turns taken; getScore() packs
+ * those three into one long so that comparing two scores compares the runs.
+ */
+
+public class LeaderboardEntry {
+    // constants
+    private static final int TURN_BITS = 28;
+    private static final int GOLD_BITS = 32;
+    private static final int MAX_TURNS = (1 << TURN_BITS) - 1;
+    private static final int MAX_TREASURES = 7;
+
+    // instance variables
+    private Mode mode;
+    private String name;
+    private int gold;
+    private int treasures;
+    private int turns;
+    private long seed;
+
+    /**
+     * @param mode The mode the run was played on.
+     * @param name The hunter's name.
+     * @param gold The gold the hunter finished with.
+     * @param treasures How many treasures the hunter found.
+     * @param turns How many moves the run took.
+     * @param seed The run's seed, so it can be played again.
+     */
+    public LeaderboardEntry(Mode mode, String name, int gold, int treasures, int turns, long seed) {
+        this.mode = mode;
+        this.name = name;
+        this.gold = gold;
+        this.treasures = treasures;
+        this.turns = turns;
+        this.seed = seed;
+    }
+
+    /**
+     * @param game A game that has been played.
+     * @return The game's run, as it stands now.
+     */
+    public static LeaderboardEntry of(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        return new LeaderboardEntry(game.getMode(), hunter.getName(), hunter.getGold(),
+                hunter.getCollectedTreasure().size(), game.getTurn(), game.getSeed());
+    }
+
+    /**
+     * Packs a run into a score: treasures in the top bits, then gold, then the turns it did
+     * NOT take, so more treasure, more gold and fewer turns all make a bigger number.
+     *
+     * @return The score.
+     */
+    public static long scoreOf(int treasures, int gold, int turns) {
+        long treasurePart = Math.max(0, Math.min(MAX_TREASURES, treasures));
+        long goldPart = (long) gold - Integer.MIN_VALUE;
+        long turnPart = MAX_TURNS - Math.max(0, Math.min(MAX_TURNS, turns));
+        return (treasurePart << (GOLD_BITS + TURN_BITS)) | (goldPart << TURN_BITS) | turnPart;
+    }
+
+    public long getScore() {
+        return scoreOf(treasures, gold, turns);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    public int getTreasures() {
+        return treasures;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String toString() {
+        return name + " (" + mode.toString().toLowerCase() + "): " + treasures + " treasures, " + gold
+                + " gold, " + turns + " turns";
+    }
+}
@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One column file of a ColumnExport store, mapped into memory for reading.<p>
+ * A mapped buffer can't be bigger than 2 GB, so the file is mapped in chunks of 2^CHUNK_SHIFT
+ * rows; ColumnQuery hands each chunk to its own thread. Reading a row is an absolute get on
+ * its chunk, which the operating system serves straight from the page cache.
+ */
+
+public class MappedColumn {
+    // constants
+    public static final int CHUNK_SHIFT = 22;
+    public static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+
+    // instance variables
+    private int width;
+    private long rows;
+    private MappedByteBuffer[] chunks;
+
+    /**
+     * Maps a column file; a file that doesn't exist is an empty column.
+     *
+     * @param file The column file.
+     * @param width How many bytes each row takes.
+     * @throws IOException if the file can't be mapped.
+     */
+    public MappedColumn(Path file, int width) throws IOException {
+        this.width = width;
+        if (!Files.exists(file)) {
+            chunks = new MappedByteBuffer[0];
+            return;
+        }
+        // the mapping stays valid after the file is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            rows = channel.size() / width;
+            chunks = new MappedByteBuffer[chunkCount(rows)];
+            for (int c = 0; c < chunks.length; c++) {
+                long first = (long) c << CHUNK_SHIFT;
+                long size = Math.min(CHUNK_ROWS, rows - first) * width;
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, first * width, size);
+                chunks[c].order(ColumnExport.ORDER);
+            }
+        }
+    }
+
+    /**
+     * @param rows A number of rows.
+     * @return How many chunks it takes to hold them.
+     */
+    public static int chunkCount(long rows) {
+        return (int) ((rows + CHUNK_ROWS - 1) >>> CHUNK_SHIFT);
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Stops reading the column at a row, like the end of the last whole game.
+     *
+     * @param rows The number of rows to keep, no more than getRows().
+     */
+    public void limitRows(long rows) {
+        this.rows = Math.min(this.rows, rows);
+    }
+
+    /**
+     * @param chunk A chunk number.
+     * @return The chunk's rows, from its first row at 0; may hold rows past the limit.
+     */
+    public ByteBuffer getChunk(int chunk) {
+        return chunks[chunk];
+    }
+
+    public byte getByte(long row) {
+        return chunks[(int) (row >>> CHUNK_SHIFT)].get((int) (row & (CHUNK_ROWS - 1)));
+    }
+
+    public int getInt(long row) {
+        return chunks[(int) (row >>> CHUNK_SHIFT)].getInt((int) (row & (CHUNK_ROWS - 1)) * width);
+    }
+
+    public long getLong(long row) {
+        return chunks[(int) (row >>> CHUNK_SHIFT)].getLong((int) (row & (CHUNK_ROWS - 1)) * width);
+    }
+}
@@ -0,0 +1,455 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.BufferedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Works out the best possible way to play each difficulty mode, and how often it wins.<p>
+ * Usage: java MdpSolver [mode|all] [gold cap] [games to check with]<p>
+ * The game is treated as a Markov decision process. A state is the hunter's gold, kit and
+ * treasures plus the current town's terrain, toughness and hidden treasure (or that it has been
+ * searched). The actions are the menu choices, and the odds come from the constants in Town.
+ * Every state is one slot in a primitive array, and value iteration runs over the array until
+ * the chance of winning from each state stops changing. Each sweep goes from the most gold down,
+ * with the kits for one gold amount split between tasks. A free item or a sale at the gold cap
+ * leads to a state with the same gold and a different kit, so the tasks only read the values
+ * from before this gold amount's update and write the new ones into a separate row, which is
+ * copied back once every kit is done.
+ * The odds of moving on depend only on gold, kit and treasures, so they are worked out once per
+ * gold amount and shared by every town state. Gold above the cap counts as the cap, since once a
+ * hunter can buy anything more gold doesn't help.<p>
+ * Solving takes tens of seconds per mode, not a few: with the default gold cap a mode
+ * has about two million states and needs around 70 sweeps, which comes to 20 s on one core (40 s
+ * for samurai, which has twice the kits) and less on more. Solving each gold level until it
+ * settles before moving down was tried; the moves between towns keep a level from settling
+ * quickly, so it took about five times as many level sweeps in all. A PolicyStrategy needs a
+ * solved solver, so anything that plays by the policy pays this once per mode and ruleset.<p>
+ * A hunter with a shovel can dig forever without losing gold, so nearly every game can be won
+ * eventually. To make the policy head for the win instead of going round in circles, a win one
+ * turn later counts for DISCOUNT as much, so the printed chance is a little under the real one.
+ */
+
+public class MdpSolver {
+    // constants
+    public static final int DEFAULT_GOLD_CAP = 40;
+    public static final byte LOOK = 0;
+    public static final byte DIG = 1;
+    public static final byte HUNT = 2;
+    public static final byte MOVE = 3;
+    public static final byte BUY = 4;
+    private static final double TOLERANCE = 1e-6;
+    // a win one turn later counts for a tiny bit less, so the policy never goes round in circles
+    private static final double DISCOUNT = 0.9999;
+    private static final int MAX_ITERATIONS = 10000;
+    private static final int POLICY_MAGIC = 0x5448504c; // "THPL"
+    private static final int TREASURE_KINDS = Town.TREASURE_CHOICES;
+    private static final int TREASURE_SETS = 1 << TREASURE_KINDS;
+    private static final int ALL_TREASURES = TREASURE_SETS - 1;
+    private static final int TERRAINS = TerrainCatalog.size();
+    private static final int SEARCHED = TREASURE_KINDS;
+    private static final int SLOTS = TREASURE_KINDS + 1;
+
+    // index strides: state = ((((gold * kits + kit) * TREASURE_SETS + treasures) * TERRAINS + terrain) * 2 + tough) * SLOTS + slot
+    private static final int TOUGH_STRIDE = SLOTS;
+    private static final int TERRAIN_STRIDE = 2 * SLOTS;
+    private static final int TREASURE_STRIDE = TERRAINS * TERRAIN_STRIDE;
+    private static final int KIT_STRIDE = TREASURE_SETS * TREASURE_STRIDE;
+
+    // instance variables
+    private Mode mode;
+    private Rules rules;
+    private int goldCap;
+    private int[] itemIds;
+    private int[] buyPrices;
+    private int[] sellPrices;
+    private int swordBit;
+    private int shovelBit;
+    private int[] terrainBits;
+    private double[] terrainChances;
+    private boolean itemsBreak;
+    private int kits;
+    private int goldStride;
+    private double[] values;
+    private double[] levelValues;
+    private double[] moveValues;
+    private byte[] policy;
+    private int iterations;
+
+    /**
+     * @param mode The difficulty to solve.
+     * @param goldCap The most gold the solver keeps track of.
+     */
+    public MdpSolver(Mode mode, int goldCap) {
+        this(mode, mode.getRules(), goldCap);
+    }
+
+    /**
+     * @param mode The difficulty to solve.
+     * @param rules The rules to solve it with, instead of the ones the mode is played by.
+     * @param goldCap The most gold the solver keeps track of.
+     */
+    public MdpSolver(Mode mode, Rules rules, int goldCap) {
+        this.mode = mode;
+        this.rules = rules;
+        this.goldCap = goldCap;
+        PriceTable prices = PriceEngine.forRules(rules);
+
+        // only items the hunter can buy or needs to cross a terrain are worth keeping track of
+        ArrayList<Integer> items = new ArrayList<Integer>();
+        for (int id = 0; id < ItemCatalog.size(); id++) {
+            boolean forSale = prices.buyPrice(id) != -1 && (!prices.isSamuraiOnly(id) || mode.isSamurai());
+            boolean needed = false;
+            for (int t = 0; t < TERRAINS; t++) {
+                needed = needed || TerrainCatalog.get(t).getNeededItemId() == id;
+            }
+            if (!ItemCatalog.isTreasure(id) && (forSale || needed)) {
+                items.add(id);
+            }
+        }
+        itemIds = new int[items.size()];
+        buyPrices = new int[itemIds.length];
+        sellPrices = new int[itemIds.length];
+        for (int k = 0; k < itemIds.length; k++) {
+            itemIds[k] = items.get(k);
+            boolean forSale = !prices.isSamuraiOnly(itemIds[k]) || mode.isSamurai();
+            buyPrices[k] = forSale ? prices.buyPrice(itemIds[k]) : -1;
+            sellPrices[k] = prices.sellPrice(itemIds[k]);
+        }
+        swordBit = bitOf(ItemCatalog.idOf("sword"));
+        shovelBit = bitOf(ItemCatalog.idOf("shovel"));
+
+        terrainBits = new int[TERRAINS];
+        terrainChances = new double[TERRAINS];
+        for (int t = 0; t < TERRAINS; t++) {
+            terrainBits[t] = bitOf(TerrainCatalog.get(t).getNeededItemId());
+            terrainChances[t] = TerrainCatalog.chanceOf(t);
+        }
+        itemsBreak = rules.getItemBreakChance() > 0;
+
+        kits = 1 << itemIds.length;
+        goldStride = kits * KIT_STRIDE;
+        values = new double[(goldCap + 1) * goldStride];
+        levelValues = new double[goldStride];
+        moveValues = new double[(goldCap + 1) * kits * TREASURE_SETS];
+        policy = new byte[values.length];
+    }
+
+    public static void main(String[] args) throws IOException {
+        String which = "all";
+        int goldCap = DEFAULT_GOLD_CAP;
+        long checkGames = 0;
+        if (args.length > 0) {
+            which = args[0];
+        }
+        if (args.length > 1) {
+            goldCap = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            checkGames = Long.parseLong(args[2]);
+        }
+
+        for (Mode mode : Mode.values()) {
+            if (!which.equals("all") && !which.equalsIgnoreCase(mode.name())) {
+                continue;
+            }
+            long start = System.nanoTime();
+            MdpSolver solver = new MdpSolver(mode, goldCap);
+            solver.solve();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%s: best win rate %.4f, discounted per turn (%d states, %d sweeps, %.1f s)%n", mode,
+                    solver.startingWinChance(), solver.values.length, solver.iterations, seconds);
+
+            Path file = Paths.get("policy-" + mode.name().toLowerCase() + ".bin");
+            solver.writePolicy(file);
+            System.out.println("  policy written to " + file);
+
+            if (checkGames > 0) {
+                SimulationStats stats = Simulation.run(ForkJoinPool.commonPool(), mode,
+                        new PolicyStrategy(solver), checkGames, 10000, start);
+                System.out.printf("  simulated with the policy: win rate %.4f over %d games%n", stats.getWinRate(), checkGames);
+            }
+        }
+    }
+
+    /**
+     * Runs value iteration until no state's chance of winning changes by more than a tiny amount.
+     *
+     * @return How many sweeps it took.
+     */
+    public int solve() {
+        iterations = 0;
+        double change = 1;
+        while (change > TOLERANCE && iterations < MAX_ITERATIONS) {
+            change = 0;
+            // richer states first, so the gold won by brawling and digging is already up to date below them
+            for (int gold = goldCap; gold >= 0; gold--) {
+                int level = gold;
+                IntStream.range(0, kits).parallel().forEach(kit -> computeMoveValues(level, kit));
+                change = Math.max(change, IntStream.range(0, kits).parallel().mapToDouble(kit -> sweep(level, kit)).max().getAsDouble());
+                System.arraycopy(levelValues, 0, values, gold * goldStride, goldStride);
+            }
+            iterations++;
+        }
+        return iterations;
+    }
+
+    /**
+     * @return The chance of winning from the start of a game when playing perfectly.
+     */
+    public double startingWinChance() {
+        Hunter hunter = rules.createHunter("solver", mode.isSamurai());
+        int gold = Math.min(goldCap, hunter.getGold());
+        int kit = kitBits(hunter);
+        return moveValues[(gold * kits + kit) * TREASURE_SETS];
+    }
+
+    /**
+     * @param hunter The Hunter being played.
+     * @param town The Town the hunter is in.
+     * @return The best action for that state: LOOK, DIG, HUNT, MOVE, BUY + item or BUY + items + item (sell).
+     */
+    public byte bestAction(Hunter hunter, Town town) {
+        int gold = Math.max(0, Math.min(goldCap, hunter.getGold()));
+        int treasures = 0;
+        for (int i = 0; i < TREASURE_KINDS; i++) {
+            if (hunter.hasTreasure(Town.TREASURES[i])) {
+                treasures |= 1 << i;
+            }
+        }
+        // a terrain from outside the catalog (an old saved game's) is treated like the first one
+        int terrain = Math.max(0, town.getTerrain().getId());
+        int slot = SEARCHED;
+        if (!town.isTreasureFound()) {
+            slot = 0;
+            while (slot < TREASURE_KINDS - 1 && !Town.TREASURES[slot].equals(town.getTreasure())) {
+                slot++;
+            }
+        }
+        int tough = town.isToughTown() ? 1 : 0;
+        return policy[index(gold, kitBits(hunter), treasures, terrain, tough, slot)];
+    }
+
+    /**
+     * @return How many items the solver keeps track of; buy actions are BUY + item and sell actions BUY + items + item.
+     */
+    public int getItemCount() {
+        return itemIds.length;
+    }
+
+    /**
+     * @param item The solver's number for an item, from 0 to getItemCount() - 1.
+     * @return The item's name.
+     */
+    public String getItemName(int item) {
+        return ItemCatalog.nameOf(itemIds[item]);
+    }
+
+    /**
+     * Writes the policy table: a header describing the state layout, then one action byte per state.
+     *
+     * @param file Where to write it.
+     * @throws IOException if the file can't be written.
+     */
+    public void writePolicy(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+             DataOutputStream data = new DataOutputStream(out)) {
+            data.writeInt(POLICY_MAGIC);
+            data.writeShort(1);
+            data.writeUTF(mode.name());
+            data.writeInt(goldCap);
+            data.writeByte(itemIds.length);
+            for (int id : itemIds) {
+                data.writeUTF(ItemCatalog.nameOf(id));
+            }
+            data.writeByte(TREASURE_KINDS);
+            data.writeByte(TERRAINS);
+            data.writeInt(policy.length);
+            data.write(policy);
+        }
+    }
+
+    private void computeMoveValues(int gold, int kit) {
+        double toughChance = rules.getToughness();
+        double slotChance = 1.0 / TREASURE_KINDS;
+        for (int treasures = 0; treasures < ALL_TREASURES; treasures++) {
+            int base = gold * goldStride + kit * KIT_STRIDE + treasures * TREASURE_STRIDE;
+            double sum = 0;
+            for (int terrain = 0; terrain < TERRAINS; terrain++) {
+                int town = base + terrain * TERRAIN_STRIDE;
+                double mild = 0;
+                double tough = 0;
+                for (int slot = 0; slot < TREASURE_KINDS; slot++) {
+                    mild += values[town + slot];
+                    tough += values[town + TOUGH_STRIDE + slot];
+                }
+                sum += terrainChances[terrain] * slotChance * ((1 - toughChance) * mild + toughChance * tough);
+            }
+            moveValues[(gold * kits + kit) * TREASURE_SETS + treasures] = sum;
+        }
+    }
+
+    /**
+     * Works out every state with this much gold and this kit into levelValues and returns the
+     * biggest change; values itself is left alone until all the kits are done.<p>
+     * Looking for trouble and digging can leave the state as it was ("you couldn't find any trouble").
+     * The best action in a state never changes between visits, so the player would just try again;
+     * those outcomes are left out and the rest are scaled up to make up for them.
+     */
+    private double sweep(int gold, int kit) {
+        double change = 0;
+        boolean hasSword = swordBit >= 0 && (kit & (1 << swordBit)) != 0;
+        boolean hasShovel = shovelBit >= 0 && (kit & (1 << shovelBit)) != 0;
+        for (int treasures = 0; treasures < ALL_TREASURES; treasures++) {
+            int move = (gold * kits + kit) * TREASURE_SETS + treasures;
+            for (int terrain = 0; terrain < TERRAINS; terrain++) {
+                for (int tough = 0; tough < 2; tough++) {
+                    for (int slot = 0; slot < SLOTS; slot++) {
+                        int state = index(gold, kit, treasures, terrain, tough, slot);
+                        double best = -1;
+                        byte bestAction = LOOK;
+
+                        // hunt for treasure
+                        if (slot != SEARCHED) {
+                            int found = treasures | (1 << slot);
+                            double value;
+                            if (found == ALL_TREASURES) {
+                                value = 1;
+                            } else {
+                                value = DISCOUNT * values[index(gold, kit, found, terrain, tough, SEARCHED)];
+                            }
+                            if (value > best) {
+                                best = value;
+                                bestAction = HUNT;
+                            }
+                        }
+
+                        // move on to a new town
+                        int needed = terrainBits[terrain];
+                        if (needed >= 0 && (kit & (1 << needed)) != 0) {
+                            double value = moveValues[move];
+                            if (itemsBreak) {
+                                int brokenKit = kit & ~(1 << needed);
+                                double breakChance = rules.getItemBreakChance();
+                                value = (1 - breakChance) * value
+                                        + breakChance * moveValues[(gold * kits + brokenKit) * TREASURE_SETS + treasures];
+                            }
+                            value *= DISCOUNT;
+                            if (value > best) {
+                                best = value;
+                                bestAction = MOVE;
+                            }
+                        }
+
+                        // buy or sell an item; with a sword the shop hands over nothing
+                        for (int item = 0; item < itemIds.length; item++) {
+                            int bit = 1 << item;
+                            if ((kit & bit) == 0) {
+                                int price = buyPrices[item];
+                                if (!hasSword && price != -1 && gold >= price) {
+                                    double value = DISCOUNT * values[index(gold - price, kit | bit, treasures, terrain, tough, slot)];
+                                    if (value > best) {
+                                        best = value;
+                                        bestAction = (byte) (BUY + item);
+                                    }
+                                }
+                            } else if (sellPrices[item] > 0) {
+                                int newGold = Math.min(goldCap, gold + sellPrices[item]);
+                                double value = DISCOUNT * values[index(newGold, kit & ~bit, treasures, terrain, tough, slot)];
+                                if (value > best) {
+                                    best = value;
+                                    bestAction = (byte) (BUY + itemIds.length + item);
+                                }
+                            }
+                        }
+
+                        // dig for gold
+                        if (hasShovel && gold < goldCap) {
+                            int choices = rules.getDigGoldChoices();
+                            double goldChance = rules.getDigChance() / choices;
+                            double found = 0;
+                            for (int g = 1; g < choices; g++) {
+                                found += goldChance * values[state + (Math.min(goldCap, gold + g) - gold) * goldStride];
+                            }
+                            double value = settle(found, 1 - goldChance * (choices - 1));
+                            if (value > best) {
+                                best = value;
+                                bestAction = DIG;
+                            }
+                        }
+
+                        // look for trouble
+                        // Town.lookForTrouble() finds a fight when the roll is under its "no trouble" chance
+                        double fight = tough == 1 ? rules.getToughNoTroubleChance() : rules.getNoTroubleChance();
+                        int maxBrawlGold = rules.getMaxBrawlGold();
+                        double wonChance = hasSword ? fight : fight * (1 - fight);
+                        double lostChance = hasSword ? 0 : fight * fight;
+                        double selfChance = 1 - fight;
+                        double other = 0;
+                        for (int g = 1; g <= maxBrawlGold; g++) {
+                            if (gold == goldCap) {
+                                selfChance += wonChance / maxBrawlGold;
+                            } else {
+                                other += wonChance / maxBrawlGold * values[state + (Math.min(goldCap, gold + g) - gold) * goldStride];
+                            }
+                            if (gold - g >= 0) {
+                                other += lostChance / maxBrawlGold * values[state - g * goldStride];
+                            }
+                        }
+                        double look = settle(other, selfChance);
+                        if (look > best) {
+                            best = look;
+                            bestAction = LOOK;
+                        }
+                        if (best < 0) {
+                            // nothing to do here but wait; it can never be won from this state
+                            best = 0;
+                        }
+
+                        change = Math.max(change, Math.abs(best - values[state]));
+                        levelValues[state - gold * goldStride] = best;
+                        policy[state] = bestAction;
+                    }
+                }
+            }
+        }
+        return change;
+    }
+
+    /**
+     * @return The value of an action that leaves the state as it was with chance selfChance
+     *         and is tried again until it doesn't, given the other outcomes' weighted values.
+     */
+    private static double settle(double other, double selfChance) {
+        return DISCOUNT * other / (1 - DISCOUNT * selfChance);
+    }
+
+    private int index(int gold, int kit, int treasures, int terrain, int tough, int slot) {
+        return gold * goldStride + kit * KIT_STRIDE + treasures * TREASURE_STRIDE
+                + terrain * TERRAIN_STRIDE + tough * TOUGH_STRIDE + slot;
+    }
+
+    private int kitBits(Hunter hunter) {
+        int kit = 0;
+        for (int item = 0; item < itemIds.length; item++) {
+            if (hunter.hasItemInKit(itemIds[item])) {
+                kit |= 1 << item;
+            }
+        }
+        return kit;
+    }
+
+    private int bitOf(int id) {
+        for (int item = 0; item < itemIds.length; item++) {
+            if (itemIds[item] == id) {
+                return item;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+
+/**
+ * One message from the MessageCatalog, already split into the pieces it is shown in.<p>
+ * The text is read once, when the catalog is loaded: every run of plain text becomes one
+ * String with its color, and every {slot} becomes a marker saying what goes there. Showing the
+ * message just hands those pieces to the OutputSink in order, so the only text built per turn
+ * is the gold amount, which the sink writes straight into its own buffer (see OutputSink.addNumber()).
+ */
+
+public class Message {
+    // constants
+    private static final byte TEXT = 0;
+    private static final byte NAME = 1;
+    private static final byte GOLD = 2;
+    private static final byte ITEM = 3;
+    private static final byte TERRAIN = 4;
+    private static final String[] SLOT_NAMES = {null, "{name}", "{gold}", "{item}", "{terrain}"};
+
+    // instance variables
+    private String key;
+    private String[] texts;
+    private byte[] slots;
+    private TextColor[] colors;
+
+    /**
+     * Compiles a message from its text in the catalog.
+     *
+     * @param key The message's name, for error messages.
+     * @param template The text, with [color] changes, {slot}s and \n for new lines.
+     */
+    public Message(String key, String template) {
+        this.key = key;
+        ArrayList<String> textList = new ArrayList<String>();
+        ArrayList<Byte> slotList = new ArrayList<Byte>();
+        ArrayList<TextColor> colorList = new ArrayList<TextColor>();
+        StringBuilder run = new StringBuilder();
+        TextColor color = TextColor.BLACK;
+
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '\\' && i + 1 < template.length() && template.charAt(i + 1) == 'n') {
+                run.append('\n');
+                i += 2;
+            } else if (c == '[' || c == '{') {
+                int end = template.indexOf(c == '[' ? ']' : '}', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed " + c + " in message " + key);
+                }
+                String tag = template.substring(i, end + 1);
+                addRun(run, color, textList, slotList, colorList);
+                if (c == '[') {
+                    color = colorOf(tag);
+                } else {
+                    textList.add(null);
+                    slotList.add((byte) indexOf(SLOT_NAMES, tag));
+                    colorList.add(color);
+                }
+                i = end + 1;
+            } else {
+                run.append(c);
+                i++;
+            }
+        }
+        addRun(run, color, textList, slotList, colorList);
+
+        texts = textList.toArray(new String[0]);
+        colors = colorList.toArray(new TextColor[0]);
+        slots = new byte[slotList.size()];
+        for (int s = 0; s < slots.length; s++) {
+            slots[s] = slotList.get(s);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Shows a message that has no slots.
+     *
+     * @param out Where to show it.
+     */
+    public void show(OutputSink out) {
+        show(out, null, 0, null, null);
+    }
+
+    /**
+     * Shows a message with a {gold} slot.
+     *
+     * @param out Where to show it.
+     * @param gold The amount of gold to fill in.
+     */
+    public void showGold(OutputSink out, int gold) {
+        show(out, null, gold, null, null);
+    }
+
+    /**
+     * Shows a message with an {item} slot.
+     *
+     * @param out Where to show it.
+     * @param item The item to fill in.
+     */
+    public void showItem(OutputSink out, String item) {
+        show(out, null, 0, item, null);
+    }
+
+    /**
+     * Shows a message, filling in its slots; slots the message doesn't have are ignored.
+     *
+     * @param out Where to show it.
+     * @param name The hunter's name, for {name}.
+     * @param gold An amount of gold, for {gold}.
+     * @param item An item or treasure, for {item}.
+     * @param terrain A terrain, for {terrain}.
+     */
+    public void show(OutputSink out, String name, int gold, String item, String terrain) {
+        if (!out.isEnabled()) {
+            return;
+        }
+        for (int i = 0; i < texts.length; i++) {
+            switch (slots[i]) {
+                case NAME:
+                    out.addTextToWindow(name, colors[i]);
+                    break;
+                case GOLD:
+                    out.addNumber(gold, colors[i]);
+                    break;
+                case ITEM:
+                    out.addTextToWindow(item, colors[i]);
+                    break;
+                case TERRAIN:
+                    out.addTextToWindow(terrain, colors[i]);
+                    break;
+                default:
+                    out.addTextToWindow(texts[i], colors[i]);
+            }
+        }
+    }
+
+    private void addRun(StringBuilder run, TextColor color, ArrayList<String> textList,
+                        ArrayList<Byte> slotList, ArrayList<TextColor> colorList) {
+        if (run.length() > 0) {
+            textList.add(run.toString());
+            slotList.add(TEXT);
+            colorList.add(color);
+            run.setLength(0);
+        }
+    }
+
+    private TextColor colorOf(String tag) {
+        for (TextColor color : TextColor.values()) {
+            if (tag.equals("[" + color.name().toLowerCase() + "]")) {
+                return color;
+            }
+        }
+        throw new IllegalArgumentException("Unknown color " + tag + " in message " + key);
+    }
+
+    private int indexOf(String[] names, String tag) {
+        for (int i = 0; i < names.length; i++) {
+            if (tag.equals(names[i])) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + tag + " in message " + key);
+    }
+}
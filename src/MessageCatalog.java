@@ -0,0 +1,75 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * Every message the towns and shops show, loaded and compiled once from messages.txt.<p>
+ * With -Dtreasurehunter.language=xx the messages come from messages_xx.txt instead, and any
+ * message missing from it falls back to the one in messages.txt.
+ * Classes look their messages up once and keep them in constants, so a missing message
+ * shows up as soon as the class is loaded instead of in the middle of a game.
+ */
+
+public class MessageCatalog {
+    // constants
+    private static final String CATALOG_FILE = "messages.txt";
+
+    // static variables
+    private static final HashMap<String, Message> MESSAGES = new HashMap<String, Message>();
+
+    static {
+        load(CATALOG_FILE, true);
+        String language = System.getProperty("treasurehunter.language");
+        if (language != null) {
+            load("messages_" + language + ".txt", false);
+        }
+    }
+
+    private MessageCatalog() {
+    }
+
+    /**
+     * @param key The message's name, like "town.welcome".
+     * @return The compiled message.
+     */
+    public static Message get(String key) {
+        Message message = MESSAGES.get(key);
+        if (message == null) {
+            throw new IllegalStateException("There is no message called " + key + " in " + CATALOG_FILE);
+        }
+        return message;
+    }
+
+    private static void load(String file, boolean required) {
+        InputStream in = MessageCatalog.class.getResourceAsStream(file);
+        if (in == null) {
+            if (required) {
+                throw new IllegalStateException(file + " is missing from the classpath");
+            }
+            System.err.println(file + " is missing, so the messages will be in English");
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                int equals = line.indexOf('=');
+                if (!line.trim().isEmpty() && !line.startsWith("#") && equals > 0) {
+                    String key = line.substring(0, equals).trim();
+                    // only one space after the = belongs to the format; the rest is part of the message
+                    String text = line.substring(equals + 1);
+                    if (text.startsWith(" ")) {
+                        text = text.substring(1);
+                    }
+                    MESSAGES.put(key, new Message(key, text));
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read " + file, e);
+        }
+    }
+}
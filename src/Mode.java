@@ -0,0 +1,123 @@
+/**
+ * The difficulty modes a player can pick at the start of the game.<p>
+ * Each mode knows how much gold the hunter starts with, how much of an item's price the shop
+ * gives back when selling, and how likely each town is to be a tough one. Those built-in numbers,
+ * together with the odds in Town, make the mode's built-in Rules; a ruleset file loaded with
+ * -Dtreasurehunter.rules (see Ruleset) can replace them, and the getters return whatever is in use.<p>
+ * Files that keep a mode as a number (like the Leaderboard's) use its id, which never changes,
+ * rather than its ordinal; a new mode gets the next id that hasn't been used.
+ */
+
+public enum Mode {
+    EASY(0, "e", 20, 1, .25, false),
+    NORMAL(1, "n", 10, 0.5, 0.4, false),
+    HARD(2, "h", 10, 0.25, 0.75, false),
+    SAMURAI(3, "s", 10, 0.5, .8, true),
+    TEST(4, "test", 100, 0.5, 0.4, false);
+
+    // instance variables
+    private final int id;
+    private final String choice;
+    private final int startingGold;
+    private final double markdown;
+    private final double toughness;
+    private final boolean samurai;
+
+    Mode(int id, String choice, int startingGold, double markdown, double toughness, boolean samurai) {
+        this.id = id;
+        this.choice = choice;
+        this.startingGold = startingGold;
+        this.markdown = markdown;
+        this.toughness = toughness;
+        this.samurai = samurai;
+    }
+
+    /**
+     * Finds the mode the player asked for; anything that isn't a known mode is normal mode.
+     *
+     * @param choice What the player typed, in lower case.
+     * @return The matching Mode.
+     */
+    public static Mode fromChoice(String choice) {
+        for (Mode mode : values()) {
+            if (mode.choice.equals(choice)) {
+                return mode;
+            }
+        }
+        return NORMAL;
+    }
+
+    /**
+     * @param id A mode's id, as stored in a file.
+     * @return The mode with that id, or null if there isn't one.
+     */
+    public static Mode fromId(int id) {
+        for (Mode mode : values()) {
+            if (mode.id == id) {
+                return mode;
+            }
+        }
+        return null;
+    }
+
+    // accessors
+    public int getId() {
+        return id;
+    }
+
+    public String getChoice() {
+        return choice;
+    }
+
+    /**
+     * @return The rules this mode is being played by.
+     */
+    public Rules getRules() {
+        return Ruleset.current().forMode(this);
+    }
+
+    /**
+     * @return The rules this mode has when no ruleset file is loaded.
+     */
+    public Rules getBuiltInRules() {
+        double[] values = new double[Rule.values().length];
+        values[Rule.STARTING_GOLD.ordinal()] = startingGold;
+        values[Rule.MARKDOWN.ordinal()] = markdown;
+        values[Rule.TOUGHNESS.ordinal()] = toughness;
+        values[Rule.PRICE_SCALE.ordinal()] = 1;
+        values[Rule.NO_TROUBLE_CHANCE.ordinal()] = Town.NO_TROUBLE_CHANCE;
+        values[Rule.TOUGH_NO_TROUBLE_CHANCE.ordinal()] = Town.TOUGH_NO_TROUBLE_CHANCE;
+        values[Rule.MAX_BRAWL_GOLD.ordinal()] = Town.MAX_BRAWL_GOLD;
+        values[Rule.DIG_CHANCE.ordinal()] = Town.DIG_CHANCE;
+        values[Rule.DIG_GOLD_CHOICES.ordinal()] = Town.DIG_GOLD_CHOICES;
+        // items never break in the gentlest towns
+        values[Rule.ITEM_BREAK_CHANCE.ordinal()] = toughness == Town.NO_BREAK_TOUGHNESS ? 0 : Town.ITEM_BREAK_CHANCE;
+        return new Rules(values);
+    }
+
+    public int getStartingGold() {
+        return getRules().getStartingGold();
+    }
+
+    public double getMarkdown() {
+        return getRules().getMarkdown();
+    }
+
+    public double getToughness() {
+        return getRules().getToughness();
+    }
+
+    public boolean isSamurai() {
+        return samurai;
+    }
+
+    /**
+     * Creates the hunter a player gets when starting in this mode.
+     *
+     * @param name The hunter's name.
+     * @return The new Hunter.
+     */
+    public Hunter createHunter(String name) {
+        return getRules().createHunter(name, samurai);
+    }
+}
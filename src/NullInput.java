@@ -0,0 +1,19 @@
+/**
+ * An InputSource for games that nobody is typing into.<p>
+ * Every question gets an empty answer and "Press Enter to Continue" returns right away.
+ */
+
+public class NullInput implements InputSource {
+    // static variables
+    public static final NullInput INSTANCE = new NullInput();
+
+    private NullInput() {
+    }
+
+    public String nextLine() {
+        return "";
+    }
+
+    public void waitForEnter() {
+    }
+}
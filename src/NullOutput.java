@@ -0,0 +1,28 @@
+/**
+ * An OutputSink that throws away everything it is given.<p>
+ * Used when games are played without anyone watching, like in the simulator.
+ */
+
+public class NullOutput implements OutputSink {
+    // static variables
+    public static final NullOutput INSTANCE = new NullOutput();
+
+    private NullOutput() {
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+    }
+
+    public void addNumber(int number, TextColor color) {
+    }
+
+    public void clear() {
+    }
+
+    public void flush() {
+    }
+
+    public boolean isEnabled() {
+        return false;
+    }
+}
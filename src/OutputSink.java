@@ -0,0 +1,47 @@
+/**
+ * Anything the game can print its messages to.<p>
+ * The Town, Shop and TreasureHunter classes only talk to this interface, so the game
+ * can be shown in a window or run with no display at all.
+ */
+
+public interface OutputSink {
+    /**
+     * Adds a piece of text to the end of the output.
+     *
+     * @param text The text to add.
+     * @param color The color to show the text in.
+     */
+    void addTextToWindow(String text, TextColor color);
+
+    /**
+     * Adds a number to the end of the output; sinks can write the digits straight into their
+     * own buffer instead of making a String for them.
+     *
+     * @param number The number to add.
+     * @param color The color to show it in.
+     */
+    default void addNumber(int number, TextColor color) {
+        addTextToWindow(Integer.toString(number), color);
+    }
+
+    /**
+     * Removes everything that has been shown so far.
+     */
+    void clear();
+
+    /**
+     * Makes sure everything added so far is actually shown.<p>
+     * Sinks may hold text back and show it in batches; the game calls this once per turn,
+     * right before it waits for the player to type something.
+     */
+    void flush();
+
+    /**
+     * Lets the game skip building text that nobody will see.
+     *
+     * @return false if everything added to this sink is thrown away.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
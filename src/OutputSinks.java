@@ -0,0 +1,60 @@
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Makes the OutputSink for each way of showing the game.<p>
+ * OutputWindow is only ever named as a String here, so its class (and with it AWT and Swing,
+ * which take hundreds of milliseconds to load and can't run on a machine with no display) is
+ * only loaded when the window is actually asked for.
+ */
+
+public class OutputSinks {
+    // constants
+    public static final String SWING = "swing";
+    public static final String TERMINAL = "terminal";
+    public static final String NONE = "none";
+    private static final String WINDOW_CLASS = "OutputWindow";
+
+    private OutputSinks() {
+    }
+
+    /**
+     * @param kind SWING, TERMINAL or NONE.
+     * @return A new sink of that kind; the window falls back to the terminal if it can't be opened.
+     */
+    public static OutputSink create(String kind) {
+        if (kind.equals(SWING)) {
+            return window();
+        } else if (kind.equals(TERMINAL)) {
+            return new TerminalOutput();
+        } else if (kind.equals(NONE)) {
+            return NullOutput.INSTANCE;
+        }
+        throw new IllegalArgumentException("Unknown output " + kind + "; use swing, terminal or none");
+    }
+
+    /**
+     * Opens the game window, or shows the game in the terminal instead if there is no display.
+     *
+     * @return The sink.
+     */
+    public static OutputSink window() {
+        return window(0);
+    }
+
+    /**
+     * Opens the game window, or shows the game in the terminal instead if there is no display.
+     *
+     * @param scrollbackLines How many lines the window keeps to scroll back through, or 0 to wipe it every turn.
+     * @return The sink.
+     */
+    public static OutputSink window(int scrollbackLines) {
+        try {
+            return (OutputSink) Class.forName(WINDOW_CLASS).getConstructor(int.class).newInstance(scrollbackLines);
+        } catch (InvocationTargetException e) {
+            System.err.println("Couldn't open the game window (" + e.getCause() + "), using the terminal instead");
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("The game window isn't available (" + e + "), using the terminal instead");
+        }
+        return new TerminalOutput();
+    }
+}
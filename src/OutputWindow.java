@@ -1,38 +1,314 @@
 import java.awt.Color;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JFrame;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
-import javax.swing.text.StyledDocument;
 
-public class OutputWindow {
+/**
+ * Shows the game's text in a window.<p>
+ * Text is not put on screen right away. Pieces with the same color are joined into runs and kept
+ * until flush() is called (once per turn, before the game waits for input). The whole turn is then
+ * handed to the Swing event thread and added to the document in one batch, so the window only
+ * lays itself out once per turn instead of once per piece of text.<p>
+ * In scrollback mode clear() doesn't wipe anything. Finished lines go into a Scrollback ring of
+ * a fixed size instead, and the window only ever holds the lines that fit on screen, so drawing a
+ * turn costs the same and the memory used stays the same however long the game goes on.
+ * Page Up, Page Down, the arrow keys and the mouse wheel scroll back through the older lines.
+ */
 
-    private StyledDocument doc;
+public class OutputWindow implements OutputSink {
+
+    private BatchDocument doc;
     private Style style;
     private JTextPane textPane;
 
+    // text waiting for the next flush; only touched by the game's thread
+    private ArrayList<String> pendingText = new ArrayList<String>();
+    private ArrayList<TextColor> pendingColors = new ArrayList<TextColor>();
+    private StringBuilder currentRun = new StringBuilder();
+    private TextColor currentColor = null;
+    private boolean pendingClear = false;
+
+    // one style per color; only touched by the event thread
+    private AttributeSet[] colorStyles = new AttributeSet[TextColor.values().length];
+
+    // scrollback mode: null when every clear() wipes the window
+    private Scrollback scrollback;
+    // the line being built; only touched by the game's thread
+    private StyledLineBuilder line = new StyledLineBuilder();
+    // the unfinished line as of the last flush (usually the question being asked)
+    private volatile StyledLine openLine = StyledLine.EMPTY;
+    private AtomicBoolean renderPending = new AtomicBoolean();
+    private volatile boolean followOutput = true;
+    // how many lines up from the bottom the player has scrolled; only touched by the event thread
+    private int scrollOffset = 0;
+
+    /**
+     * Opens a window that is wiped every time the game calls clear().
+     */
     public OutputWindow() {
+        this(0);
+    }
+
+    /**
+     * @param scrollbackLines How many lines to keep for scrolling back through, or 0 to wipe the
+     *                        window every time the game calls clear().
+     */
+    public OutputWindow(int scrollbackLines) {
+        if (scrollbackLines > 0) {
+            scrollback = new Scrollback(scrollbackLines);
+        }
+        try {
+            SwingUtilities.invokeAndWait(() -> createWindow());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not open the game window", e);
+        }
+    }
+
+    private void createWindow() {
         JFrame frame = new JFrame("Test");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE); // causes program to end when window is X'd out
         frame.setSize(500, 400); // window size
         frame.setLocation(300, 50); // where on screen window appears
-        textPane = new JTextPane(); // panel that can handle custom text
+        doc = new BatchDocument(); // document that can take a whole turn of text at once
+        textPane = new JTextPane(doc); // panel that can handle custom text
         textPane.setEditable(false); // prevents user from typing into window
-        doc = textPane.getStyledDocument(); // call getter method for panel's style doc
         style = doc.addStyle("my style", null); // add a custom style to the doc
         StyleConstants.setFontSize(style, 20); // apply font size to custom style
         frame.add(textPane); // add the panel to the frame
+        if (scrollback != null) {
+            listenForScrolling();
+        }
         frame.setVisible(true); // display the frame on screen
     }
 
-    public void addTextToWindow(String text, Color color) {
-        StyleConstants.setForeground(style, color); // apply color to custom style
+    public void addTextToWindow(String text, TextColor color) {
+        if (scrollback != null) {
+            int start = 0;
+            int newline = text.indexOf('\n');
+            while (newline >= 0) {
+                line.append(text, start, newline, color);
+                endLine();
+                start = newline + 1;
+                newline = text.indexOf('\n', start);
+            }
+            line.append(text, start, text.length(), color);
+            return;
+        }
+        if (color != currentColor) {
+            endRun();
+            currentColor = color;
+        }
+        currentRun.append(text);
+    }
+
+    public void addNumber(int number, TextColor color) {
+        if (scrollback != null) {
+            line.appendNumber(number, color);
+            return;
+        }
+        if (color != currentColor) {
+            endRun();
+            currentColor = color;
+        }
+        currentRun.append(number);
+    }
+
+    public void clear() {
+        if (scrollback != null) {
+            // keep everything, but leave a blank line between turns
+            if (!line.isEmpty()) {
+                endLine();
+            }
+            StyledLine last = scrollback.last();
+            if (last != null && !last.getText().isEmpty()) {
+                scrollback.add(StyledLine.EMPTY);
+            }
+            return;
+        }
+        // anything not shown yet would be wiped anyway, so just forget it
+        pendingText.clear();
+        pendingColors.clear();
+        currentRun.setLength(0);
+        currentColor = null;
+        pendingClear = true;
+    }
+
+    /**
+     * Sends everything added since the last flush to the window in one batch on the Swing event thread.
+     */
+    public void flush() {
+        if (scrollback != null) {
+            openLine = line.build();
+            followOutput = true;
+            // one redraw is enough however many flushes happen before the event thread gets to it
+            if (renderPending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> render());
+            }
+            return;
+        }
+        endRun();
+        if (!pendingClear && pendingText.isEmpty()) {
+            return;
+        }
+
+        boolean clearFirst = pendingClear;
+        ArrayList<String> texts = pendingText;
+        ArrayList<TextColor> colors = pendingColors;
+        pendingText = new ArrayList<String>();
+        pendingColors = new ArrayList<TextColor>();
+        pendingClear = false;
+        SwingUtilities.invokeLater(() -> showBatch(clearFirst, texts, colors));
+    }
+
+    private void endRun() {
+        if (currentRun.length() > 0) {
+            pendingText.add(currentRun.toString());
+            pendingColors.add(currentColor);
+            currentRun.setLength(0);
+        }
+    }
+
+    private void showBatch(boolean clearFirst, ArrayList<String> texts, ArrayList<TextColor> colors) {
         try {
-            doc.insertString(doc.getLength(), text, style); } // insert text at end the panel
+            if (clearFirst) {
+                doc.remove(0, doc.getLength()); // empty the panel to "reset it"
+            }
+            for (int i = 0; i < texts.size(); i++) {
+                doc.appendBatchString(texts.get(i), styleFor(colors.get(i)));
+            }
+            doc.processBatchUpdates(); // insert the whole turn at the end of the panel
+        }
         catch (Exception e) { }
     }
 
-    public void clear() {
-        textPane.setText("");  // set panel's text to empty string to "reset it"
+    /**
+     * Moves the line being built into the scrollback and starts a new one.
+     */
+    private void endLine() {
+        scrollback.add(line.build());
+        line.reset();
+    }
+
+    /**
+     * Redraws the window from the scrollback: only the lines that fit on screen go into the document.
+     */
+    private void render() {
+        renderPending.set(false);
+        if (followOutput) {
+            scrollOffset = 0;
+            followOutput = false;
+        }
+        int rows = visibleRows();
+        StyledLine open = openLine;
+        boolean showOpen = scrollOffset == 0 && !open.getText().isEmpty();
+        StyledLine[] lines = scrollback.window(scrollOffset, showOpen ? rows - 1 : rows);
+        try {
+            doc.remove(0, doc.getLength());
+            for (int i = 0; i < lines.length; i++) {
+                if (i > 0) {
+                    doc.appendBatchLineBreak(styleFor(TextColor.BLACK));
+                }
+                appendLine(lines[i]);
+            }
+            if (showOpen) {
+                if (lines.length > 0) {
+                    doc.appendBatchLineBreak(styleFor(TextColor.BLACK));
+                }
+                appendLine(open);
+            }
+            doc.processBatchUpdates();
+        }
+        catch (Exception e) { }
+    }
+
+    private void appendLine(StyledLine shown) {
+        for (int run = 0; run < shown.getRunCount(); run++) {
+            doc.appendBatchString(shown.getText(), shown.getRunStart(run), shown.getRunEnd(run),
+                    styleFor(shown.getRunColor(run)));
+        }
+    }
+
+    /**
+     * @return How many lines of text fit in the window at its current size.
+     */
+    private int visibleRows() {
+        int lineHeight = textPane.getFontMetrics(textPane.getFont().deriveFont((float) StyleConstants.getFontSize(style))).getHeight();
+        return Math.max(1, textPane.getHeight() / Math.max(1, lineHeight));
+    }
+
+    private void listenForScrolling() {
+        textPane.addMouseWheelListener(e -> scrollBy(-e.getWheelRotation() * 3));
+        textPane.addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                int page = Math.max(1, visibleRows() - 1);
+                if (e.getKeyCode() == KeyEvent.VK_PAGE_UP) {
+                    scrollBy(page);
+                } else if (e.getKeyCode() == KeyEvent.VK_PAGE_DOWN) {
+                    scrollBy(-page);
+                } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+                    scrollBy(1);
+                } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+                    scrollBy(-1);
+                }
+            }
+        });
+        textPane.addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                render();
+            }
+        });
+    }
+
+    /**
+     * Scrolls up (positive) or down (negative) by some lines; only called on the event thread.
+     */
+    private void scrollBy(int lines) {
+        int most = Math.max(0, scrollback.size() - visibleRows() + 1);
+        scrollOffset = Math.max(0, Math.min(most, scrollOffset + lines));
+        render();
+    }
+
+    private AttributeSet styleFor(TextColor color) {
+        AttributeSet attributes = colorStyles[color.ordinal()];
+        if (attributes == null) {
+            SimpleAttributeSet colored = new SimpleAttributeSet(style);
+            StyleConstants.setForeground(colored, awtColor(color)); // apply color to custom style
+            attributes = colored.copyAttributes();
+            colorStyles[color.ordinal()] = attributes;
+        }
+        return attributes;
+    }
+
+    private static Color awtColor(TextColor color) {
+        switch (color) {
+            case RED:
+                return Color.RED;
+            case GREEN:
+                return Color.GREEN;
+            case YELLOW:
+                return Color.YELLOW;
+            case BLUE:
+                return Color.BLUE;
+            case PINK:
+                return Color.PINK;
+            case MAGENTA:
+                return Color.MAGENTA;
+            case CYAN:
+                return Color.CYAN;
+            case WHITE:
+                return Color.WHITE;
+            default:
+                return Color.BLACK;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Keeps games whose players have gone idle outside the Java heap, 64 bytes each, until they are
+ * resumed.<p>
+ * A parked game is a fixed-size slot in a direct ByteBuffer: the mode and three flags in one
+ * byte, the terrain's catalog id, the treasure's index and the name's length in three more, then
+ * the gold, the seed, the random number state, the kit and the treasures found as bit masks, the
+ * turn count and the name. That is everything a GameSnapshot holds, with the Strings replaced by their ids, so
+ * a million parked games take 64 MB of native memory and nothing the garbage collector has to
+ * look at. Slots come in chunks of CHUNK_SLOTS and freed ones are reused.<p>
+ * A game that doesn't fit a slot (a name over NAME_BYTES bytes, or a terrain or treasure from
+ * outside the catalogs) is kept as an ordinary GameSnapshot on the heap instead; its handle is
+ * negative, counting down from -1 (so it never reaches NO_GAME in practice).
+ */
+
+public class ParkedGames {
+    // constants
+    // never a handle, for "no parked game"
+    public static final int NO_GAME = Integer.MIN_VALUE;
+    public static final int SLOT_SIZE = 64;
+    public static final int NAME_BYTES = 20;
+    private static final int CHUNK_SLOTS = 1 << 14;
+    private static final int CHUNK_SHIFT = 14;
+    private static final int FLAGS = 0;
+    private static final int TERRAIN = 1;
+    private static final int TREASURE = 2;
+    private static final int NAME_LENGTH = 3;
+    private static final int GOLD = 4;
+    private static final int SEED = 8;
+    private static final int RANDOM_STATE = 16;
+    private static final int KIT = 24;
+    private static final int TREASURES_FOUND = 32;
+    private static final int TURN = 40;
+    private static final int NAME = 44;
+    private static final int MODE_MASK = 0x7;
+    private static final int SAMURAI = 0x8;
+    private static final int TOUGH = 0x10;
+    private static final int SEARCHED = 0x20;
+
+    // instance variables
+    private ArrayList<ByteBuffer> chunks;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotsUsed;
+    private HashMap<Integer, byte[]> overflow;
+    private int nextOverflow;
+    private byte[] nameBytes;
+
+    public ParkedGames() {
+        chunks = new ArrayList<ByteBuffer>();
+        freeSlots = new int[CHUNK_SLOTS];
+        overflow = new HashMap<Integer, byte[]>();
+        nameBytes = new byte[NAME_BYTES];
+    }
+
+    /**
+     * Copies a game out of the heap; the TreasureHunter (and its Hunter, Town and Shop) can then be thrown away.
+     *
+     * @param game The game, which must have been started.
+     * @return The handle to get it back with.
+     */
+    public synchronized int park(TreasureHunter game) {
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+        int treasure = treasureIndex(town.getTreasure());
+        byte[] name = hunter.getName().getBytes(StandardCharsets.UTF_8);
+        long kit = bitsOf(hunter.getKit());
+        long found = bitsOf(hunter.getCollectedTreasure());
+        int terrain = town.getTerrain().getId();
+        if (name.length > NAME_BYTES || treasure < 0 || terrain < 0 || terrain > 0xff || kit == -1 || found == -1) {
+            return parkOnHeap(game);
+        }
+
+        int slot = newSlot();
+        ByteBuffer chunk = chunks.get(slot >>> CHUNK_SHIFT);
+        int at = (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+        int flags = game.getMode().ordinal();
+        if (hunter.getIsSamurai()) {
+            flags |= SAMURAI;
+        }
+        if (town.isToughTown()) {
+            flags |= TOUGH;
+        }
+        if (town.isTreasureFound()) {
+            flags |= SEARCHED;
+        }
+        chunk.put(at + FLAGS, (byte) flags);
+        chunk.put(at + TERRAIN, (byte) terrain);
+        chunk.put(at + TREASURE, (byte) treasure);
+        chunk.put(at + NAME_LENGTH, (byte) name.length);
+        chunk.putInt(at + GOLD, hunter.getGold());
+        chunk.putLong(at + SEED, game.getSeed());
+        chunk.putLong(at + RANDOM_STATE, game.getRandom().getState());
+        chunk.putLong(at + KIT, kit);
+        chunk.putLong(at + TREASURES_FOUND, found);
+        chunk.putInt(at + TURN, game.getTurn());
+        for (int i = 0; i < name.length; i++) {
+            chunk.put(at + NAME + i, name[i]);
+        }
+        return slot;
+    }
+
+    /**
+     * Puts a parked game back into a TreasureHunter (see TreasureHunter.restore()) and frees its slot.
+     *
+     * @param handle What park() returned; each handle can only be restored once.
+     * @param game The game to restore into, made with the player's input and output.
+     */
+    public void restore(int handle, TreasureHunter game) {
+        if (handle < 0) {
+            byte[] snapshot;
+            synchronized (this) {
+                snapshot = overflow.remove(handle);
+            }
+            try {
+                GameSnapshot.decode(ByteBuffer.wrap(snapshot), game);
+            } catch (IOException e) {
+                throw new IllegalStateException("A parked snapshot couldn't be read back", e);
+            }
+            return;
+        }
+
+        Mode mode;
+        long seed;
+        long randomState;
+        int turn;
+        Hunter hunter;
+        Terrain terrain;
+        boolean tough;
+        String treasure;
+        boolean searched;
+        synchronized (this) {
+            ByteBuffer chunk = chunks.get(handle >>> CHUNK_SHIFT);
+            int at = (handle & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+            int flags = chunk.get(at + FLAGS);
+            int nameLength = chunk.get(at + NAME_LENGTH);
+            for (int i = 0; i < nameLength; i++) {
+                nameBytes[i] = chunk.get(at + NAME + i);
+            }
+            mode = Mode.values()[flags & MODE_MASK];
+            seed = chunk.getLong(at + SEED);
+            randomState = chunk.getLong(at + RANDOM_STATE);
+            turn = chunk.getInt(at + TURN);
+            hunter = new Hunter(new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8), chunk.getInt(at + GOLD),
+                    (flags & SAMURAI) != 0, setOf(chunk.getLong(at + KIT)), setOf(chunk.getLong(at + TREASURES_FOUND)));
+            terrain = TerrainCatalog.get(chunk.get(at + TERRAIN) & 0xff);
+            tough = (flags & TOUGH) != 0;
+            treasure = Town.TREASURES[chunk.get(at + TREASURE)];
+            searched = (flags & SEARCHED) != 0;
+            discard(handle);
+        }
+        game.restore(mode, seed, randomState, turn, hunter, terrain, tough, treasure, searched);
+    }
+
+    /**
+     * Throws a parked game away, for a player who can't come back.
+     *
+     * @param handle What park() returned.
+     */
+    public synchronized void discard(int handle) {
+        if (handle < 0) {
+            overflow.remove(handle);
+            return;
+        }
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = handle;
+        slotsUsed--;
+    }
+
+    /**
+     * @return How many games are parked.
+     */
+    public synchronized int size() {
+        return slotsUsed + overflow.size();
+    }
+
+    /**
+     * @return The native memory the slots take, used or not.
+     */
+    public synchronized long getOffHeapBytes() {
+        return (long) chunks.size() * CHUNK_SLOTS * SLOT_SIZE;
+    }
+
+    private int newSlot() {
+        if (freeCount == 0) {
+            int first = chunks.size() << CHUNK_SHIFT;
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_SIZE));
+            // handed out lowest first, so the newest chunk fills from its start
+            for (int i = CHUNK_SLOTS - 1; i >= 0; i--) {
+                freeSlots[freeCount++] = first + i;
+            }
+        }
+        slotsUsed++;
+        return freeSlots[--freeCount];
+    }
+
+    private int parkOnHeap(TreasureHunter game) {
+        nextOverflow--;
+        overflow.put(nextOverflow, GameSnapshot.toBytes(game));
+        return nextOverflow;
+    }
+
+    private static int treasureIndex(String treasure) {
+        for (int i = 0; i < Town.TREASURES.length; i++) {
+            if (Town.TREASURES[i].equals(treasure)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The set's items as one bit each, or -1 if an item's id is too big for a long.
+     */
+    private static long bitsOf(ItemSet set) {
+        long bits = 0;
+        for (int id = set.nextItem(0); id != -1; id = set.nextItem(id + 1)) {
+            if (id >= 63) {
+                return -1;
+            }
+            bits |= 1L << id;
+        }
+        return bits;
+    }
+
+    private static ItemSet setOf(long bits) {
+        ItemSet set = new ItemSet();
+        while (bits != 0) {
+            set.add(Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+        }
+        return set;
+    }
+}
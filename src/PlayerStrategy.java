@@ -0,0 +1,30 @@
+/**
+ * A computer player that decides what to do each turn when the game is simulated.<p>
+ * The simulator asks the strategy for a menu choice the same way TreasureHunter asks the user,
+ * and asks again for the item when the strategy wants to buy or sell something.
+ * Strategies are shared between threads, so they should not keep any state of their own,
+ * and any randomness should come from the GameRandom they are given so games can be replayed.
+ */
+
+public interface PlayerStrategy {
+    /**
+     * Picks the next move from the main menu.
+     *
+     * @param hunter The Hunter being played.
+     * @param town The Town the hunter is in.
+     * @param random The random number generator this game's strategy may use.
+     * @return One of the menu letters: "b", "s", "m", "l", "h", "d" or "x".
+     */
+    String chooseAction(Hunter hunter, Town town, GameRandom random);
+
+    /**
+     * Picks the item to buy or sell after choosing "b" or "s".
+     *
+     * @param hunter The Hunter being played.
+     * @param town The Town the hunter is in.
+     * @param isBuying true when buying, false when selling.
+     * @param random The random number generator this game's strategy may use.
+     * @return The item's name, or null to leave the shop without doing anything.
+     */
+    String chooseItem(Hunter hunter, Town town, boolean isBuying, GameRandom random);
+}
@@ -0,0 +1,41 @@
+/**
+ * A strategy that plays the best possible moves worked out by an MdpSolver.<p>
+ * It looks at the town's hidden treasure, which a real player can't see, because the solver's
+ * policy is for a player who knows everything the game's rules depend on.
+ */
+
+public class PolicyStrategy implements PlayerStrategy {
+    // instance variables
+    private MdpSolver solver;
+
+    /**
+     * @param solver A solver that has already been solved for the mode being played.
+     */
+    public PolicyStrategy(MdpSolver solver) {
+        this.solver = solver;
+    }
+
+    public String chooseAction(Hunter hunter, Town town, GameRandom random) {
+        byte action = solver.bestAction(hunter, town);
+        if (action == MdpSolver.LOOK) {
+            return "l";
+        } else if (action == MdpSolver.DIG) {
+            return "d";
+        } else if (action == MdpSolver.HUNT) {
+            return "h";
+        } else if (action == MdpSolver.MOVE) {
+            return "m";
+        } else if (action < MdpSolver.BUY + solver.getItemCount()) {
+            return "b";
+        }
+        return "s";
+    }
+
+    public String chooseItem(Hunter hunter, Town town, boolean isBuying, GameRandom random) {
+        int item = solver.bestAction(hunter, town) - MdpSolver.BUY;
+        if (item < 0) {
+            return null;
+        }
+        return solver.getItemName(item % solver.getItemCount());
+    }
+}
@@ -0,0 +1,105 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the shop's prices from prices.txt and hands out a PriceTable for each markdown and price scale.<p>
+ * The tables for every difficulty mode are built when the class is loaded; any other markdown
+ * or scale gets its table built the first time it is asked for and reused after that.
+ */
+
+public class PriceEngine {
+    // constants
+    private static final String PRICE_FILE = "prices.txt";
+    private static final String SAMURAI_ONLY = "samurai";
+
+    // static variables
+    private static final int[] COSTS = new int[ItemCatalog.size()];
+    private static final boolean[] SAMURAI_ITEMS = new boolean[ItemCatalog.size()];
+    private static int[] listOrder;
+    private static final ConcurrentHashMap<Double, PriceTable> TABLES = new ConcurrentHashMap<Double, PriceTable>();
+    private static final ConcurrentHashMap<String, PriceTable> SCALED_TABLES = new ConcurrentHashMap<String, PriceTable>();
+
+    static {
+        load();
+        for (Mode mode : Mode.values()) {
+            forRules(mode.getRules());
+        }
+    }
+
+    private PriceEngine() {
+    }
+
+    /**
+     * @param markdown Percentage of the cost the shop pays back when buying an item from a hunter.
+     * @return The prices for that markdown.
+     */
+    public static PriceTable forMarkdown(double markdown) {
+        return TABLES.computeIfAbsent(markdown, m -> new PriceTable(COSTS, SAMURAI_ITEMS, listOrder, m));
+    }
+
+    /**
+     * @param rules A mode's rules; their price scale multiplies every cost in prices.txt.
+     * @return The prices for those rules' markdown and price scale.
+     */
+    public static PriceTable forRules(Rules rules) {
+        double scale = rules.getPriceScale();
+        if (scale == 1) {
+            return forMarkdown(rules.getMarkdown());
+        }
+        return SCALED_TABLES.computeIfAbsent(rules.getMarkdown() + "x" + scale,
+                key -> new PriceTable(scaledCosts(scale), SAMURAI_ITEMS, listOrder, rules.getMarkdown()));
+    }
+
+    /**
+     * @return The costs times the scale, rounded; an item that costs something never becomes free.
+     */
+    private static int[] scaledCosts(double scale) {
+        int[] costs = COSTS.clone();
+        for (int id = 0; id < costs.length; id++) {
+            if (costs[id] > 0) {
+                costs[id] = Math.max(1, (int) Math.round(costs[id] * scale));
+            }
+        }
+        return costs;
+    }
+
+    private static void load() {
+        InputStream in = PriceEngine.class.getResourceAsStream(PRICE_FILE);
+        if (in == null) {
+            throw new IllegalStateException(PRICE_FILE + " is missing from the classpath");
+        }
+        Arrays.fill(COSTS, -1);
+        ArrayList<Integer> order = new ArrayList<Integer>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            while (line != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    String[] fields = line.split(",");
+                    int id = ItemCatalog.idOf(fields[0].trim().toLowerCase());
+                    if (id == -1 || ItemCatalog.isTreasure(id)) {
+                        throw new IllegalStateException(PRICE_FILE + " prices " + fields[0] + ", which is not an item in the catalog");
+                    }
+                    COSTS[id] = Integer.parseInt(fields[1].trim());
+                    SAMURAI_ITEMS[id] = fields.length > 2 && fields[2].trim().equals(SAMURAI_ONLY);
+                    order.add(id);
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        listOrder = new int[order.size()];
+        for (int i = 0; i < listOrder.length; i++) {
+            listOrder[i] = order.get(i);
+        }
+    }
+}
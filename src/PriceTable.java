@@ -0,0 +1,91 @@
+/**
+ * The buy and sell prices of every item for one markdown, worked out ahead of time.<p>
+ * Prices are kept in int arrays indexed by item id, so looking one up is a single array read,
+ * and the shop's price list is built once for regular hunters and once for samurai.
+ */
+
+public class PriceTable {
+    // instance variables
+    private int[] buyPrices;
+    private int[] sellPrices;
+    private boolean[] samuraiOnly;
+    private String listing;
+    private String samuraiListing;
+
+    /**
+     * @param costs The cost of each item by id, or -1 if the shop doesn't sell it.
+     * @param samuraiOnly Which items only samurai can buy, by id.
+     * @param listOrder The ids of the items in the order the shop lists them.
+     * @param markdown Percentage of the cost the shop pays back when buying an item from a hunter.
+     */
+    public PriceTable(int[] costs, boolean[] samuraiOnly, int[] listOrder, double markdown) {
+        this.samuraiOnly = samuraiOnly;
+        buyPrices = new int[costs.length];
+        sellPrices = new int[costs.length];
+        for (int id = 0; id < costs.length; id++) {
+            buyPrices[id] = costs[id];
+            if (costs[id] == -1) {
+                sellPrices[id] = -1;
+            } else {
+                sellPrices[id] = (int) (costs[id] * markdown);
+            }
+        }
+
+        StringBuilder str = new StringBuilder();
+        StringBuilder samuraiStr = new StringBuilder();
+        for (int id : listOrder) {
+            String line = displayName(ItemCatalog.nameOf(id)) + ": " + costs[id] + " gold\n";
+            if (!samuraiOnly[id]) {
+                str.append(line);
+            }
+            samuraiStr.append(line);
+        }
+        listing = str.toString();
+        samuraiListing = samuraiStr.toString();
+    }
+
+    /**
+     * @param id An item's id, or -1 for an item that doesn't exist.
+     * @return What the shop charges for the item, or -1 if it doesn't sell it.
+     */
+    public int buyPrice(int id) {
+        if (id < 0) {
+            return -1;
+        }
+        return buyPrices[id];
+    }
+
+    /**
+     * @param id An item's id, or -1 for an item that doesn't exist.
+     * @return What the shop pays for the item, or -1 if it doesn't want it.
+     */
+    public int sellPrice(int id) {
+        if (id < 0) {
+            return -1;
+        }
+        return sellPrices[id];
+    }
+
+    /**
+     * @param id An item's id.
+     * @return true if only samurai can buy the item.
+     */
+    public boolean isSamuraiOnly(int id) {
+        return id >= 0 && samuraiOnly[id];
+    }
+
+    /**
+     * @param samurai Whether the customer is a samurai.
+     * @return The list of items for sale and their prices, one per line.
+     */
+    public String listing(boolean samurai) {
+        if (samurai) {
+            return samuraiListing;
+        }
+        return listing;
+    }
+
+    private static String displayName(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Estimates quantiles (the median, the 99th percentile...) of a stream of numbers in a fixed
+ * amount of memory, however many numbers there are.<p>
+ * Numbers are counted in buckets whose edges grow by a factor of gamma = (1 + a) / (1 - a), so
+ * every quantile it gives is within a relative error a of a number that was really added (the
+ * idea behind DDSketch). Negative numbers get their own buckets and 0 gets a counter. With a = 1%
+ * the buckets for every int fit in about 2200 counters, and near 0 the buckets are narrower than
+ * 1, so small numbers like turn counts come back exactly once rounded.<p>
+ * Two sketches with the same accuracy are merged by adding their counters, so each thread can
+ * fill its own and they are combined at the end.
+ */
+
+public class QuantileSketch {
+    // constants
+    public static final double DEFAULT_ACCURACY = 0.01;
+
+    // instance variables
+    private double accuracy;
+    private double logGamma;
+    private long[] positive;
+    private long[] negative;
+    private long zeros;
+    private long count;
+    private double sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public QuantileSketch() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    /**
+     * @param accuracy The relative error allowed in the quantiles, like 0.01 for 1%.
+     */
+    public QuantileSketch(double accuracy) {
+        if (accuracy <= 0 || accuracy >= 1) {
+            throw new IllegalArgumentException("Accuracy must be between 0 and 1: " + accuracy);
+        }
+        this.accuracy = accuracy;
+        logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+        int buckets = bucketOf(Integer.MAX_VALUE + 1L) + 1;
+        positive = new long[buckets];
+        negative = new long[buckets];
+    }
+
+    /**
+     * @param value A number from the stream; anything bigger than an int is counted as the biggest int.
+     */
+    public void add(long value) {
+        if (value > 0) {
+            positive[bucketOf(Math.min(value, Integer.MAX_VALUE + 1L))]++;
+        } else if (value < 0) {
+            negative[bucketOf(Math.min(-value, Integer.MAX_VALUE + 1L))]++;
+        } else {
+            zeros++;
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the counts from another sketch into this one.
+     *
+     * @param other The sketch to add; it must have the same accuracy.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.accuracy != accuracy) {
+            throw new IllegalArgumentException("Can't merge sketches with accuracy " + accuracy + " and " + other.accuracy);
+        }
+        for (int i = 0; i < positive.length; i++) {
+            positive[i] += other.positive[i];
+            negative[i] += other.negative[i];
+        }
+        zeros += other.zeros;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        if (count == 0) {
+            return 0;
+        }
+        return sum / count;
+    }
+
+    /**
+     * @param fraction A number between 0 and 1, like 0.5 for the median.
+     * @return The number that the given fraction of the stream was at or below (0 if the stream is empty).
+     */
+    public double quantile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        double value = max;
+        // from the most negative numbers up to the most positive
+        for (int i = negative.length - 1; i >= 0 && seen < target; i--) {
+            seen += negative[i];
+            value = -valueOf(i);
+        }
+        if (seen < target) {
+            seen += zeros;
+            value = 0;
+        }
+        for (int i = 0; i < positive.length && seen < target; i++) {
+            seen += positive[i];
+            value = valueOf(i);
+        }
+        // the true min and max are known exactly, so never answer outside them
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * @return The bucket a positive number goes in: bucket i holds (gamma^(i-1), gamma^i].
+     */
+    private int bucketOf(long value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * @return The number in the middle of bucket i (in relative terms), which every number in it is close to.
+     */
+    private double valueOf(int bucket) {
+        return 2 * Math.exp(bucket * logGamma) / (Math.exp(logGamma) + 1);
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * A strategy that picks every move and item at random; useful as a baseline to compare against.
+ */
+
+public class RandomStrategy implements PlayerStrategy {
+    // static variables
+    private static final String[] ACTIONS = {"b", "s", "m", "l", "h", "d"};
+    private static final String[] ITEMS = {"water", "rope", "machete", "horse", "boat", "shovel", "boots", "sword"};
+
+    public String chooseAction(Hunter hunter, Town town, GameRandom random) {
+        return ACTIONS[random.nextInt(ACTIONS.length)];
+    }
+
+    public String chooseItem(Hunter hunter, Town town, boolean isBuying, GameRandom random) {
+        return ITEMS[random.nextInt(ITEMS.length)];
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.Arrays;
+
+/**
+ * A sorted index of leaderboard records that can say what rank any record has and list the
+ * best ones, both in O(log n).<p>
+ * It is a treap (a binary search tree where each node also has a random priority, kept in heap
+ * order, which keeps the tree balanced) with the size of every subtree stored in its root, so the
+ * rank of a record is found on the way down to it. The nodes live in parallel arrays rather than
+ * as objects, so millions of records cost about 32 bytes each and no garbage.<p>
+ * Records are ordered by score, highest first; records with the same score are ordered by record
+ * number, so whoever got the score first ranks ahead.
+ */
+
+public class RankIndex {
+    // constants
+    private static final int NONE = -1;
+    private static final long PRIORITY_SALT = 0x5452454150L;
+
+    // instance variables
+    private long[] scores;
+    private int[] records;
+    private int[] priorities;
+    private int[] left;
+    private int[] right;
+    private int[] sizes;
+    private int count;
+    private int root;
+
+    public RankIndex() {
+        this(16);
+    }
+
+    /**
+     * @param capacity How many records to make room for before the arrays have to grow.
+     */
+    public RankIndex(int capacity) {
+        capacity = Math.max(capacity, 16);
+        scores = new long[capacity];
+        records = new int[capacity];
+        priorities = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        sizes = new int[capacity];
+        count = 0;
+        root = NONE;
+    }
+
+    /**
+     * Builds an index in O(n) from records that are already in rank order (see isBefore()),
+     * which is how a Leaderboard rebuilds its indexes when it is opened.
+     *
+     * @param sortedScores The scores, best first.
+     * @param sortedRecords The record numbers that go with the scores.
+     * @param n How many records there are.
+     * @return The index.
+     */
+    public static RankIndex build(long[] sortedScores, int[] sortedRecords, int n) {
+        RankIndex index = new RankIndex(n + n / 4);
+        // a Cartesian tree: each node goes onto the right spine, popping the nodes with lower priority into its left subtree
+        int[] spine = new int[64];
+        int depth = 0;
+        for (int i = 0; i < n; i++) {
+            int node = index.newNode(sortedScores[i], sortedRecords[i]);
+            int last = NONE;
+            while (depth > 0 && index.priorities[spine[depth - 1]] < index.priorities[node]) {
+                last = spine[depth - 1];
+                depth--;
+            }
+            index.left[node] = last;
+            if (depth > 0) {
+                index.right[spine[depth - 1]] = node;
+            }
+            if (depth == spine.length) {
+                spine = Arrays.copyOf(spine, depth * 2);
+            }
+            spine[depth] = node;
+            depth++;
+        }
+        if (depth > 0) {
+            index.root = spine[0];
+            index.fixSizes(index.root);
+        }
+        return index;
+    }
+
+    /**
+     * Adds a record.
+     *
+     * @param score The record's score; higher is better.
+     * @param record The record's number.
+     */
+    public void add(long score, int record) {
+        int node = newNode(score, record);
+        root = insert(root, node);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param score A record's score.
+     * @param record The record's number.
+     * @return How many records rank ahead of it, so 0 is first place.
+     */
+    public int rankOf(long score, int record) {
+        int rank = 0;
+        int node = root;
+        while (node != NONE) {
+            if (isBefore(scores[node], records[node], score, record)) {
+                rank += sizeOf(left[node]) + 1;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @param k How many records to list.
+     * @return The record numbers of the best k records (or all of them, if there are fewer), best first.
+     */
+    public int[] top(int k) {
+        int[] best = new int[Math.min(k, count)];
+        int found = 0;
+        int[] path = new int[64];
+        int depth = 0;
+        int node = root;
+        while (found < best.length) {
+            while (node != NONE) {
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                }
+                path[depth] = node;
+                depth++;
+                node = left[node];
+            }
+            depth--;
+            node = path[depth];
+            best[found] = records[node];
+            found++;
+            node = right[node];
+        }
+        return best;
+    }
+
+    /**
+     * @param rank A place on the board, 0 being first.
+     * @return The record number of the record in that place.
+     */
+    public int recordAt(int rank) {
+        if (rank < 0 || rank >= count) {
+            throw new IndexOutOfBoundsException("No rank " + rank + " in an index of " + count);
+        }
+        int node = root;
+        while (true) {
+            int ahead = sizeOf(left[node]);
+            if (rank < ahead) {
+                node = left[node];
+            } else if (rank == ahead) {
+                return records[node];
+            } else {
+                rank -= ahead + 1;
+                node = right[node];
+            }
+        }
+    }
+
+    /**
+     * @return Whether record a ranks ahead of record b.
+     */
+    public static boolean isBefore(long scoreA, int recordA, long scoreB, int recordB) {
+        if (scoreA != scoreB) {
+            return scoreA > scoreB;
+        }
+        return recordA < recordB;
+    }
+
+    private int insert(int at, int node) {
+        if (at == NONE) {
+            return node;
+        }
+        sizes[at]++;
+        if (isBefore(scores[node], records[node], scores[at], records[at])) {
+            left[at] = insert(left[at], node);
+            if (priorities[left[at]] > priorities[at]) {
+                return rotateRight(at);
+            }
+        } else {
+            right[at] = insert(right[at], node);
+            if (priorities[right[at]] > priorities[at]) {
+                return rotateLeft(at);
+            }
+        }
+        return at;
+    }
+
+    private int rotateRight(int node) {
+        int child = left[node];
+        left[node] = right[child];
+        right[child] = node;
+        sizes[child] = sizes[node];
+        sizes[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+        return child;
+    }
+
+    private int rotateLeft(int node) {
+        int child = right[node];
+        right[node] = left[child];
+        left[child] = node;
+        sizes[child] = sizes[node];
+        sizes[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+        return child;
+    }
+
+    /**
+     * Works out every subtree size after build(), children before parents, without recursing
+     * (a tree built from a long sorted run can be deep on one side).
+     */
+    private void fixSizes(int top) {
+        int[] stack = new int[64];
+        int[] order = new int[count];
+        int visited = 0;
+        int depth = 0;
+        stack[depth] = top;
+        depth++;
+        while (depth > 0) {
+            depth--;
+            int node = stack[depth];
+            order[visited] = node;
+            visited++;
+            if (depth + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            if (left[node] != NONE) {
+                stack[depth] = left[node];
+                depth++;
+            }
+            if (right[node] != NONE) {
+                stack[depth] = right[node];
+                depth++;
+            }
+        }
+        for (int i = visited - 1; i >= 0; i--) {
+            int node = order[i];
+            sizes[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+        }
+    }
+
+    private int sizeOf(int node) {
+        if (node == NONE) {
+            return 0;
+        }
+        return sizes[node];
+    }
+
+    private int newNode(long score, int record) {
+        if (count == scores.length) {
+            int capacity = count * 2;
+            scores = Arrays.copyOf(scores, capacity);
+            records = Arrays.copyOf(records, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        int node = count;
+        scores[node] = score;
+        records[node] = record;
+        // a hash of the record number instead of a random generator, so a rebuilt index has the same shape
+        priorities[node] = (int) GameRandom.seedFor(PRIORITY_SALT, record);
+        left[node] = NONE;
+        right[node] = NONE;
+        sizes[node] = 1;
+        count++;
+        return node;
+    }
+}
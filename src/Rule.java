@@ -0,0 +1,82 @@
+/**
+ * One of the numbers that decide how hard a mode is, with the range a Balancer may move it in
+ * and the step it starts searching with.<p>
+ * The names are the ones used in ruleset files, like "normal.startingGold = 10".
+ */
+
+public enum Rule {
+    // stops at 99: a hunter who starts with exactly 100 gold gets every item (see Hunter)
+    STARTING_GOLD("startingGold", 1, 99, 4, true),
+    MARKDOWN("markdown", 0, 1, 0.1, false),
+    TOUGHNESS("toughness", 0, 1, 0.1, false),
+    PRICE_SCALE("priceScale", 0.25, 4, 0.25, false),
+    NO_TROUBLE_CHANCE("noTroubleChance", 0.05, 0.95, 0.1, false),
+    TOUGH_NO_TROUBLE_CHANCE("toughNoTroubleChance", 0.05, 0.95, 0.1, false),
+    MAX_BRAWL_GOLD("maxBrawlGold", 1, 50, 2, true),
+    DIG_CHANCE("digChance", 0, 1, 0.1, false),
+    DIG_GOLD_CHOICES("digGoldChoices", 1, 20, 1, true),
+    ITEM_BREAK_CHANCE("itemBreakChance", 0, 1, 0.1, false);
+
+    // instance variables
+    private final String key;
+    private final double min;
+    private final double max;
+    private final double step;
+    private final boolean whole;
+
+    Rule(String key, double min, double max, double step, boolean whole) {
+        this.key = key;
+        this.min = min;
+        this.max = max;
+        this.step = step;
+        this.whole = whole;
+    }
+
+    /**
+     * @param key A rule's name in a ruleset file.
+     * @return The rule, or null if there is no rule with that name.
+     */
+    public static Rule fromKey(String key) {
+        for (Rule rule : values()) {
+            if (rule.key.equals(key)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    // accessors
+    public String getKey() {
+        return key;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getStep() {
+        return step;
+    }
+
+    /**
+     * @return Whether the rule only takes whole numbers, like an amount of gold.
+     */
+    public boolean isWhole() {
+        return whole;
+    }
+
+    /**
+     * @param value A value someone wants to give the rule.
+     * @return The nearest value the rule allows.
+     */
+    public double clamp(double value) {
+        if (whole) {
+            value = Math.round(value);
+        }
+        return Math.max(min, Math.min(max, value));
+    }
+}
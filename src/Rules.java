@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+/**
+ * The numbers one mode is played with: starting gold, the shop's markdown and prices, how tough
+ * towns are, and the odds of every roll in town.<p>
+ * Rules can't be changed once made; with() makes a copy with one number changed, which is how
+ * a Balancer tries out new rules while other games are still using the old ones. Towns, shops
+ * and hunters read their numbers from the Rules they were made with.
+ */
+
+public class Rules {
+    // instance variables
+    private final double[] values;
+
+    /**
+     * @param values Every rule's value, indexed by Rule.ordinal().
+     */
+    public Rules(double[] values) {
+        if (values.length != Rule.values().length) {
+            throw new IllegalArgumentException("Expected " + Rule.values().length + " rules, got " + values.length);
+        }
+        this.values = values.clone();
+    }
+
+    /**
+     * The rules that the old constructors taking only a toughness play by: the built-in odds, and
+     * items that only break when the town isn't as gentle as easy mode's.
+     *
+     * @param toughness How likely each town is to be a tough one.
+     * @return The rules.
+     */
+    public static Rules forToughness(double toughness) {
+        Rules rules = Mode.NORMAL.getBuiltInRules().with(Rule.TOUGHNESS, toughness);
+        if (toughness == Town.NO_BREAK_TOUGHNESS) {
+            rules = rules.with(Rule.ITEM_BREAK_CHANCE, 0);
+        }
+        return rules;
+    }
+
+    /**
+     * @param rule A rule.
+     * @param value Its new value.
+     * @return A copy of these rules with that one rule changed.
+     */
+    public Rules with(Rule rule, double value) {
+        double[] changed = values.clone();
+        changed[rule.ordinal()] = value;
+        return new Rules(changed);
+    }
+
+    public double get(Rule rule) {
+        return values[rule.ordinal()];
+    }
+
+    // accessors for the rules the game uses
+    public int getStartingGold() {
+        return (int) values[Rule.STARTING_GOLD.ordinal()];
+    }
+
+    public double getMarkdown() {
+        return values[Rule.MARKDOWN.ordinal()];
+    }
+
+    public double getToughness() {
+        return values[Rule.TOUGHNESS.ordinal()];
+    }
+
+    public double getPriceScale() {
+        return values[Rule.PRICE_SCALE.ordinal()];
+    }
+
+    public double getNoTroubleChance() {
+        return values[Rule.NO_TROUBLE_CHANCE.ordinal()];
+    }
+
+    public double getToughNoTroubleChance() {
+        return values[Rule.TOUGH_NO_TROUBLE_CHANCE.ordinal()];
+    }
+
+    public int getMaxBrawlGold() {
+        return (int) values[Rule.MAX_BRAWL_GOLD.ordinal()];
+    }
+
+    public double getDigChance() {
+        return values[Rule.DIG_CHANCE.ordinal()];
+    }
+
+    public int getDigGoldChoices() {
+        return (int) values[Rule.DIG_GOLD_CHOICES.ordinal()];
+    }
+
+    public double getItemBreakChance() {
+        return values[Rule.ITEM_BREAK_CHANCE.ordinal()];
+    }
+
+    /**
+     * Creates a hunter who starts with these rules' gold.
+     *
+     * @param name The hunter's name.
+     * @param samurai Whether the hunter is a samurai.
+     * @return The new Hunter.
+     */
+    public Hunter createHunter(String name, boolean samurai) {
+        return new Hunter(name, getStartingGold(), samurai);
+    }
+
+    public boolean equals(Object other) {
+        return other instanceof Rules && Arrays.equals(values, ((Rules) other).values);
+    }
+
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    public String toString() {
+        String str = "";
+        for (Rule rule : Rule.values()) {
+            if (!str.isEmpty()) {
+                str += ", ";
+            }
+            str += rule.getKey() + "=" + Ruleset.format(rule, get(rule));
+        }
+        return str;
+    }
+}
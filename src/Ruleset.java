@@ -0,0 +1,170 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Rules for every mode, which can be saved to and loaded from a plain text file.<p>
+ * A ruleset file has one "mode.rule = value" line per number, like "hard.toughness = 0.75",
+ * and "#" comments; anything it leaves out keeps its built-in value. The game plays by the
+ * ruleset in -Dtreasurehunter.rules=file if there is one (a Balancer writes these), and by the
+ * built-in rules otherwise.
+ */
+
+public class Ruleset {
+    // static variables
+    private static final Ruleset CURRENT = loadCurrent();
+
+    // instance variables
+    private Rules[] rules;
+
+    /**
+     * @param rules The rules for each mode, indexed by Mode.ordinal().
+     */
+    private Ruleset(Rules[] rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @return The ruleset the game is being played by.
+     */
+    public static Ruleset current() {
+        return CURRENT;
+    }
+
+    /**
+     * @return Every mode's built-in rules.
+     */
+    public static Ruleset builtIn() {
+        Mode[] modes = Mode.values();
+        Rules[] rules = new Rules[modes.length];
+        for (Mode mode : modes) {
+            rules[mode.ordinal()] = mode.getBuiltInRules();
+        }
+        return new Ruleset(rules);
+    }
+
+    /**
+     * Reads a ruleset file on top of the built-in rules.
+     *
+     * @param path The file.
+     * @return The ruleset.
+     * @throws IOException if the file can't be read or has a line that isn't a rule.
+     */
+    public static Ruleset load(Path path) throws IOException {
+        Ruleset ruleset = builtIn();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                lineNumber++;
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    ruleset.readRule(line, path + ":" + lineNumber);
+                }
+                line = reader.readLine();
+            }
+        }
+        return ruleset;
+    }
+
+    /**
+     * @param mode A mode.
+     * @return The rules it is played by.
+     */
+    public Rules forMode(Mode mode) {
+        return rules[mode.ordinal()];
+    }
+
+    /**
+     * @param mode A mode.
+     * @param modeRules Its new rules.
+     * @return A copy of this ruleset with that mode's rules replaced.
+     */
+    public Ruleset with(Mode mode, Rules modeRules) {
+        Rules[] changed = rules.clone();
+        changed[mode.ordinal()] = modeRules;
+        return new Ruleset(changed);
+    }
+
+    /**
+     * Writes the ruleset so that load() reads it back the same.
+     *
+     * @param path The file; it is replaced if it already exists.
+     * @param comments Lines to put at the top, like how the rules were made.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(Path path, List<String> comments) throws IOException {
+        ArrayList<String> lines = new ArrayList<String>();
+        lines.add("# Treasure Hunter ruleset: mode.rule = value; play it with -Dtreasurehunter.rules=" + path.getFileName());
+        for (String comment : comments) {
+            lines.add("# " + comment);
+        }
+        for (Mode mode : Mode.values()) {
+            lines.add("");
+            for (Rule rule : Rule.values()) {
+                lines.add(keyOf(mode) + "." + rule.getKey() + " = " + format(rule, forMode(mode).get(rule)));
+            }
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param rule A rule.
+     * @param value One of its values.
+     * @return The value as it is written in a ruleset file.
+     */
+    public static String format(Rule rule, double value) {
+        if (rule.isWhole()) {
+            return Long.toString(Math.round(value));
+        }
+        return Double.toString(Math.round(value * 10000) / 10000.0);
+    }
+
+    private void readRule(String line, String where) throws IOException {
+        int equals = line.indexOf('=');
+        int dot = line.indexOf('.');
+        if (equals < 0 || dot < 0 || dot > equals) {
+            throw new IOException(where + ": expected mode.rule = value, got " + line);
+        }
+        String modeKey = line.substring(0, dot).trim();
+        String ruleKey = line.substring(dot + 1, equals).trim();
+        Mode mode = null;
+        for (Mode candidate : Mode.values()) {
+            if (keyOf(candidate).equals(modeKey)) {
+                mode = candidate;
+            }
+        }
+        Rule rule = Rule.fromKey(ruleKey);
+        if (mode == null || rule == null) {
+            throw new IOException(where + ": there is no rule " + modeKey + "." + ruleKey);
+        }
+        try {
+            double value = Double.parseDouble(line.substring(equals + 1).trim());
+            rules[mode.ordinal()] = rules[mode.ordinal()].with(rule, value);
+        } catch (NumberFormatException e) {
+            throw new IOException(where + ": " + line.substring(equals + 1).trim() + " is not a number");
+        }
+    }
+
+    private static String keyOf(Mode mode) {
+        return mode.name().toLowerCase();
+    }
+
+    private static Ruleset loadCurrent() {
+        String file = System.getProperty("treasurehunter.rules");
+        if (file == null) {
+            return builtIn();
+        }
+        try {
+            return load(Paths.get(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.List;
+
+/**
+ * An InputSource that plays back lines that were written down ahead of time,
+ * like the inputs saved in a GameJournal.
+ */
+
+public class ScriptInput implements InputSource {
+    // instance variables
+    private String[] lines;
+    private int next;
+
+    /**
+     * @param lines The lines to give back, in order.
+     */
+    public ScriptInput(List<String> lines) {
+        this.lines = lines.toArray(new String[0]);
+        next = 0;
+    }
+
+    /**
+     * @return The next line, or null once every line has been used.
+     */
+    public String nextLine() {
+        if (next == lines.length) {
+            return null;
+        }
+        String line = lines[next];
+        next++;
+        return line;
+    }
+
+    public void waitForEnter() {
+        nextLine();
+    }
+
+    /**
+     * @return How many lines have been used so far.
+     */
+    public int getLinesUsed() {
+        return next;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * The last few hundred lines of output, kept in a ring so the oldest line is dropped in O(1)
+ * when a new one comes in.<p>
+ * The game's thread adds lines and the Swing event thread reads them to draw the window, so
+ * every method is synchronized; each one only touches a few array slots.
+ */
+
+public class Scrollback {
+    // instance variables
+    private StyledLine[] lines;
+    private int first;
+    private int count;
+    private long added;
+
+    /**
+     * @param capacity The most lines to keep.
+     */
+    public Scrollback(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A scrollback must hold at least one line");
+        }
+        lines = new StyledLine[capacity];
+        first = 0;
+        count = 0;
+        added = 0;
+    }
+
+    /**
+     * Adds a line at the bottom, dropping the oldest line if the scrollback is full.
+     *
+     * @param line The line to add.
+     */
+    public synchronized void add(StyledLine line) {
+        if (count < lines.length) {
+            lines[(first + count) % lines.length] = line;
+            count++;
+        } else {
+            lines[first] = line;
+            first = (first + 1) % lines.length;
+        }
+        added++;
+    }
+
+    /**
+     * @return The line that was added last, or null if there are none.
+     */
+    public synchronized StyledLine last() {
+        if (count == 0) {
+            return null;
+        }
+        return lines[(first + count - 1) % lines.length];
+    }
+
+    /**
+     * @return How many lines are being kept.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @return How many lines have ever been added, including the ones that were dropped.
+     */
+    public synchronized long getLinesAdded() {
+        return added;
+    }
+
+    public int getCapacity() {
+        return lines.length;
+    }
+
+    /**
+     * Copies out the lines that fit on screen.
+     *
+     * @param fromBottom How many of the newest lines to skip (0 shows the newest lines).
+     * @param rows How many lines fit on screen.
+     * @return The lines, oldest first; fewer than rows if there aren't that many.
+     */
+    public synchronized StyledLine[] window(int fromBottom, int rows) {
+        int end = Math.max(0, count - Math.max(0, fromBottom));
+        int start = Math.max(0, end - rows);
+        StyledLine[] shown = new StyledLine[end - start];
+        for (int i = start; i < end; i++) {
+            shown[i - start] = lines[(first + i) % lines.length];
+        }
+        return shown;
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds the games of GameServer players who have gone quiet, so they cost almost nothing while
+ * they wait.<p>
+ * A session whose player leaves the menu waiting longer than the idle timeout stops its game
+ * (see TreasureHunter.setIdleTimeout()), parks it in ParkedGames (64 bytes outside the heap) and
+ * ends its thread. All that is left of it is the connection, which one watcher thread keeps an
+ * eye on with a Selector. As soon as the player types something, the connection is handed back
+ * with the game's handle to be resumed on a new session thread, which rebuilds the game in a few
+ * microseconds and carries on with what the player typed. A player who hangs up while parked is
+ * resumed too, and their game ends the usual way.
+ */
+
+public class SessionStore implements AutoCloseable {
+    // constants
+    public static final long DEFAULT_IDLE_MILLIS = 30_000;
+
+    // instance variables
+    private long idleMillis;
+    private ParkedGames games;
+    private Selector selector;
+    private BiConsumer<SocketChannel, Integer> resumer;
+    private Thread watcher;
+    private LongAdder parkedTotal;
+    private volatile long resumedTotal;
+
+    /**
+     * @param idleMillis How long a player can leave the menu waiting before their game is parked.
+     * @param resumer What to do with a parked player's connection and game handle once they type something.
+     * @throws IOException if the selector can't be opened.
+     */
+    public SessionStore(long idleMillis, BiConsumer<SocketChannel, Integer> resumer) throws IOException {
+        this.idleMillis = idleMillis;
+        this.resumer = resumer;
+        games = new ParkedGames();
+        parkedTotal = new LongAdder();
+        selector = Selector.open();
+        watcher = new Thread(() -> watch(), "session-store-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+
+    public ParkedGames getGames() {
+        return games;
+    }
+
+    public long getParkedTotal() {
+        return parkedTotal.sum();
+    }
+
+    public long getResumedTotal() {
+        return resumedTotal;
+    }
+
+    /**
+     * Parks an idle player's game and watches their connection for input. The session's own
+     * thread can end afterwards.
+     *
+     * @param channel The player's connection, in blocking mode and not being read.
+     * @param game The game, stopped because the player went idle.
+     */
+    public void park(SocketChannel channel, TreasureHunter game) {
+        int handle = games.park(game);
+        try {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, handle);
+            // the watcher only looks at new registrations between selects
+            selector.wakeup();
+            parkedTotal.increment();
+        } catch (IOException | ClosedSelectorException e) {
+            games.discard(handle);
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * Stops watching and closes every parked player's connection.
+     */
+    public void close() throws IOException {
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key.channel());
+        }
+        selector.close();
+    }
+
+    private void watch() {
+        ArrayList<SelectionKey> woken = new ArrayList<SelectionKey>();
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                Set<SelectionKey> ready = selector.selectedKeys();
+                if (ready.isEmpty()) {
+                    continue;
+                }
+                woken.addAll(ready);
+                ready.clear();
+                for (SelectionKey key : woken) {
+                    key.cancel();
+                }
+                // cancelled keys are only let go of by the next select; until then their
+                // channels can't go back to blocking mode
+                selector.selectNow();
+                for (SelectionKey key : woken) {
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    int handle = (Integer) key.attachment();
+                    try {
+                        channel.configureBlocking(true);
+                        resumedTotal++;
+                        resumer.accept(channel, handle);
+                    } catch (IOException | RuntimeException e) {
+                        games.discard(handle);
+                        closeQuietly(channel);
+                    }
+                }
+                woken.clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // closed; the parked players' connections went with it
+        }
+    }
+
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // it's being thrown away either way
+        }
+    }
+}
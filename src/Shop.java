@@ -1,6 +1,3 @@
-import java.awt.*;
-import java.util.Scanner;
-
 /**
  * The Shop class controls the cost of the items in the Treasure Hunt game. <p>
  * The Shop class also acts as a go between for the Hunter's buyItem() method. <p>
@@ -9,34 +6,55 @@ import java.util.Scanner;
 
 public class Shop {
     // constants
-    private static final int WATER_COST = 2;
-    private static final int ROPE_COST = 4;
-    private static final int MACHETE_COST = 6;
-    private static final int HORSE_COST = 12;
-    private static final int BOAT_COST = 20;
-    private static final int SWORD_COST = 0;
-
-    private static final int SHOVEL_COST = 10;
+    private static final int SWORD = ItemCatalog.idOf("sword");
 
-    private static final int BOOTS_COST = 15;
-
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
+    // everything the shopkeeper says, from messages.txt
+    private static final Message WELCOME = MessageCatalog.get("shop.welcome");
+    private static final Message ASK_BUY = MessageCatalog.get("shop.askBuy");
+    private static final Message NOT_FOR_SALE = MessageCatalog.get("shop.notForSale");
+    private static final Message COST = MessageCatalog.get("shop.cost");
+    private static final Message ASK_SELL = MessageCatalog.get("shop.askSell");
+    private static final Message NOT_WANTED = MessageCatalog.get("shop.notWanted");
+    private static final Message OFFER = MessageCatalog.get("shop.offer");
+    private static final Message SWORD_FREE = MessageCatalog.get("shop.swordFree");
+    private static final Message BOUGHT = MessageCatalog.get("shop.bought");
+    private static final Message CANT_BUY = MessageCatalog.get("shop.cantBuy");
+    private static final Message SOLD = MessageCatalog.get("shop.sold");
+    private static final Message CANT_SELL = MessageCatalog.get("shop.cantSell");
+    private static final Message PRESS_ENTER = MessageCatalog.get("shop.pressEnter");
 
     // instance variables
     private double markdown;
+    private PriceTable prices;
     private Hunter customer;
-    private OutputWindow window;
+    private OutputSink window;
+    private InputSource input;
 
     /**
      * The Shop constructor takes in a markdown value and leaves customer null until one enters the shop.
      *
      * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param window Where the shop's messages are shown.
+     * @param input Where the shop reads the customer's answers from.
      */
-    public Shop(double markdown, OutputWindow window) {
+    public Shop(double markdown, OutputSink window, InputSource input) {
         this.markdown = markdown;
+        prices = PriceEngine.forMarkdown(markdown);
         customer = null; // is set in the enter method
         this.window = window;
+        this.input = input;
+    }
+
+    /**
+     * Builds a shop whose markdown and prices come from a mode's rules.
+     *
+     * @param rules The rules of the mode being played.
+     * @param window Where the shop's messages are shown.
+     * @param input Where the shop reads the customer's answers from.
+     */
+    public Shop(Rules rules, OutputSink window, InputSource input) {
+        this(rules.getMarkdown(), window, input);
+        prices = PriceEngine.forRules(rules);
     }
 
     /**
@@ -49,18 +67,17 @@ public class Shop {
         customer = hunter;
 
         if (buyOrSell.equals("b")) {
-            window.addTextToWindow("Welcome to the shop! We have the finest wares in town.\n", Color.BLACK);
-            window.addTextToWindow("Currently we have the following items:\n", Color.BLACK);
-            window.addTextToWindow(inventory(), Color.BLACK);
-            window.addTextToWindow("What're you lookin' to buy? \n", Color.BLACK);
-            String item = SCANNER.nextLine().toLowerCase();
+            WELCOME.show(window);
+            window.addTextToWindow(inventory(), TextColor.BLACK);
+            ASK_BUY.show(window);
+            String item = ask();
             int cost = checkMarketPrice(item, true);
-            if (cost == -1 || (item.equals("sword") && !hunter.getIsSamurai())) {
-                window.addTextToWindow("We ain't got none of those.", Color.BLACK);
+            if (!hasForSale(item, hunter)) {
+                NOT_FOR_SALE.show(window);
             } else {
                 if(!hunter.getIsSamurai()) {
-                    window.addTextToWindow("It'll cost you " + Colors.YELLOW + cost + Colors.RESET + " gold. Buy it (y/n)? \n", Color.BLACK);
-                    String option = SCANNER.nextLine().toLowerCase();
+                    COST.showGold(window, cost);
+                    String option = ask();
 
                     if (option.equals("y")) {
                         buyItem(item);
@@ -70,15 +87,14 @@ public class Shop {
                 }
             }
         } else {
-            window.addTextToWindow("What're you lookin' to sell? ", Color.BLACK);
-            window.addTextToWindow("You currently have the following items: " + customer.getInventory() + "\n", Color.BLACK);
-            String item = SCANNER.nextLine().toLowerCase();
+            ASK_SELL.showItem(window, customer.getInventory());
+            String item = ask();
             int cost = checkMarketPrice(item, false);
             if (cost == -1) {
-                window.addTextToWindow("We don't want none of those.", Color.BLACK);
+                NOT_WANTED.show(window);
             } else {
-                window.addTextToWindow("It'll get you " + Colors.YELLOW + cost + Colors.RESET + " gold. Sell it (y/n)? \n", Color.BLACK);
-                String option = SCANNER.nextLine().toLowerCase();
+                OFFER.showGold(window, cost);
+                String option = ask();
 
                 if (option.equals("y")) {
                     sellItem(item);
@@ -94,19 +110,63 @@ public class Shop {
      * @return the string representing the shop's items available for purchase and their prices.
      */
     public String inventory() {
-        String str = "Water: " + WATER_COST + " gold\n";
-        str += "Rope: " + ROPE_COST + " gold\n";
-        str += "Machete: " + MACHETE_COST + " gold\n";
-        str += "Horse: " + HORSE_COST + " gold\n";
-        str += "Boat: " + BOAT_COST + " gold\n";
-        str += "Shovel: " + SHOVEL_COST + " gold\n";
-        str += "Boots: " + BOOTS_COST + " gold\n";
-
-        if(customer.getIsSamurai()) {
-            str += "Sword: " + SWORD_COST + " gold\n";
+        return prices.listing(customer.getIsSamurai());
+    }
+
+    /**
+     * Shows everything printed so far and waits for the customer's answer.
+     *
+     * @return The answer, in lower case.
+     */
+    private String ask() {
+        window.flush();
+        String line = input.nextLine();
+        if (line == null) {
+            return "";
         }
+        return line.toLowerCase();
+    }
 
-        return str;
+    /**
+     * Shows everything printed so far and waits for the customer to press Enter.
+     */
+    private void pause() {
+        window.flush();
+        input.waitForEnter();
+    }
+
+    /**
+     * Checks whether the shop will sell an item to a hunter; some items (like the sword) are only for samurai.
+     *
+     * @param item The item the hunter wants.
+     * @param hunter The Hunter who wants it.
+     * @return true if the item can be bought here.
+     */
+    public boolean hasForSale(String item, Hunter hunter) {
+        int id = ItemCatalog.idOf(item);
+        return prices.buyPrice(id) != -1 && (!prices.isSamuraiOnly(id) || hunter.getIsSamurai());
+    }
+
+    /**
+     * Lets a hunter buy an item without going through the shop's questions.
+     *
+     * @param hunter The Hunter buying the item.
+     * @param item The item being bought.
+     */
+    public void buyItem(Hunter hunter, String item) {
+        customer = hunter;
+        buyItem(item);
+    }
+
+    /**
+     * Lets a hunter sell an item without going through the shop's questions.
+     *
+     * @param hunter The Hunter selling the item.
+     * @param item The item being sold.
+     */
+    public void sellItem(Hunter hunter, String item) {
+        customer = hunter;
+        sellItem(item);
     }
 
     /**
@@ -115,21 +175,23 @@ public class Shop {
      * @param item The item being bought.
      */
     public void buyItem(String item) {
-        if(customer.hasItemInKit("sword")) {
-            window.addTextToWindow("the sword intimidates the shopkeeper and he gives you the item freely\n", Color.BLACK);
-            window.addTextToWindow("You got a " + item, Color.BLACK);
-            window.addTextToWindow("Press Enter to Continue", Color.BLACK);
-            SCANNER.nextLine();
+        if(customer.hasItemInKit(SWORD)) {
+            SWORD_FREE.showItem(window, item);
+            PRESS_ENTER.show(window);
+            pause();
         }
         int costOfItem = checkMarketPrice(item, true);
         if (customer.buyItem(item, costOfItem)) {
-            window.addTextToWindow("Ye' got yerself a " + item + ". Come again soon.\n", Color.BLACK);
-            window.addTextToWindow("Press Enter to Continue", Color.BLACK);
-            SCANNER.nextLine();
+            if (GameMetrics.ENABLED) {
+                GameMetrics.count(GameCounter.ITEMS_BOUGHT);
+            }
+            BOUGHT.showItem(window, item);
+            PRESS_ENTER.show(window);
+            pause();
         } else {
-            window.addTextToWindow("Hmm, either you don't have enough gold or you've already got one of those!\n", Color.BLACK);
-            window.addTextToWindow("Press Enter to Continue", Color.BLACK);
-            SCANNER.nextLine();
+            CANT_BUY.show(window);
+            PRESS_ENTER.show(window);
+            pause();
         }
     }
 
@@ -141,13 +203,16 @@ public class Shop {
     public void sellItem(String item) {
         int buyBackPrice = checkMarketPrice(item, false);
         if (customer.sellItem(item, buyBackPrice)) {
-            window.addTextToWindow("Pleasure doin' business with you.\n", Color.BLACK);
-            window.addTextToWindow("Press Enter to Continue", Color.BLACK);
-            SCANNER.nextLine();
+            if (GameMetrics.ENABLED) {
+                GameMetrics.count(GameCounter.ITEMS_SOLD);
+            }
+            SOLD.show(window);
+            PRESS_ENTER.show(window);
+            pause();
         } else {
-            window.addTextToWindow("Stop stringin' me along!\n", Color.BLACK);
-            window.addTextToWindow("Press Enter to Continue", Color.BLACK);
-            SCANNER.nextLine();
+            CANT_SELL.show(window);
+            PRESS_ENTER.show(window);
+            pause();
         }
 
     }
@@ -168,41 +233,41 @@ public class Shop {
     }
 
     /**
-     * Checks the item entered against the costs listed in the static variables.
+     * Determines and returns the cost of buying or selling an item.
      *
-     * @param item The item being checked for cost.
-     * @return The cost of the item or 0 if the item is not found.
+     * @param id The id of the item in question.
+     * @param isBuying Whether the item is being bought or sold.
+     * @return The cost of buying or selling the item, or -1 if the shop doesn't deal in it.
      */
-    public int getCostOfItem(String item) {
-        if (item.equals("water")) {
-            return WATER_COST;
-        } else if (item.equals("rope")) {
-            return ROPE_COST;
-        } else if (item.equals("machete")) {
-            return MACHETE_COST;
-        } else if (item.equals("horse")) {
-            return HORSE_COST;
-        } else if (item.equals("boat")) {
-            return BOAT_COST;
-        } else if (item.equals("shovel")) {
-            return SHOVEL_COST;
-        } else if (item.equals("boots")){
-            return BOOTS_COST;
-        } else if (item.equals("sword")) {
-            return SWORD_COST;
+    public int checkMarketPrice(int id, boolean isBuying) {
+        if (isBuying) {
+            return prices.buyPrice(id);
         } else {
-            return -1;
+            return prices.sellPrice(id);
         }
     }
 
     /**
-     * Checks the cost of an item and applies the markdown.
+     * Looks up the cost of the item in the price table.
+     *
+     * @param item The item being checked for cost.
+     * @return The cost of the item or -1 if the item is not found.
+     */
+    public int getCostOfItem(String item) {
+        return prices.buyPrice(ItemCatalog.idOf(item));
+    }
+
+    /**
+     * Looks up what the shop pays for the item, with the markdown already applied.
      *
      * @param item The item being sold.
-     * @return The sell price of the item.
+     * @return The sell price of the item, or -1 if the shop doesn't want it.
      */
     public int getBuyBackCost(String item) {
-        int cost = (int) (getCostOfItem(item) * markdown);
-        return cost;
+        return prices.sellPrice(ItemCatalog.idOf(item));
+    }
+
+    public double getMarkdown() {
+        return markdown;
     }
-}
\ No newline at end of file
+}
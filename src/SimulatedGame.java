@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Plays one whole game of Treasure Hunter with no window and no keyboard.<p>
+ * The game follows the same rules as TreasureHunter.showMenu() and processChoice(), but the
+ * moves come from a PlayerStrategy and all the output is thrown away.<p>
+ * A game can also be played with common rolls, for comparing strategies fairly: then every town
+ * is made from its own seed (the k-th town of a game is always the same town), and the n-th
+ * brawl, dig or departure in the k-th town always gets the same rolls, whatever the strategy did
+ * before it. Two strategies playing the same seed then face exactly the same luck.
+ */
+
+public class SimulatedGame {
+    // static variables
+    private static final String HUNTER_NAME = "bot";
+
+    // the kinds of rolls that get their own numbered streams with common rolls
+    private static final int LOOK_ROLLS = 0;
+    private static final int DIG_ROLLS = 1;
+    private static final int LEAVE_ROLLS = 2;
+    private static final long STRATEGY_STREAM = 0;
+    private static final long LAYOUT_STREAM = -1;
+
+    // instance variables
+    private Mode mode;
+    private Rules rules;
+    private PlayerStrategy strategy;
+    private long seed;
+    private boolean commonRolls;
+    private GameRandom random;
+    private GameRandom strategyRandom;
+    private Hunter hunter;
+    private Town town;
+    private int turns;
+    private int townsVisited;
+    private long townSeed;
+    private int[] rollsUsed = new int[3];
+
+    /**
+     * Sets up a game in its first town.
+     *
+     * @param mode The difficulty to play on.
+     * @param strategy The strategy making the moves.
+     * @param seed The game's seed; the same seed and strategy always give the same game.
+     * @param commonRolls Whether to give every town and every action its own rolls (see above),
+     *                    or to draw everything from one generator as the real game does.
+     */
+    public SimulatedGame(Mode mode, PlayerStrategy strategy, long seed, boolean commonRolls) {
+        this(mode, mode.getRules(), strategy, seed, commonRolls);
+    }
+
+    /**
+     * Sets up a game in its first town, played by rules other than the ones the mode is played by.
+     *
+     * @param mode The difficulty to play on.
+     * @param rules The rules to play by.
+     * @param strategy The strategy making the moves.
+     * @param seed The game's seed; the same seed and strategy always give the same game.
+     * @param commonRolls Whether to give every town and every action its own rolls.
+     */
+    public SimulatedGame(Mode mode, Rules rules, PlayerStrategy strategy, long seed, boolean commonRolls) {
+        this.mode = mode;
+        this.rules = rules;
+        this.strategy = strategy;
+        this.seed = seed;
+        this.commonRolls = commonRolls;
+        random = new GameRandom(seed);
+        if (commonRolls) {
+            strategyRandom = new GameRandom(GameRandom.seedFor(seed, STRATEGY_STREAM));
+        } else {
+            // the strategy gets its own generator so its choices don't use up the town's rolls
+            strategyRandom = random.split();
+        }
+        hunter = rules.createHunter(HUNTER_NAME, mode.isSamurai());
+        town = newTown();
+    }
+
+    /**
+     * Plays a game from the first town until the hunter wins, loses, quits or runs out of turns.
+     *
+     * @param mode The difficulty to play on.
+     * @param strategy The strategy making the moves.
+     * @param maxTurns How many moves the game may take before it is stopped.
+     * @param seed The game's seed; the same seed and strategy always give the same game.
+     * @param stats Where the result of the game is recorded.
+     */
+    public static void play(Mode mode, PlayerStrategy strategy, int maxTurns, long seed, SimulationStats stats) {
+        play(mode, strategy, maxTurns, seed, stats, null);
+    }
+
+    /**
+     * Plays a game and also adds its run to a Leaderboard.
+     *
+     * @param mode The difficulty to play on.
+     * @param strategy The strategy making the moves.
+     * @param maxTurns How many moves the game may take before it is stopped.
+     * @param seed The game's seed; the same seed and strategy always give the same game.
+     * @param stats Where the result of the game is recorded.
+     * @param leaderboard Where the run is added, or null to not keep it.
+     */
+    public static void play(Mode mode, PlayerStrategy strategy, int maxTurns, long seed, SimulationStats stats,
+                            Leaderboard leaderboard) {
+        SimulatedGame game = new SimulatedGame(mode, strategy, seed, false);
+        GameOutcome outcome = game.play(maxTurns);
+        Hunter hunter = game.getHunter();
+        if (outcome == GameOutcome.WON) {
+            stats.recordWin(game.getTurns(), hunter.getGold());
+        } else if (outcome == GameOutcome.LOST) {
+            stats.recordLoss(game.getTurns(), hunter.getGold());
+        } else if (outcome == GameOutcome.QUIT) {
+            stats.recordQuit(game.getTurns(), hunter.getGold());
+        } else {
+            stats.recordUnfinished(game.getTurns(), hunter.getGold());
+        }
+
+        if (leaderboard != null) {
+            try {
+                leaderboard.add(new LeaderboardEntry(mode, HUNTER_NAME, hunter.getGold(),
+                        hunter.getCollectedTreasure().size(), game.getTurns(), seed));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Plays until the hunter wins, loses, quits or runs out of turns.
+     *
+     * @param maxTurns How many moves the game may take before it is stopped.
+     * @return How the game ended.
+     */
+    public GameOutcome play(int maxTurns) {
+        while (true) {
+            if (turns >= maxTurns) {
+                return GameOutcome.UNFINISHED;
+            }
+            if (hunter.getGold() < 0) {
+                return GameOutcome.LOST;
+            }
+            if (hunter.treasureIsFull()) {
+                return GameOutcome.WON;
+            }
+
+            if (playTurn().equals("x")) {
+                return GameOutcome.QUIT;
+            }
+        }
+    }
+
+    /**
+     * Makes one move, whatever state the game is in; play() checks whether the game is over first.
+     *
+     * @return The menu choice the strategy made.
+     */
+    public String playTurn() {
+        String choice = strategy.chooseAction(hunter, town, strategyRandom);
+        turns++;
+        if (choice.equals("b")) {
+            String item = strategy.chooseItem(hunter, town, true, strategyRandom);
+            if (item != null && town.getShop().hasForSale(item, hunter)) {
+                town.buyFromShop(item);
+            }
+        } else if (choice.equals("s")) {
+            String item = strategy.chooseItem(hunter, town, false, strategyRandom);
+            if (item != null && town.getShop().checkMarketPrice(item, false) != -1) {
+                town.sellToShop(item);
+            }
+        } else if (choice.equals("m")) {
+            useRolls(LEAVE_ROLLS);
+            if (town.leaveTown()) {
+                town = newTown();
+            }
+        } else if (choice.equals("l")) {
+            useRolls(LOOK_ROLLS);
+            town.lookForTrouble();
+        } else if (choice.equals("h")) {
+            town.huntForTreasure();
+        } else if (choice.equals("d")) {
+            useRolls(DIG_ROLLS);
+            town.digForGold();
+        }
+        return choice;
+    }
+
+    public Hunter getHunter() {
+        return hunter;
+    }
+
+    public Town getTown() {
+        return town;
+    }
+
+    /**
+     * @return How many moves have been made.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * With common rolls, points the town's generator at the stream for the next action of this
+     * kind in this town.
+     */
+    private void useRolls(int kind) {
+        if (commonRolls) {
+            random.setState(GameRandom.seedFor(townSeed, ((long) kind << 32) | rollsUsed[kind]));
+            rollsUsed[kind]++;
+        }
+    }
+
+    /**
+     * Creates a new town the same way TreasureHunter.enterTown() does and puts the hunter in it.
+     */
+    private Town newTown() {
+        Shop shop = new Shop(rules, NullOutput.INSTANCE, NullInput.INSTANCE);
+        Town next;
+        if (commonRolls) {
+            townsVisited++;
+            townSeed = GameRandom.seedFor(seed, townsVisited);
+            Arrays.fill(rollsUsed, 0);
+            GameRandom layout = new GameRandom(GameRandom.seedFor(townSeed, LAYOUT_STREAM));
+            next = new Town(shop, rules, NullOutput.INSTANCE, layout, random);
+        } else {
+            next = new Town(shop, rules, NullOutput.INSTANCE, random);
+        }
+        next.hunterArrives(hunter);
+        return next;
+    }
+}
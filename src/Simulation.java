@@ -0,0 +1,77 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the game headless, many times over, to see how hard each difficulty mode really is.<p>
+ * Usage: java Simulation [games per mode] [greedy|random] [max turns] [seed] [leaderboard file]<p>
+ * The games are spread over every core with a ForkJoinPool and a summary of the
+ * win rate, game length and final gold is printed for each mode. Given a Leaderboard file, every
+ * game's run is added to it too.
+ */
+
+public class Simulation {
+    public static void main(String[] args) throws IOException {
+        long games = 1_000_000;
+        PlayerStrategy strategy = new GreedyStrategy();
+        int maxTurns = 1000;
+        long seed = System.nanoTime();
+        if (args.length > 0) {
+            games = Long.parseLong(args[0]);
+        }
+        if (args.length > 1) {
+            strategy = strategyFor(args[1]);
+        }
+        if (args.length > 2) {
+            maxTurns = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            seed = Long.parseLong(args[3]);
+        }
+        Leaderboard leaderboard = null;
+        if (args.length > 4) {
+            leaderboard = new Leaderboard(Paths.get(args[4]));
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.println("Simulating " + games + " games per mode on " + pool.getParallelism() + " threads, seed " + seed);
+        for (Mode mode : Mode.values()) {
+            long start = System.nanoTime();
+            SimulationStats stats = pool.invoke(new SimulationTask(mode, strategy, maxTurns, seed, 0, games, leaderboard));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(mode + ": " + stats);
+            System.out.printf("  %.0f games/s%n", games / seconds);
+        }
+        if (leaderboard != null) {
+            leaderboard.close();
+        }
+    }
+
+    /**
+     * Plays a batch of games on the pool and returns the combined results.
+     *
+     * @param pool The pool to run the games on.
+     * @param mode The difficulty to play on.
+     * @param strategy The strategy making the moves.
+     * @param games How many games to play.
+     * @param maxTurns How many moves a game may take before it is stopped.
+     * @param seed The seed for the batch; the same seed gives the same results.
+     * @return The results of all the games.
+     */
+    public static SimulationStats run(ForkJoinPool pool, Mode mode, PlayerStrategy strategy, long games, int maxTurns, long seed) {
+        return pool.invoke(new SimulationTask(mode, strategy, maxTurns, seed, 0, games));
+    }
+
+    /**
+     * @param name The name of a strategy, like "greedy" or "random".
+     * @return The matching PlayerStrategy.
+     */
+    public static PlayerStrategy strategyFor(String name) {
+        if (name.equals("random")) {
+            return new RandomStrategy();
+        } else if (name.equals("greedy")) {
+            return new GreedyStrategy();
+        }
+        throw new IllegalArgumentException("Unknown strategy: " + name);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Collects the results of many simulated games.<p>
+ * Game lengths and final gold amounts are kept as histograms (one counter per value), so the
+ * memory used does not grow with the number of games, and two sets of stats can be merged
+ * by adding the counters together.
+ */
+
+public class SimulationStats {
+    // constants
+    private static final int MIN_GOLD = -10;
+    private static final int MAX_GOLD = 1000;
+
+    // instance variables
+    private long wins;
+    private long losses;
+    private long quits;
+    private long unfinished;
+    private long totalTurns;
+    private long totalGold;
+    private long[] turnCounts;
+    private long[] goldCounts;
+
+    /**
+     * @param maxTurns The longest game that will be recorded.
+     */
+    public SimulationStats(int maxTurns) {
+        turnCounts = new long[maxTurns + 1];
+        goldCounts = new long[MAX_GOLD - MIN_GOLD + 1];
+    }
+
+    public void recordWin(int turns, int gold) {
+        wins++;
+        record(turns, gold);
+    }
+
+    public void recordLoss(int turns, int gold) {
+        losses++;
+        record(turns, gold);
+    }
+
+    public void recordQuit(int turns, int gold) {
+        quits++;
+        record(turns, gold);
+    }
+
+    public void recordUnfinished(int turns, int gold) {
+        unfinished++;
+        record(turns, gold);
+    }
+
+    private void record(int turns, int gold) {
+        totalTurns += turns;
+        totalGold += gold;
+        turnCounts[Math.min(turns, turnCounts.length - 1)]++;
+        goldCounts[Math.max(MIN_GOLD, Math.min(MAX_GOLD, gold)) - MIN_GOLD]++;
+    }
+
+    /**
+     * Adds the results from another set of stats into this one.
+     *
+     * @param other The stats to add; it must have been made with the same maxTurns.
+     */
+    public void merge(SimulationStats other) {
+        wins += other.wins;
+        losses += other.losses;
+        quits += other.quits;
+        unfinished += other.unfinished;
+        totalTurns += other.totalTurns;
+        totalGold += other.totalGold;
+        for (int i = 0; i < turnCounts.length; i++) {
+            turnCounts[i] += other.turnCounts[i];
+        }
+        for (int i = 0; i < goldCounts.length; i++) {
+            goldCounts[i] += other.goldCounts[i];
+        }
+    }
+
+    public long getGames() {
+        return wins + losses + quits + unfinished;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getLosses() {
+        return losses;
+    }
+
+    public double getWinRate() {
+        long games = getGames();
+        if (games == 0) {
+            return 0;
+        }
+        return (double) wins / games;
+    }
+
+    /**
+     * @param fraction A number between 0 and 1, like 0.5 for the median.
+     * @return The game length that the given fraction of games were shorter than or equal to.
+     */
+    public int turnPercentile(double fraction) {
+        return percentile(turnCounts, fraction);
+    }
+
+    /**
+     * @param fraction A number between 0 and 1, like 0.5 for the median.
+     * @return The final gold that the given fraction of games ended at or below.
+     */
+    public int goldPercentile(double fraction) {
+        return percentile(goldCounts, fraction) + MIN_GOLD;
+    }
+
+    private int percentile(long[] counts, double fraction) {
+        long target = (long) Math.ceil(fraction * getGames());
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target && seen > 0) {
+                return i;
+            }
+        }
+        return counts.length - 1;
+    }
+
+    /**
+     * @return A printable summary of the win rate, game lengths and final gold.
+     */
+    public String toString() {
+        long games = Math.max(1, getGames());
+        String str = "games " + getGames() + ", won " + wins + ", lost " + losses
+                + ", quit " + quits + ", unfinished " + unfinished + "\n";
+        str += String.format("  win rate %.4f%n", getWinRate());
+        str += String.format("  turns: mean %.2f, p10 %d, p50 %d, p90 %d, p99 %d%n",
+                (double) totalTurns / games, turnPercentile(0.1), turnPercentile(0.5),
+                turnPercentile(0.9), turnPercentile(0.99));
+        str += String.format("  gold:  mean %.2f, p10 %d, p50 %d, p90 %d, p99 %d",
+                (double) totalGold / games, goldPercentile(0.1), goldPercentile(0.5),
+                goldPercentile(0.9), goldPercentile(0.99));
+        return str;
+    }
+}
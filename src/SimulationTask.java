@@ -0,0 +1,73 @@
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A fork-join task that plays a range of simulated games.<p>
+ * Big ranges are split in half until they are small enough to play on one thread; each half
+ * keeps its own SimulationStats and the halves are merged on the way back up, so the threads
+ * never share anything while the games are running.
+ */
+
+public class SimulationTask extends RecursiveTask<SimulationStats> {
+    // constants
+    private static final long serialVersionUID = 1L;
+    private static final int GAMES_PER_TASK = 4096;
+
+    // instance variables
+    private Mode mode;
+    private PlayerStrategy strategy;
+    private int maxTurns;
+    private long seed;
+    private long firstGame;
+    private long lastGame;
+    private Leaderboard leaderboard;
+
+    /**
+     * @param mode The difficulty to play on.
+     * @param strategy The strategy making the moves.
+     * @param maxTurns How many moves a game may take before it is stopped.
+     * @param seed The seed for the whole batch; each game's seed is worked out from it and the game's number.
+     * @param firstGame The number of the first game to play.
+     * @param lastGame One past the number of the last game to play.
+     */
+    public SimulationTask(Mode mode, PlayerStrategy strategy, int maxTurns, long seed, long firstGame, long lastGame) {
+        this(mode, strategy, maxTurns, seed, firstGame, lastGame, null);
+    }
+
+    /**
+     * @param mode The difficulty to play on.
+     * @param strategy The strategy making the moves.
+     * @param maxTurns How many moves a game may take before it is stopped.
+     * @param seed The seed for the whole batch; each game's seed is worked out from it and the game's number.
+     * @param firstGame The number of the first game to play.
+     * @param lastGame One past the number of the last game to play.
+     * @param leaderboard Where every game's run is added, or null to not keep them.
+     */
+    public SimulationTask(Mode mode, PlayerStrategy strategy, int maxTurns, long seed, long firstGame, long lastGame,
+                          Leaderboard leaderboard) {
+        this.mode = mode;
+        this.strategy = strategy;
+        this.maxTurns = maxTurns;
+        this.seed = seed;
+        this.firstGame = firstGame;
+        this.lastGame = lastGame;
+        this.leaderboard = leaderboard;
+    }
+
+    protected SimulationStats compute() {
+        if (lastGame - firstGame <= GAMES_PER_TASK) {
+            SimulationStats stats = new SimulationStats(maxTurns);
+            for (long game = firstGame; game < lastGame; game++) {
+                SimulatedGame.play(mode, strategy, maxTurns, GameRandom.seedFor(seed, game), stats, leaderboard);
+            }
+            return stats;
+        }
+
+        long middle = firstGame + (lastGame - firstGame) / 2;
+        SimulationTask left = new SimulationTask(mode, strategy, maxTurns, seed, firstGame, middle, leaderboard);
+        SimulationTask right = new SimulationTask(mode, strategy, maxTurns, seed, middle, lastGame, leaderboard);
+        left.fork();
+        SimulationStats stats = right.compute();
+        stats.merge(left.join());
+        return stats;
+    }
+}
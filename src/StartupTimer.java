@@ -0,0 +1,52 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Passes input through from another InputSource and reports how long the game took to ask its
+ * first question, which is how long the player waits after starting it.<p>
+ * The time is worked out after the question has been shown, so loading the management classes
+ * to find out when the JVM started isn't counted.
+ */
+
+public class StartupTimer implements InputSource {
+    // instance variables
+    private InputSource input;
+    private String sinkName;
+    private long mainStartNanos;
+    private boolean reported;
+
+    /**
+     * @param input Where the player's input really comes from.
+     * @param sinkName The kind of output being timed, for the report.
+     * @param mainStartNanos System.nanoTime() from the start of main().
+     */
+    public StartupTimer(InputSource input, String sinkName, long mainStartNanos) {
+        this.input = input;
+        this.sinkName = sinkName;
+        this.mainStartNanos = mainStartNanos;
+        reported = false;
+    }
+
+    public String nextLine() {
+        if (!reported) {
+            report();
+        }
+        return input.nextLine();
+    }
+
+    public boolean awaitInput(long millis) {
+        return input.awaitInput(millis);
+    }
+
+    public void waitForEnter() {
+        input.waitForEnter();
+    }
+
+    private void report() {
+        long now = System.currentTimeMillis();
+        long sinceMain = (System.nanoTime() - mainStartNanos) / 1000000;
+        long sinceJvm = now - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.err.println("First prompt with " + sinkName + " output: " + sinceJvm
+                + " ms after the JVM started, " + sinceMain + " ms after main()");
+        reported = true;
+    }
+}
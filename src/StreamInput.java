@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the player's input one line at a time from any InputStream, like a network connection.<p>
+ * Bytes are read from the stream a buffer at a time and the buffer is scanned for line breaks,
+ * so a line costs one read call rather than one per byte. The buffers are small (the line buffer
+ * grows if a line is longer), so thousands of idle players don't each hold the large buffers a
+ * BufferedReader would. Made from a Socket, it can also wait for input with a time limit (see
+ * awaitInput()), using the socket's read timeout.
+ */
+
+public class StreamInput implements InputSource {
+    // constants
+    private static final int START_SIZE = 64;
+    private static final int BUFFER_SIZE = 256;
+
+    // instance variables
+    private InputStream in;
+    private Socket socket;
+    private byte[] buffer;
+    // the bytes read but not used yet are buffer[position] to buffer[limit - 1]
+    private int position;
+    private int limit;
+    private byte[] line;
+    private boolean closed;
+
+    /**
+     * @param in The stream the player's lines come from.
+     */
+    public StreamInput(InputStream in) {
+        this.in = in;
+        buffer = new byte[BUFFER_SIZE];
+        line = new byte[START_SIZE];
+        closed = false;
+    }
+
+    /**
+     * @param socket The connection the player's lines come from.
+     * @throws IOException if the connection is closed.
+     */
+    public StreamInput(Socket socket) throws IOException {
+        this(socket.getInputStream());
+        this.socket = socket;
+    }
+
+    /**
+     * @return The next line, without its line break, or null once the stream has ended.
+     */
+    public String nextLine() {
+        if (closed && position == limit) {
+            return null;
+        }
+        int length = 0;
+        boolean ended = false;
+        try {
+            while (!ended) {
+                if (position == limit && !fill()) {
+                    closed = true;
+                    if (length == 0) {
+                        return null;
+                    }
+                    break;
+                }
+                int end = position;
+                while (end < limit && buffer[end] != '\n') {
+                    end++;
+                }
+                int count = end - position;
+                if (length + count > line.length) {
+                    byte[] bigger = new byte[Math.max(line.length * 2, length + count)];
+                    System.arraycopy(line, 0, bigger, 0, length);
+                    line = bigger;
+                }
+                System.arraycopy(buffer, position, line, length, count);
+                length += count;
+                ended = end < limit;
+                // skips the line break too
+                position = ended ? end + 1 : end;
+            }
+        } catch (IOException e) {
+            closed = true;
+            position = limit;
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public void waitForEnter() {
+        nextLine();
+    }
+
+    /**
+     * Waits for the next bytes if none are buffered yet; nextLine() starts with them.
+     * Without a socket there is no way to give up waiting, so this just says the input is there.
+     */
+    public boolean awaitInput(long millis) {
+        if (closed || socket == null || position < limit) {
+            return true;
+        }
+        try {
+            socket.setSoTimeout((int) Math.max(1, Math.min(Integer.MAX_VALUE, millis)));
+            try {
+                if (!fill()) {
+                    closed = true;
+                }
+            } catch (SocketTimeoutException e) {
+                return false;
+            } finally {
+                socket.setSoTimeout(0);
+            }
+        } catch (IOException e) {
+            // the connection failed; nextLine() finds out and says the player is gone
+            closed = true;
+        }
+        return true;
+    }
+
+    /**
+     * Reads as many bytes as have arrived (waiting for at least one) into the empty buffer.
+     *
+     * @return false if the stream has ended.
+     */
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read == -1) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * One finished line of output and the colors it is shown in, kept in a Scrollback.<p>
+ * The text is one String and the colors are runs over it (run i goes from runEnds[i - 1] to
+ * runEnds[i]), so a line costs a few small arrays no matter how many pieces it was built from.
+ */
+
+public class StyledLine {
+    // constants
+    public static final StyledLine EMPTY = new StyledLine("", new int[0], new TextColor[0]);
+
+    // instance variables
+    private final String text;
+    private final int[] runEnds;
+    private final TextColor[] colors;
+
+    /**
+     * @param text The line's text, without a line break.
+     * @param runEnds Where each color run ends in the text; the last one is text.length().
+     * @param colors The color of each run.
+     */
+    public StyledLine(String text, int[] runEnds, TextColor[] colors) {
+        this.text = text;
+        this.runEnds = runEnds;
+        this.colors = colors;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return How many color runs the line has.
+     */
+    public int getRunCount() {
+        return colors.length;
+    }
+
+    /**
+     * @param run The run's number.
+     * @return Where the run starts in the text.
+     */
+    public int getRunStart(int run) {
+        if (run == 0) {
+            return 0;
+        }
+        return runEnds[run - 1];
+    }
+
+    /**
+     * @param run The run's number.
+     * @return Where the run ends in the text (exclusive).
+     */
+    public int getRunEnd(int run) {
+        return runEnds[run];
+    }
+
+    /**
+     * @param run The run's number.
+     * @return The run's color.
+     */
+    public TextColor getRunColor(int run) {
+        return colors[run];
+    }
+}
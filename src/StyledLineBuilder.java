@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/**
+ * Collects pieces of colored text into one StyledLine; pieces in the same color as the one
+ * before them are merged into a single run.<p>
+ * The builder's buffers are reused from one line to the next.
+ */
+
+public class StyledLineBuilder {
+    // instance variables
+    private StringBuilder text = new StringBuilder();
+    private int[] runEnds = new int[8];
+    private TextColor[] colors = new TextColor[8];
+    private int runs = 0;
+
+    /**
+     * Adds part of a String; it must not contain line breaks.
+     *
+     * @param piece The text to take the part from.
+     * @param start Where the part starts.
+     * @param end Where the part ends (exclusive).
+     * @param color The color of the part.
+     */
+    public void append(String piece, int start, int end, TextColor color) {
+        if (end > start) {
+            startRun(color);
+            text.append(piece, start, end);
+        }
+    }
+
+    /**
+     * Adds a number.
+     *
+     * @param number The number.
+     * @param color The color it is shown in.
+     */
+    public void appendNumber(int number, TextColor color) {
+        startRun(color);
+        text.append(number);
+    }
+
+    public boolean isEmpty() {
+        return text.length() == 0;
+    }
+
+    /**
+     * @return The line built so far; the builder keeps it, so more can be added afterwards.
+     */
+    public StyledLine build() {
+        if (runs == 0) {
+            return StyledLine.EMPTY;
+        }
+        runEnds[runs - 1] = text.length();
+        return new StyledLine(text.toString(), Arrays.copyOf(runEnds, runs), Arrays.copyOf(colors, runs));
+    }
+
+    /**
+     * Empties the builder to start the next line.
+     */
+    public void reset() {
+        text.setLength(0);
+        runs = 0;
+    }
+
+    private void startRun(TextColor color) {
+        if (runs > 0 && colors[runs - 1] == color) {
+            return;
+        }
+        if (runs > 0) {
+            runEnds[runs - 1] = text.length();
+        }
+        if (runs == colors.length) {
+            colors = Arrays.copyOf(colors, runs * 2);
+            runEnds = Arrays.copyOf(runEnds, runs * 2);
+        }
+        colors[runs] = color;
+        runs++;
+    }
+}
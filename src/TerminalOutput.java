@@ -0,0 +1,159 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shows the game's text in a terminal using ANSI color codes, for machines with no display.<p>
+ * Text is turned into UTF-8 bytes straight into one buffer that is reused for the whole game,
+ * and the buffer is only written out when it fills up or when flush() is called. Color changes
+ * are written as ready-made byte sequences, and only when the color actually changes.
+ */
+
+public class TerminalOutput implements OutputSink {
+    // constants
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final byte[] DEFAULT_COLOR = ansi(Colors.RESET);
+    private static final byte[] CLEAR_SCREEN = ansi("\033[H\033[2J");
+    // one ready-made code per TextColor, by ordinal
+    private static final byte[][] COLOR_CODES = new byte[TextColor.values().length][];
+
+    static {
+        for (TextColor color : TextColor.values()) {
+            COLOR_CODES[color.ordinal()] = ansi(color.getAnsiCode());
+        }
+        COLOR_CODES[TextColor.BLACK.ordinal()] = DEFAULT_COLOR;
+    }
+
+    // instance variables
+    private WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private byte[] currentColor;
+
+    /**
+     * Creates a terminal output that writes to System.out.
+     */
+    public TerminalOutput() {
+        this(new FileOutputStream(FileDescriptor.out).getChannel(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel Where the bytes are written, like stdout or a socket.
+     * @param bufferSize How many bytes are collected before they are written.
+     */
+    public TerminalOutput(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocate(bufferSize);
+        currentColor = null;
+    }
+
+    public void addTextToWindow(String text, TextColor color) {
+        switchColor(color);
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (buffer.remaining() < 4) {
+                drain();
+            }
+            if (c < 0x80) {
+                if (c == '\033') {
+                    // the text sets its own color (from the Colors class), so ours has to be sent again next time
+                    currentColor = null;
+                }
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(i + 1));
+                i++;
+                buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+
+    public void addNumber(int number, TextColor color) {
+        switchColor(color);
+        // an int has at most 11 characters, counting the minus sign
+        if (buffer.remaining() < 11) {
+            drain();
+        }
+        long value = number;
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        long place = 1;
+        while (place * 10 <= value) {
+            place *= 10;
+        }
+        while (place > 0) {
+            buffer.put((byte) ('0' + value / place % 10));
+            place /= 10;
+        }
+    }
+
+    public void clear() {
+        // anything still in the buffer would be wiped off the screen right away, so drop it
+        buffer.clear();
+        putBytes(CLEAR_SCREEN);
+        currentColor = null;
+    }
+
+    public void flush() {
+        if (currentColor != null && currentColor != DEFAULT_COLOR) {
+            // leave the terminal in its normal color while the player types
+            putBytes(DEFAULT_COLOR);
+            currentColor = DEFAULT_COLOR;
+        }
+        drain();
+    }
+
+    private void switchColor(TextColor color) {
+        byte[] code = COLOR_CODES[color.ordinal()];
+        if (code != currentColor) {
+            putBytes(code);
+            currentColor = code;
+        }
+    }
+
+    private void putBytes(byte[] bytes) {
+        if (buffer.remaining() < bytes.length) {
+            drain();
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes out everything in the buffer and empties it.
+     */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private static byte[] ansi(String code) {
+        return code.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,31 +1,77 @@
 /**
  * The Terrain class is designed to represent the zones between the towns in the Treasure Hunter game.
- * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
+ * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!<p>
+ * The terrains in the TerrainCatalog are made once and shared by every town that has them.
  */
 
 public class Terrain {
     // instance variables
+    private int id;
     private String terrainName;
+    private String coloredName;
     private String neededItem;
+    private String coloredItem;
+    private int neededItemId;
 
     /**
-     * Sets the class member variables
+     * Makes a terrain that isn't in the TerrainCatalog, like one from a saved game whose
+     * terrain has since been taken out of it.
      *
      * @param name The name of the zone.
      * @param item The item needed in order to cross the zone.
      */
     public Terrain(String name, String item) {
+        this(-1, name, item);
+    }
+
+    /**
+     * Sets the class member variables
+     *
+     * @param id The terrain's id in the TerrainCatalog, or -1 if it isn't in it.
+     * @param name The name of the zone.
+     * @param item The item needed in order to cross the zone.
+     */
+    public Terrain(int id, String name, String item) {
+        this.id = id;
         terrainName = name;
+        coloredName = Colors.CYAN + name + Colors.RESET;
         neededItem = item.toLowerCase();
+        coloredItem = Colors.PURPLE + neededItem + Colors.RESET;
+        neededItemId = ItemCatalog.idOf(neededItem);
     }
 
     // accessors
+    /**
+     * @return The terrain's id in the TerrainCatalog, or -1 if it isn't in it.
+     */
+    public int getId() {
+        return id;
+    }
+
     public String getTerrainName() {
-        return Colors.CYAN + terrainName + Colors.RESET;
+        return coloredName;
+    }
+
+    /**
+     * @return The name of the terrain without any color codes around it.
+     */
+    public String getTerrainNamePlain() {
+        return terrainName;
     }
 
     public String getNeededItem() {
-        return Colors.PURPLE + neededItem + Colors.RESET;
+        return coloredItem;
+    }
+
+    /**
+     * @return The name of the needed item without any color codes around it.
+     */
+    public String getNeededItemName() {
+        return neededItem;
+    }
+
+    public int getNeededItemId() {
+        return neededItemId;
     }
 
     /**
@@ -36,7 +82,7 @@ public class Terrain {
      * @return true if the Hunter has the proper item.
      */
     public boolean canCrossTerrain(Hunter hunter) {
-        if (hunter.hasItemInKit(neededItem)) {
+        if (hunter.hasItemInKit(neededItemId)) {
             return true;
         }
         return false;
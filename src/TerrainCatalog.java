@@ -0,0 +1,178 @@
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The list of every terrain a town can be surrounded by, loaded once from terrains.txt (or from
+ * the file in -Dtreasurehunter.terrains=file, for a mod with terrains of its own).<p>
+ * There is one Terrain object per terrain and every town shares it, so making a town doesn't
+ * make a Terrain. Picking one uses Vose's alias method: the weights are turned into a table
+ * where each column holds at most two terrains, so a pick is one roll, one multiply and one
+ * comparison, however many terrains there are.
+ */
+
+public class TerrainCatalog {
+    // constants
+    private static final String CATALOG_FILE = "terrains.txt";
+
+    // static variables
+    private static final ArrayList<Terrain> TERRAINS = new ArrayList<Terrain>();
+    private static final HashMap<String, Terrain> BY_NAME = new HashMap<String, Terrain>();
+    private static double[] chances;
+    // the alias table: column i is terrain i with chance aliasChances[i], and terrain aliases[i] otherwise
+    private static double[] aliasChances;
+    private static int[] aliases;
+
+    static {
+        load();
+    }
+
+    private TerrainCatalog() {
+    }
+
+    /**
+     * @return How many terrains there are; ids go from 0 to size() - 1.
+     */
+    public static int size() {
+        return TERRAINS.size();
+    }
+
+    /**
+     * @param id A terrain's id.
+     * @return The terrain.
+     */
+    public static Terrain get(int id) {
+        return TERRAINS.get(id);
+    }
+
+    /**
+     * @param name A terrain's name, like "Mountains".
+     * @return The terrain, or null if there is no terrain with that name.
+     */
+    public static Terrain named(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * @param id A terrain's id.
+     * @return The chance of a new town being surrounded by it.
+     */
+    public static double chanceOf(int id) {
+        return chances[id];
+    }
+
+    /**
+     * Picks the terrain around a new town.
+     *
+     * @param random The generator the town is made from; one roll is used.
+     * @return The terrain.
+     */
+    public static Terrain pick(GameRandom random) {
+        double roll = random.nextDouble() * aliasChances.length;
+        int column = (int) roll;
+        if (roll - column < aliasChances[column]) {
+            return TERRAINS.get(column);
+        }
+        return TERRAINS.get(aliases[column]);
+    }
+
+    private static void load() {
+        String file = System.getProperty("treasurehunter.terrains");
+        String source = file == null ? CATALOG_FILE : file;
+        ArrayList<Double> weights = new ArrayList<Double>();
+        try (InputStream in = file == null ? TerrainCatalog.class.getResourceAsStream(CATALOG_FILE) : new FileInputStream(file)) {
+            if (in == null) {
+                throw new IllegalStateException(CATALOG_FILE + " is missing from the classpath");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line = reader.readLine();
+            while (line != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    String[] fields = line.split(",");
+                    String name = fields[0].trim();
+                    String item = fields[1].trim().toLowerCase();
+                    double weight = Double.parseDouble(fields[2].trim());
+                    if (BY_NAME.containsKey(name)) {
+                        throw new IllegalStateException(source + " lists " + name + " twice");
+                    }
+                    if (ItemCatalog.idOf(item) == -1) {
+                        throw new IllegalStateException(source + ": " + name + " needs " + item + ", which isn't in items.txt");
+                    }
+                    if (!(weight > 0)) {
+                        throw new IllegalStateException(source + ": " + name + " has weight " + weight);
+                    }
+                    Terrain terrain = new Terrain(TERRAINS.size(), name, item);
+                    TERRAINS.add(terrain);
+                    BY_NAME.put(name, terrain);
+                    weights.add(weight);
+                }
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (TERRAINS.isEmpty()) {
+            throw new IllegalStateException(source + " has no terrains");
+        }
+        buildAliasTable(weights);
+    }
+
+    /**
+     * Vose's alias method: scale the weights so they average 1, then pair each column that is
+     * under 1 with one that is over 1 and let the big one fill up the small one's column.
+     */
+    private static void buildAliasTable(ArrayList<Double> weights) {
+        int n = weights.size();
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        chances = new double[n];
+        aliasChances = new double[n];
+        aliases = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            chances[i] = weights.get(i) / total;
+            scaled[i] = chances[i] * n;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            aliasChances[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // whatever is left is 1 give or take rounding, so it fills its whole column
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            aliasChances[i] = 1;
+            aliases[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            aliasChances[i] = 1;
+            aliases[i] = i;
+        }
+    }
+}
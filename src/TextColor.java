@@ -0,0 +1,33 @@
+/**
+ * The colors the game's text can be shown in.<p>
+ * The game uses these instead of java.awt.Color so that nothing from AWT is loaded unless the
+ * game is actually shown in a window; each OutputSink turns them into whatever it needs
+ * (a Swing style or an ANSI code).
+ */
+
+public enum TextColor {
+    BLACK(Colors.RESET),
+    RED(Colors.RED),
+    GREEN(Colors.GREEN),
+    YELLOW(Colors.YELLOW),
+    BLUE(Colors.BLUE),
+    PINK(Colors.PURPLE),
+    MAGENTA(Colors.PURPLE),
+    CYAN(Colors.CYAN),
+    WHITE(Colors.WHITE);
+
+    // instance variables
+    private final String ansiCode;
+
+    TextColor(String ansiCode) {
+        this.ansiCode = ansiCode;
+    }
+
+    /**
+     * @return The ANSI code that switches a terminal to this color; black is the terminal's own
+     *         color, since black text would be invisible on most terminals.
+     */
+    public String getAnsiCode() {
+        return ansiCode;
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Pits several strategies against each other on the same games.<p>
+ * Usage: java Tournament [games per mode] [mode|all] [strategies] [max turns] [seed]<p>
+ * The strategies are a comma-separated list like "greedy,random,policy" (the default is
+ * "greedy,random"); "policy" solves the mode with an MdpSolver first, which takes 20 to 40 seconds
+ * per mode on a single core (less with more cores, since the solver's sweeps run in parallel).
+ * Every strategy plays every game from the same seed with common rolls, so a strategy only does
+ * better because it played better. The games run on every core with a ForkJoinPool and the
+ * results are kept in sketches of constant size, so millions of games need no more memory than a few.
+ * For each strategy it prints the win rate with a 95% confidence interval, quantiles of final
+ * gold and of turns to win, and how its win rate differs from the first strategy's.
+ */
+
+public class Tournament {
+    public static void main(String[] args) {
+        long games = 100_000;
+        String which = "all";
+        String[] names = {"greedy", "random"};
+        int maxTurns = 1000;
+        long seed = System.nanoTime();
+        if (args.length > 0) {
+            games = Long.parseLong(args[0]);
+        }
+        if (args.length > 1) {
+            which = args[1];
+        }
+        if (args.length > 2) {
+            names = args[2].split(",");
+        }
+        if (args.length > 3) {
+            maxTurns = Integer.parseInt(args[3]);
+        }
+        if (args.length > 4) {
+            seed = Long.parseLong(args[4]);
+        }
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.println("Tournament of " + games + " games per mode on " + pool.getParallelism() + " threads, seed " + seed);
+        for (Mode mode : Mode.values()) {
+            if (!which.equals("all") && !which.equalsIgnoreCase(mode.name())) {
+                continue;
+            }
+            PlayerStrategy[] strategies = new PlayerStrategy[names.length];
+            for (int i = 0; i < names.length; i++) {
+                strategies[i] = strategyFor(names[i], mode);
+            }
+            long start = System.nanoTime();
+            TournamentStats[] stats = run(pool, mode, strategies, names, games, maxTurns, seed);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(mode + ":");
+            for (int i = 0; i < stats.length; i++) {
+                System.out.println("  " + stats[i].toString().replace("\n", "\n  "));
+                if (i > 0) {
+                    double[] difference = stats[i].differenceFromBaseline();
+                    System.out.printf("    vs %s: %+.4f (95%% CI %+.4f to %+.4f)%n", names[0],
+                            difference[0], difference[1], difference[2]);
+                }
+            }
+            System.out.printf("  %.0f games/s%n", games * names.length / seconds);
+        }
+    }
+
+    /**
+     * Plays a tournament on the pool and returns each strategy's combined results.
+     *
+     * @param pool The pool to run the games on.
+     * @param mode The difficulty to play on.
+     * @param strategies The strategies taking part; the first one is the baseline.
+     * @param names The strategies' names.
+     * @param games How many games each strategy plays.
+     * @param maxTurns How many moves a game may take before it is stopped.
+     * @param seed The seed for the tournament; the same seed gives the same results.
+     * @return The results, in the same order as the strategies.
+     */
+    public static TournamentStats[] run(ForkJoinPool pool, Mode mode, PlayerStrategy[] strategies, String[] names,
+                                        long games, int maxTurns, long seed) {
+        return pool.invoke(new TournamentTask(mode, strategies, names, maxTurns, seed, 0, games));
+    }
+
+    /**
+     * @param name The name of a strategy: "greedy", "random" or "policy".
+     * @param mode The mode it will play, which the policy is solved for.
+     * @return The matching PlayerStrategy.
+     */
+    public static PlayerStrategy strategyFor(String name, Mode mode) {
+        if (name.equals("policy")) {
+            MdpSolver solver = new MdpSolver(mode, MdpSolver.DEFAULT_GOLD_CAP);
+            solver.solve();
+            return new PolicyStrategy(solver);
+        }
+        return Simulation.strategyFor(name);
+    }
+}
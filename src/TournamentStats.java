@@ -0,0 +1,163 @@
+/**
+ * The results of one strategy in a Tournament.<p>
+ * Final gold and the number of turns it took to win are kept in QuantileSketches, so the memory
+ * used stays the same however many games are played, and two sets of stats are merged by adding
+ * them together. Because every strategy plays the same games, the stats also count the games
+ * this strategy won and the first strategy (the baseline) lost, and the other way around, which
+ * is what the difference between their win rates really rests on.
+ */
+
+public class TournamentStats {
+    // constants
+    public static final double Z_95 = 1.959964;
+
+    // instance variables
+    private String strategyName;
+    private long wins;
+    private long losses;
+    private long quits;
+    private long unfinished;
+    private long beatBaseline;
+    private long lostToBaseline;
+    private QuantileSketch finalGold;
+    private QuantileSketch turnsToWin;
+
+    /**
+     * @param strategyName The name of the strategy, for printing.
+     */
+    public TournamentStats(String strategyName) {
+        this.strategyName = strategyName;
+        finalGold = new QuantileSketch();
+        turnsToWin = new QuantileSketch();
+    }
+
+    /**
+     * Records one game.
+     *
+     * @param outcome How the game ended.
+     * @param turns How many moves it took.
+     * @param gold The gold the hunter ended with.
+     * @param baselineWon Whether the baseline strategy won the same game.
+     */
+    public void record(GameOutcome outcome, int turns, int gold, boolean baselineWon) {
+        if (outcome == GameOutcome.WON) {
+            wins++;
+            turnsToWin.add(turns);
+            if (!baselineWon) {
+                beatBaseline++;
+            }
+        } else {
+            if (outcome == GameOutcome.LOST) {
+                losses++;
+            } else if (outcome == GameOutcome.QUIT) {
+                quits++;
+            } else {
+                unfinished++;
+            }
+            if (baselineWon) {
+                lostToBaseline++;
+            }
+        }
+        finalGold.add(gold);
+    }
+
+    /**
+     * Adds the results from another set of stats for the same strategy into this one.
+     *
+     * @param other The stats to add.
+     */
+    public void merge(TournamentStats other) {
+        wins += other.wins;
+        losses += other.losses;
+        quits += other.quits;
+        unfinished += other.unfinished;
+        beatBaseline += other.beatBaseline;
+        lostToBaseline += other.lostToBaseline;
+        finalGold.merge(other.finalGold);
+        turnsToWin.merge(other.turnsToWin);
+    }
+
+    public String getStrategyName() {
+        return strategyName;
+    }
+
+    public long getGames() {
+        return wins + losses + quits + unfinished;
+    }
+
+    public double getWinRate() {
+        long games = getGames();
+        if (games == 0) {
+            return 0;
+        }
+        return (double) wins / games;
+    }
+
+    public QuantileSketch getFinalGold() {
+        return finalGold;
+    }
+
+    public QuantileSketch getTurnsToWin() {
+        return turnsToWin;
+    }
+
+    /**
+     * @return The 95% confidence interval of the win rate, as {low, high}.
+     */
+    public double[] winRateInterval() {
+        return wilsonInterval(wins, getGames(), Z_95);
+    }
+
+    /**
+     * How much better this strategy's win rate is than the baseline's on the same games, with a
+     * 95% confidence interval. Games both strategies won or both lost say nothing about the
+     * difference, so only the games they disagreed on are used, which makes the interval much
+     * narrower than comparing two independent win rates would.
+     *
+     * @return {difference, low, high}.
+     */
+    public double[] differenceFromBaseline() {
+        double games = Math.max(1, getGames());
+        double disagreements = beatBaseline + lostToBaseline;
+        double difference = (beatBaseline - lostToBaseline) / games;
+        double error = Z_95 * Math.sqrt(Math.max(0, disagreements - games * difference * difference)) / games;
+        return new double[] {difference, difference - error, difference + error};
+    }
+
+    /**
+     * The Wilson score interval for a proportion, which unlike the usual p +/- z * sqrt(p(1-p)/n)
+     * stays between 0 and 1 and still works when almost every game is won or lost.
+     *
+     * @param successes How many trials succeeded.
+     * @param trials How many trials there were.
+     * @param z How many standard deviations wide the interval is (1.96 for 95%).
+     * @return {low, high}.
+     */
+    public static double[] wilsonInterval(long successes, long trials, double z) {
+        if (trials == 0) {
+            return new double[] {0, 1};
+        }
+        double p = (double) successes / trials;
+        double z2 = z * z;
+        double denominator = 1 + z2 / trials;
+        double centre = (p + z2 / (2.0 * trials)) / denominator;
+        double spread = z * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / denominator;
+        return new double[] {Math.max(0, centre - spread), Math.min(1, centre + spread)};
+    }
+
+    /**
+     * @return A printable summary of the win rate, final gold and turns to win.
+     */
+    public String toString() {
+        double[] interval = winRateInterval();
+        String str = String.format("%s: win rate %.4f (95%% CI %.4f-%.4f), lost %d, quit %d, unfinished %d%n",
+                strategyName, getWinRate(), interval[0], interval[1], losses, quits, unfinished);
+        str += String.format("  gold:          mean %.2f, p10 %.0f, p50 %.0f, p90 %.0f, p99 %.0f%n",
+                finalGold.getMean(), finalGold.quantile(0.1), finalGold.quantile(0.5),
+                finalGold.quantile(0.9), finalGold.quantile(0.99));
+        str += String.format("  turns to win:  mean %.2f, p10 %.0f, p50 %.0f, p90 %.0f, p99 %.0f",
+                turnsToWin.getMean(), turnsToWin.quantile(0.1), turnsToWin.quantile(0.5),
+                turnsToWin.quantile(0.9), turnsToWin.quantile(0.99));
+        return str;
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A fork-join task that plays a range of tournament games with every strategy.<p>
+ * Each game is played once per strategy from the same seed with common rolls (see SimulatedGame),
+ * so the strategies face the same towns and the same luck. Like SimulationTask, big ranges are
+ * split in half and each half keeps its own stats, merged on the way back up.
+ */
+
+public class TournamentTask extends RecursiveTask<TournamentStats[]> {
+    // constants
+    private static final long serialVersionUID = 1L;
+    private static final int GAMES_PER_TASK = 1024;
+
+    // instance variables
+    private Mode mode;
+    private PlayerStrategy[] strategies;
+    private String[] names;
+    private int maxTurns;
+    private long seed;
+    private long firstGame;
+    private long lastGame;
+
+    /**
+     * @param mode The difficulty to play on.
+     * @param strategies The strategies taking part; the first one is the baseline the others are compared to.
+     * @param names The strategies' names, for the stats.
+     * @param maxTurns How many moves a game may take before it is stopped.
+     * @param seed The seed for the whole tournament; each game's seed is worked out from it and the game's number.
+     * @param firstGame The number of the first game to play.
+     * @param lastGame One past the number of the last game to play.
+     */
+    public TournamentTask(Mode mode, PlayerStrategy[] strategies, String[] names, int maxTurns, long seed,
+                          long firstGame, long lastGame) {
+        this.mode = mode;
+        this.strategies = strategies;
+        this.names = names;
+        this.maxTurns = maxTurns;
+        this.seed = seed;
+        this.firstGame = firstGame;
+        this.lastGame = lastGame;
+    }
+
+    protected TournamentStats[] compute() {
+        if (lastGame - firstGame <= GAMES_PER_TASK) {
+            TournamentStats[] stats = new TournamentStats[strategies.length];
+            for (int i = 0; i < strategies.length; i++) {
+                stats[i] = new TournamentStats(names[i]);
+            }
+            for (long game = firstGame; game < lastGame; game++) {
+                long gameSeed = GameRandom.seedFor(seed, game);
+                boolean baselineWon = false;
+                for (int i = 0; i < strategies.length; i++) {
+                    SimulatedGame played = new SimulatedGame(mode, strategies[i], gameSeed, true);
+                    GameOutcome outcome = played.play(maxTurns);
+                    if (i == 0) {
+                        baselineWon = outcome == GameOutcome.WON;
+                    }
+                    stats[i].record(outcome, played.getTurns(), played.getHunter().getGold(), baselineWon);
+                }
+            }
+            return stats;
+        }
+
+        long middle = firstGame + (lastGame - firstGame) / 2;
+        TournamentTask left = new TournamentTask(mode, strategies, names, maxTurns, seed, firstGame, middle);
+        TournamentTask right = new TournamentTask(mode, strategies, names, maxTurns, seed, middle, lastGame);
+        left.fork();
+        TournamentStats[] stats = right.compute();
+        TournamentStats[] leftStats = left.join();
+        for (int i = 0; i < stats.length; i++) {
+            stats[i].merge(leftStats[i]);
+        }
+        return stats;
+    }
+}
@@ -1,5 +1,3 @@
-import java.awt.*;
-
 /**
  * The Town Class is where it all happens.
  * The Town is designed to manage all the things a Hunter can do in town.
@@ -7,6 +5,46 @@ import java.awt.*;
  */
 
 public class Town {
+    // constants
+    private static final int SWORD = ItemCatalog.idOf("sword");
+    private static final int SHOVEL = ItemCatalog.idOf("shovel");
+
+    // the built-in odds behind every roll in town (see Mode.getBuiltInRules()); a Ruleset can change them
+    static final double TOUGH_NO_TROUBLE_CHANCE = 0.66;
+    static final double NO_TROUBLE_CHANCE = 0.33;
+    static final int MAX_BRAWL_GOLD = 10;
+    static final double DIG_CHANCE = 0.25;
+    static final int DIG_GOLD_CHOICES = 4;
+    static final double ITEM_BREAK_CHANCE = 0.5;
+    static final double NO_BREAK_TOUGHNESS = .25;
+    static final String[] TREASURES = {"crown", "trophy", "gem", "dust"};
+    static final int TREASURE_CHOICES = 3;
+
+    // everything the town says, from messages.txt
+    private static final Message WELCOME = MessageCatalog.get("town.welcome");
+    private static final Message ROUGH = MessageCatalog.get("town.rough");
+    private static final Message SLEEPY = MessageCatalog.get("town.sleepy");
+    private static final Message CROSSED = MessageCatalog.get("town.crossed");
+    private static final Message ITEM_LOST = MessageCatalog.get("town.itemLost");
+    private static final Message CANT_LEAVE = MessageCatalog.get("town.cantLeave");
+    private static final Message LEFT_SHOP = MessageCatalog.get("town.leftShop");
+    private static final Message NO_TROUBLE = MessageCatalog.get("trouble.none");
+    private static final Message SWORD_BRAWL = MessageCatalog.get("trouble.sword");
+    private static final Message FIGHT = MessageCatalog.get("trouble.fight");
+    private static final Message BRAWL_WON = MessageCatalog.get("trouble.won");
+    private static final Message BRAWL_LOST = MessageCatalog.get("trouble.lost");
+    private static final Message GAME_OVER = MessageCatalog.get("trouble.gameOver");
+    private static final Message FOUND = MessageCatalog.get("hunt.found");
+    private static final Message HUNT_WON = MessageCatalog.get("hunt.won");
+    private static final Message DUPLICATE = MessageCatalog.get("hunt.duplicate");
+    private static final Message SEARCHED = MessageCatalog.get("hunt.searched");
+    private static final Message DIG_ENTER = MessageCatalog.get("dig.enter");
+    private static final Message DIG_STRUCK = MessageCatalog.get("dig.struck");
+    private static final Message DIG_NOTHING = MessageCatalog.get("dig.nothing");
+    private static final Message DIG_TIRED = MessageCatalog.get("dig.tired");
+    private static final Message DIG_LEAVE = MessageCatalog.get("dig.leave");
+    private static final Message NO_SHOVEL = MessageCatalog.get("dig.noShovel");
+
     // instance variables
     private Hunter hunter;
     private Shop shop;
@@ -15,9 +53,10 @@ public class Town {
     private boolean toughTown;
     private boolean treasureFound;
     private String treasure;
-    private double toughness;
+    private Rules rules;
 
-    private OutputWindow window;
+    private OutputSink window;
+    private GameRandom random;
 
 
 
@@ -26,11 +65,54 @@ public class Town {
      *
      * @param shop The town's shoppe.
      * @param toughness The surrounding terrain.
+     * @param window Where the town's messages are shown.
+     * @param random The game's random number generator.
+     */
+    public Town(Shop shop, double toughness, OutputSink window, GameRandom random) {
+        this(shop, Rules.forToughness(toughness), window, random, random);
+    }
+
+    /**
+     * Builds a town that plays by the given rules.
+     *
+     * @param shop The town's shoppe.
+     * @param rules The rules of the mode being played.
+     * @param window Where the town's messages are shown.
+     * @param random The game's random number generator.
+     */
+    public Town(Shop shop, Rules rules, OutputSink window, GameRandom random) {
+        this(shop, rules, window, random, random);
+    }
+
+    /**
+     * Builds a town whose terrain, toughness and treasure come from their own generator.
+     *
+     * @param shop The town's shoppe.
+     * @param toughness How likely the town is to be a tough one.
+     * @param window Where the town's messages are shown.
+     * @param layout The generator the town is made from.
+     * @param random The game's random number generator, for everything that happens in town.
+     */
+    public Town(Shop shop, double toughness, OutputSink window, GameRandom layout, GameRandom random) {
+        this(shop, Rules.forToughness(toughness), window, layout, random);
+    }
+
+    /**
+     * Builds a town whose terrain, toughness and treasure come from their own generator, so the
+     * same town can be built again later (see World).
+     *
+     * @param shop The town's shoppe.
+     * @param rules The rules of the mode being played.
+     * @param window Where the town's messages are shown.
+     * @param layout The generator the town is made from.
+     * @param random The game's random number generator, for everything that happens in town.
      */
-    public Town(Shop shop, double toughness, OutputWindow window) {
+    public Town(Shop shop, Rules rules, OutputSink window, GameRandom layout, GameRandom random) {
         this.shop = shop;
-        this.terrain = getNewTerrain();
+        this.rules = rules;
         this.window = window;
+        this.random = random;
+        this.terrain = getNewTerrain(layout);
 
         // the hunter gets set using the hunterArrives method, which
         // gets called from a client class
@@ -39,16 +121,74 @@ public class Town {
         printMessage = "";
 
         // higher toughness = more likely to be a tough town
-        toughTown = (Math.random() < toughness);
-        assignTreasure();
+        toughTown = (layout.nextDouble() < rules.getToughness());
+        assignTreasure(layout);
         treasureFound = false;
-        this.toughness = toughness;
+    }
+
+    /**
+     * Rebuilds a town exactly as it was when a game was saved; the hunter is already in town,
+     * so nothing is printed.
+     *
+     * @param shop The town's shoppe.
+     * @param terrain The surrounding terrain.
+     * @param rules The rules of the mode being played.
+     * @param toughTown Whether the town is a tough one.
+     * @param treasure The treasure hidden in the town.
+     * @param treasureFound Whether the town has already been searched.
+     * @param hunter The Hunter in the town.
+     * @param window Where the town's messages are shown.
+     * @param random The game's random number generator.
+     */
+    public Town(Shop shop, Terrain terrain, Rules rules, boolean toughTown, String treasure,
+                boolean treasureFound, Hunter hunter, OutputSink window, GameRandom random) {
+        this.shop = shop;
+        this.terrain = terrain;
+        this.rules = rules;
+        this.toughTown = toughTown;
+        this.treasure = treasure;
+        this.treasureFound = treasureFound;
+        this.hunter = hunter;
+        this.window = window;
+        this.random = random;
+        printMessage = "";
     }
 
     public String getLatestNews() {
         return printMessage;
     }
 
+    public double getToughness() {
+        return rules.getToughness();
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public String getTreasure() {
+        return treasure;
+    }
+
+    public Terrain getTerrain() {
+        return terrain;
+    }
+
+    public boolean isToughTown() {
+        return toughTown;
+    }
+
+    public boolean isTreasureFound() {
+        return treasureFound;
+    }
+
+    /**
+     * Marks the town as already searched, for a town that is being built again after the hunter searched it.
+     */
+    public void markSearched() {
+        treasureFound = true;
+    }
+
     /**
      * Assigns an object to the Hunter in town.
      *
@@ -56,13 +196,12 @@ public class Town {
      */
     public void hunterArrives(Hunter hunter) {
         this.hunter = hunter;
-        window.addTextToWindow("Welcome to town, ", Color.BLACK);
-        window.addTextToWindow(hunter.getHunterName() + ".", Color.PINK);
+        WELCOME.show(window, hunter.getHunterName(), 0, null, null);
 
         if (toughTown) {
-            window.addTextToWindow("\nIt's pretty rough around here, so watch yourself.", Color.BLACK);
+            ROUGH.show(window);
         } else {
-            window.addTextToWindow("\nWe're just a sleepy little town with mild mannered folk.", Color.BLACK);
+            SLEEPY.show(window);
         }
     }
 
@@ -74,24 +213,20 @@ public class Town {
     public boolean leaveTown() {
         boolean canLeaveTown = terrain.canCrossTerrain(hunter);
         if (canLeaveTown) {
-            String item = terrain.getNeededItem();
-            window.addTextToWindow("You used your ", Color.BLACK);
-            window.addTextToWindow(item, Color.PINK);
-            window.addTextToWindow(" to cross the ", Color.BLACK);
-            window.addTextToWindow(terrain.getTerrainName() + ".", Color.CYAN);
-            if (checkItemBreak() && !(toughness == .25)) {
-                hunter.removeItemFromKit(item);
-                window.addTextToWindow("\nUnfortunately, you lost your ", Color.BLACK);
-                window.addTextToWindow(item, Color.PINK);
+            String item = terrain.getNeededItemName();
+            CROSSED.show(window, null, 0, item, terrain.getTerrainNamePlain());
+            if (checkItemBreak()) {
+                hunter.removeItemFromKit(terrain.getNeededItemId());
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.count(GameCounter.ITEMS_BROKEN);
+                }
+                ITEM_LOST.showItem(window, item);
             }
 
             return true;
         }
 
-        window.addTextToWindow("You can't leave town, ", Color.BLACK);
-        window.addTextToWindow(hunter.getHunterName(), Color.PINK);
-        window.addTextToWindow(". You don't have a ", Color.BLACK);
-        window.addTextToWindow(terrain.getNeededItem() + ".", Color.PINK);
+        CANT_LEAVE.show(window, hunter.getHunterName(), 0, terrain.getNeededItemName(), null);
         return false;
     }
 
@@ -102,7 +237,29 @@ public class Town {
      */
     public void enterShop(String choice) {
         shop.enter(hunter, choice);
-        window.addTextToWindow("\nYou left the shop", Color.BLACK);
+        LEFT_SHOP.show(window);
+    }
+
+    /**
+     * Buys an item at the town's shop without asking the user any questions.
+     *
+     * @param item The item to buy.
+     */
+    public void buyFromShop(String item) {
+        shop.buyItem(hunter, item);
+    }
+
+    /**
+     * Sells an item to the town's shop without asking the user any questions.
+     *
+     * @param item The item to sell.
+     */
+    public void sellToShop(String item) {
+        shop.sellItem(hunter, item);
+    }
+
+    public Shop getShop() {
+        return shop;
     }
 
     /**
@@ -113,40 +270,42 @@ public class Town {
     public void lookForTrouble() {
         double noTroubleChance;
         if (toughTown) {
-            noTroubleChance = 0.66;
+            noTroubleChance = rules.getToughNoTroubleChance();
         } else {
-            noTroubleChance = 0.33;
+            noTroubleChance = rules.getNoTroubleChance();
         }
 
-        if (Math.random() > noTroubleChance) {
-            window.addTextToWindow("You couldn't find any trouble", Color.BLACK);
+        if (random.nextDouble() > noTroubleChance) {
+            NO_TROUBLE.show(window);
         } else {
-            if(hunter.hasItemInKit("sword")) {
-                int goldDiff = (int) (Math.random() * 10) + 1;
-                window.addTextToWindow("You want trouble, stranger!  You got it!\n", Color.RED);
-                window.addTextToWindow("\nthe brawler, seeing your sword, realizes he picked a losing fight and gives you his gold", Color.BLACK);
-                window.addTextToWindow("\nYou won the brawl and receive ", Color.BLACK);
-                window.addTextToWindow(""+goldDiff, Color.YELLOW);
-                window.addTextToWindow("gold.", Color.BLACK);
+            if(hunter.hasItemInKit(SWORD)) {
+                int goldDiff = random.nextInt(rules.getMaxBrawlGold()) + 1;
+                SWORD_BRAWL.showGold(window, goldDiff);
 
                 hunter.changeGold(goldDiff);
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.count(GameCounter.BRAWLS_WON);
+                    GameMetrics.count(GameCounter.GOLD_GAINED, goldDiff);
+                }
             } else {
-                window.addTextToWindow("You want trouble, stranger!  You got it!\nOof! Umph! Ow!\n", Color.RED);
-                int goldDiff = (int) (Math.random() * 10) + 1;
-                if (Math.random() > noTroubleChance && !hunter.hasItemInKit("sword")) {
-                    window.addTextToWindow("Okay, stranger! You proved yer mettle. Here, take my gold.", Color.BLACK);
-                    window.addTextToWindow("\nYou won the brawl and receive ", Color.BLACK);
-                    window.addTextToWindow(""+goldDiff, Color.YELLOW);
-                    window.addTextToWindow("gold.", Color.BLACK);
+                FIGHT.show(window);
+                int goldDiff = random.nextInt(rules.getMaxBrawlGold()) + 1;
+                if (random.nextDouble() > noTroubleChance && !hunter.hasItemInKit(SWORD)) {
+                    BRAWL_WON.showGold(window, goldDiff);
                     hunter.changeGold(goldDiff);
+                    if (GameMetrics.ENABLED) {
+                        GameMetrics.count(GameCounter.BRAWLS_WON);
+                        GameMetrics.count(GameCounter.GOLD_GAINED, goldDiff);
+                    }
                 } else {
-                    window.addTextToWindow("That'll teach you to go lookin' fer trouble in MY town! Now pay up!", Color.RED);
-                    window.addTextToWindow("\nYou lost the brawl and pay", Color.BLACK);
-                    window.addTextToWindow(""+goldDiff, Color.YELLOW);
-                    window.addTextToWindow("gold.", Color.BLACK);
+                    BRAWL_LOST.showGold(window, goldDiff);
                     hunter.changeGold(-goldDiff);
+                    if (GameMetrics.ENABLED) {
+                        GameMetrics.count(GameCounter.BRAWLS_LOST);
+                        GameMetrics.count(GameCounter.GOLD_LOST, goldDiff);
+                    }
                     if(hunter.getGold() < 0) {
-                        window.addTextToWindow("\nGAME OVER", Color.RED);
+                        GAME_OVER.show(window);
                     }
                 }
             }
@@ -156,51 +315,44 @@ public class Town {
     public void huntForTreasure() {
         if(!treasureFound) {
             if(!hunter.hasTreasure(treasure)) {
-                window.addTextToWindow("\nYou found a ", Color.BLACK);
-                window.addTextToWindow(treasure + "!", Color.PINK);
+                FOUND.showItem(window, treasure);
                 if(!treasure.equals("dust")) {
                     hunter.addTreasure(treasure);
                     if(hunter.treasureIsFull()) {
-                        window.addTextToWindow("\nYou found the last of the 3 ", Color.BLACK);
-                        window.addTextToWindow("treasures, ", Color.PINK);
-                        window.addTextToWindow("you win!", Color.BLACK);
+                        HUNT_WON.show(window);
                     }
                 }
             } else {
-                window.addTextToWindow("\nYou have already found a ", Color.BLACK);
-                window.addTextToWindow(treasure + ", ", Color.PINK);
-                window.addTextToWindow("you don't need another one", Color.BLACK);
+                DUPLICATE.showItem(window, treasure);
             }
             treasureFound = true;
         } else {
-            window.addTextToWindow("\nYou have already searched this town", Color.BLACK);
+            SEARCHED.show(window);
         }
     }
 
     public void digForGold(){
-        if (hunter.hasItemInKit("shovel")) {
+        if (hunter.hasItemInKit(SHOVEL)) {
             int goldFound = 0;
-            window.addTextToWindow("You enter the caves in search of", Color.BLACK);
-            window.addTextToWindow("gold.", Color.YELLOW);
-            if (Math.random() < 0.25) {
-                goldFound = (int) (4 * (Math.random()));
+            DIG_ENTER.show(window);
+            if (random.nextDouble() < rules.getDigChance()) {
+                goldFound = random.nextInt(rules.getDigGoldChoices());
                 if (goldFound != 0) {
-                    window.addTextToWindow("You struck ", Color.BLACK);
-                    window.addTextToWindow("gold!", Color.YELLOW);
+                    DIG_STRUCK.show(window);
                     hunter.changeGold(goldFound);
+                    if (GameMetrics.ENABLED) {
+                        GameMetrics.count(GameCounter.GOLD_GAINED, goldFound);
+                    }
                 } else {
-                    window.addTextToWindow("You didn't find any ", Color.BLACK);
-                    window.addTextToWindow("gold.", Color.YELLOW);
+                    DIG_NOTHING.show(window);
                 }
             } else {
-                window.addTextToWindow("You decided you were too tired to dig", Color.BLACK);
+                DIG_TIRED.show(window);
             }
-            window.addTextToWindow("You leave the cave with ", Color.BLACK);
-            window.addTextToWindow(goldFound + " gold", Color.YELLOW);
+            DIG_LEAVE.showGold(window, goldFound);
         }
         else{
-            window.addTextToWindow("You do not have a shovel, you need one to dig for", Color.BLACK);
-            window.addTextToWindow("gold.", Color.YELLOW);
+            NO_SHOVEL.show(window);
         }
     }
 
@@ -211,39 +363,26 @@ public class Town {
     /**
      * Determines the surrounding terrain for a town, and the item needed in order to cross that terrain.
      *
-     * @return A Terrain object.
+     * @param random The generator the town is made from.
+     * @return A Terrain object, shared with every other town that has it.
      */
-    private Terrain getNewTerrain() {
-        double rnd = Math.random();
-        if (rnd < .16) {
-            return new Terrain("Mountains", "Rope");
-        } else if (rnd < .33) {
-            return new Terrain("Ocean", "Boat");
-        } else if (rnd < .5) {
-            return new Terrain("Plains", "Horse");
-        } else if (rnd < .66) {
-            return new Terrain("Desert", "Water");
-        } else if (rnd < .833){
-            return new Terrain("Jungle", "Machete");
-        }
-        else{
-            return new Terrain("Marsh", "Boots");
-        }
+    private Terrain getNewTerrain(GameRandom random) {
+        return TerrainCatalog.pick(random);
     }
 
     /**
-     * Determines whether a used item has broken.
+     * Determines whether a used item has broken; the roll is made even when items never break
+     * (as in easy mode), so every mode uses up the same rolls.
      *
      * @return true if the item broke.
      */
     private boolean checkItemBreak() {
-        double rand = Math.random();
-        return (rand < 0.5);
+        double rand = random.nextDouble();
+        return (rand < rules.getItemBreakChance());
     }
 
-    private void assignTreasure() {
-        String[] treasureArray = {"crown", "trophy", "gem", "dust"};
-        int treasureSelection = (int) (Math.random() * 3);
-        treasure = treasureArray[treasureSelection];
+    private void assignTreasure(GameRandom random) {
+        int treasureSelection = random.nextInt(TREASURE_CHOICES);
+        treasure = TREASURES[treasureSelection];
     }
 }
\ No newline at end of file
@@ -0,0 +1,228 @@
+/**
+ * Works out exactly how a hunter's gold can turn out after a run of actions in town, instead of
+ * simulating them, by convolving the chances of each action's outcomes (see GoldDistribution).<p>
+ * Usage: java TownOdds mode gold actions [tough|mild] [sword] [shovel]<p>
+ * The actions are the game's letters, each optionally followed by how many times to do it:
+ * l looks for trouble, d digs for gold and m crosses the terrain to the next town. For example
+ * "java TownOdds hard 10 l20 tough" asks how 20 brawls in a tough town go for a hunter with 10
+ * gold and no sword. Tough or mild is only about the first town; without either, and in every
+ * town after a move, the town is tough as often as the mode's towns are, each one on its own.<p>
+ * The chances are the ones Town uses for its rolls: lookForTrouble() finds a fight when its roll
+ * is under the "no trouble" chance, and without a sword the hunter then wins when a second roll
+ * is over it; the gold is 1 to maxBrawlGold either way. digForGold() finds 0 to digGoldChoices-1
+ * gold when its roll is under digChance. leaveTown() breaks the item the town's terrain needs with
+ * itemBreakChance, and every town's terrain is drawn from TerrainCatalog, so each crossing risks
+ * each item as often as terrains need it; the hunter is taken to always have the item to cross
+ * with. (The rolls themselves are 53-bit and 32-bit fractions, which are off from these by under
+ * 2^-32.)
+ */
+
+public class TownOdds {
+    // constants
+    private static final long TIMING_NANOS = 200_000_000;
+
+    // instance variables
+    private Rules rules;
+    private double[] crossingBreaks;
+
+    /**
+     * @param rules The rules the towns are played by.
+     */
+    public TownOdds(Rules rules) {
+        this.rules = rules;
+        crossingBreaks = new double[ItemCatalog.size()];
+        for (int t = 0; t < TerrainCatalog.size(); t++) {
+            int item = TerrainCatalog.get(t).getNeededItemId();
+            if (item >= 0) {
+                crossingBreaks[item] += TerrainCatalog.chanceOf(t) * rules.getItemBreakChance();
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: java TownOdds mode gold actions [tough|mild] [sword] [shovel]");
+            return;
+        }
+        Mode mode = Mode.valueOf(args[0].toUpperCase());
+        int gold = Integer.parseInt(args[1]);
+        String actions = args[2];
+        Boolean tough = null;
+        boolean sword = false;
+        boolean shovel = false;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("tough")) {
+                tough = true;
+            } else if (args[i].equals("mild")) {
+                tough = false;
+            } else if (args[i].equals("sword")) {
+                sword = true;
+            } else if (args[i].equals("shovel")) {
+                shovel = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        TownOdds odds = new TownOdds(mode.getRules());
+        GoldDistribution result = null;
+        // worked out over and over for a moment, so the time printed is once the JIT has warmed up
+        long start = System.nanoTime();
+        long runs = 0;
+        while (runs == 0 || System.nanoTime() - start < TIMING_NANOS) {
+            if (tough == null) {
+                result = odds.inTown(GoldDistribution.of(gold), actions, sword, shovel);
+            } else {
+                result = odds.after(GoldDistribution.of(gold), actions, tough, sword, shovel);
+            }
+            runs++;
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / runs;
+        System.out.println(result);
+        System.out.printf("gold %d to %d, worked out in %.1f us%n", result.getLowestGold(), result.getHighestGold(), micros);
+    }
+
+    /**
+     * @param tough Whether the town is a tough one.
+     * @param sword Whether the hunter has a sword.
+     * @return The chance of each change in gold from looking for trouble once, from -maxBrawlGold to maxBrawlGold.
+     */
+    public double[] trouble(boolean tough, boolean sword) {
+        double fight = tough ? rules.getToughNoTroubleChance() : rules.getNoTroubleChance();
+        int maxBrawlGold = rules.getMaxBrawlGold();
+        double wonChance = sword ? fight : fight * (1 - fight);
+        double lostChance = sword ? 0 : fight * fight;
+        double[] chances = new double[2 * maxBrawlGold + 1];
+        chances[maxBrawlGold] = 1 - fight;
+        for (int g = 1; g <= maxBrawlGold; g++) {
+            chances[maxBrawlGold + g] = wonChance / maxBrawlGold;
+            chances[maxBrawlGold - g] = lostChance / maxBrawlGold;
+        }
+        return chances;
+    }
+
+    /**
+     * @param shovel Whether the hunter has a shovel; without one digging does nothing.
+     * @return The chance of each amount of gold found by digging once, from 0 up.
+     */
+    public double[] dig(boolean shovel) {
+        if (!shovel) {
+            return new double[] {1};
+        }
+        int choices = rules.getDigGoldChoices();
+        double goldChance = rules.getDigChance() / choices;
+        double[] chances = new double[choices];
+        chances[0] = 1 - goldChance * (choices - 1);
+        for (int g = 1; g < choices; g++) {
+            chances[g] = goldChance;
+        }
+        return chances;
+    }
+
+    /**
+     * @return The chance each item breaks on one crossing, by ItemCatalog id.
+     */
+    public double[] crossingBreaks() {
+        return crossingBreaks.clone();
+    }
+
+    /**
+     * Works out a run of actions starting in a town whose toughness is known.
+     *
+     * @param start The hunter's gold before the actions.
+     * @param actions The actions, like "l20d5m" (see the class comment).
+     * @param tough Whether the first town is a tough one.
+     * @param sword Whether the hunter has a sword.
+     * @param shovel Whether the hunter has a shovel.
+     * @return The hunter's gold after the actions.
+     */
+    public GoldDistribution after(GoldDistribution start, String actions, boolean tough, boolean sword, boolean shovel) {
+        return play(start, actions, tough, sword, shovel);
+    }
+
+    /**
+     * Works out a run of actions starting in a town that is tough as often as the rules' towns are.
+     *
+     * @param start The hunter's gold before the actions.
+     * @param actions The actions, like "l20d5m" (see the class comment).
+     * @param sword Whether the hunter has a sword.
+     * @param shovel Whether the hunter has a shovel.
+     * @return The hunter's gold after the actions.
+     */
+    public GoldDistribution inTown(GoldDistribution start, String actions, boolean sword, boolean shovel) {
+        return play(start, actions, null, sword, shovel);
+    }
+
+    /**
+     * Splits the actions into the towns they happen in and works out each town in turn.
+     *
+     * @param tough Whether the first town is a tough one, or null if it isn't known.
+     */
+    private GoldDistribution play(GoldDistribution start, String actions, Boolean tough, boolean sword, boolean shovel) {
+        GoldDistribution distribution = start;
+        int townStart = 0;
+        int i = 0;
+        while (true) {
+            while (i < actions.length() && actions.charAt(i) != 'm') {
+                i++;
+            }
+            distribution = inOneTown(distribution, actions.substring(townStart, i), tough, sword, shovel);
+            if (i == actions.length()) {
+                return distribution;
+            }
+            int end = digitsEnd(actions, i + 1);
+            int times = end > i + 1 ? Integer.parseInt(actions.substring(i + 1, end)) : 1;
+            for (int t = 0; t < times; t++) {
+                distribution = distribution.thenCross(crossingBreaks);
+            }
+            // the next town's toughness is a new roll, whatever this one's was
+            tough = null;
+            townStart = end;
+            i = end;
+        }
+    }
+
+    /**
+     * Works out a run of actions that all happen in one town.
+     *
+     * @param tough Whether the town is a tough one, or null if it isn't known.
+     */
+    private GoldDistribution inOneTown(GoldDistribution start, String actions, Boolean tough, boolean sword, boolean shovel) {
+        if (actions.isEmpty()) {
+            return start;
+        }
+        if (tough == null) {
+            GoldDistribution mild = inOneTown(start, actions, false, sword, shovel);
+            GoldDistribution rough = inOneTown(start, actions, true, sword, shovel);
+            return GoldDistribution.mix(mild, rough, rules.getToughness());
+        }
+        int maxBrawlGold = rules.getMaxBrawlGold();
+        GoldDistribution distribution = start;
+        int i = 0;
+        while (i < actions.length()) {
+            char action = actions.charAt(i);
+            int end = digitsEnd(actions, i + 1);
+            int times = end > i + 1 ? Integer.parseInt(actions.substring(i + 1, end)) : 1;
+            i = end;
+            if (action == 'l') {
+                distribution = distribution.then(trouble(tough, sword), -maxBrawlGold, times);
+            } else if (action == 'd') {
+                distribution = distribution.then(dig(shovel), 0, times);
+            } else {
+                throw new IllegalArgumentException("Unknown action " + action + " in " + actions);
+            }
+        }
+        return distribution;
+    }
+
+    /**
+     * @return Where the run of digits starting at from ends (from itself if there are none).
+     */
+    private static int digitsEnd(String actions, int from) {
+        int end = from;
+        while (end < actions.length() && Character.isDigit(actions.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+}
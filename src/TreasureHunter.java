@@ -1,5 +1,4 @@
-import java.awt.*;
-import java.util.Scanner;
+import java.util.ArrayList;
 
 /**
  * This class is responsible for controlling the Treasure Hunter game.<p>
@@ -10,27 +9,186 @@ import java.util.Scanner;
  */
 
 public class TreasureHunter {
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
+    // constants
+    // longer names are cut short, so a saved game stays small
+    public static final int MAX_NAME_LENGTH = 64;
 
     // instance variables
     private Town currentTown;
     private Hunter hunter;
-    private boolean hardMode;
-    private boolean easyMode;
-    private boolean samuraiMode;
+    private Mode mode;
+    private InputSource input;
+    private long seed;
+    private GameRandom random;
+
+    private OutputSink window;
+    private ArrayList<TurnListener> turnListeners = new ArrayList<TurnListener>();
+    private int turn;
+    private int turnLimit = Integer.MAX_VALUE;
+    private long idleMillis;
+    private boolean idle;
+
+    // set by useWorld(); without a world every move goes to a brand-new town
+    private boolean hasWorld;
+    private long worldSeed;
+    private World world;
+    private int townId;
 
     /**
-     * Constructs the Treasure Hunter game.
+     * Constructs the Treasure Hunter game in a window, with a seed picked from the clock.
      */
-    OutputWindow window = new OutputWindow();
     public TreasureHunter() {
+        this(OutputSinks.window(), GameRandom.seedFor(System.nanoTime(), 0));
+    }
+
+    /**
+     * Constructs the Treasure Hunter game played from the keyboard.
+     *
+     * @param window Where the game's messages are shown.
+     * @param seed The seed for the game's random numbers.
+     */
+    public TreasureHunter(OutputSink window, long seed) {
+        this(window, new ConsoleInput(), seed);
+    }
+
+    /**
+     * Constructs the Treasure Hunter game; two games with the same seed and the same moves play out the same way.
+     *
+     * @param window Where the game's messages are shown.
+     * @param input Where the player's answers are read from.
+     * @param seed The seed for the game's random numbers.
+     */
+    public TreasureHunter(OutputSink window, InputSource input, long seed) {
         // these will be initialized in the play method
         currentTown = null;
         hunter = null;
-        hardMode = false;
-        easyMode = false;
-        samuraiMode = false;
+        mode = Mode.NORMAL;
+        this.input = input;
+        this.window = window;
+        this.seed = seed;
+        random = new GameRandom(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Hunter getHunter() {
+        return hunter;
+    }
+
+    public Town getCurrentTown() {
+        return currentTown;
+    }
+
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * @return How many menu choices have been processed so far.
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Makes the game stop (as if paused) once this many menu choices have been processed.
+     *
+     * @param turnLimit The number of turns to stop after.
+     */
+    public void setTurnLimit(int turnLimit) {
+        this.turnLimit = turnLimit;
+    }
+
+    /**
+     * Makes the game stop (see isIdle()) when the player leaves the menu waiting this long, so a
+     * server can put the game away until they come back. Games on a World never stop, since a
+     * GameSnapshot can't hold the World.
+     *
+     * @param idleMillis How long the menu may wait for an answer, or 0 to wait forever.
+     */
+    public void setIdleTimeout(long idleMillis) {
+        this.idleMillis = idleMillis;
+    }
+
+    /**
+     * @return true if play() or resume() returned because the player went idle at the menu; the
+     *         game can be saved and resumed once they answer.
+     */
+    public boolean isIdle() {
+        return idle;
+    }
+
+    /**
+     * Adds a listener that is told about every turn after it has been processed.
+     *
+     * @param listener The listener to add.
+     */
+    public void addTurnListener(TurnListener listener) {
+        turnListeners.add(listener);
+    }
+
+    /**
+     * Plays on a fixed map of towns (see World) instead of making up a new town at every move.
+     * Must be called before play().
+     *
+     * @param worldSeed The seed the world is made from.
+     */
+    public void useWorld(long worldSeed) {
+        hasWorld = true;
+        this.worldSeed = worldSeed;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * @return The number of the town the hunter is in, when playing on a World.
+     */
+    public int getTownId() {
+        return townId;
+    }
+
+    /**
+     * Puts the game back into a saved state; call resume() afterwards to keep playing.
+     *
+     * @param mode The difficulty the game was played on.
+     * @param seed The seed the game was started with.
+     * @param randomState Where the game's random numbers had got to.
+     * @param turn How many menu choices had been processed.
+     * @param hunter The saved Hunter.
+     * @param terrain The terrain around the current town.
+     * @param toughTown Whether the current town is a tough one.
+     * @param treasure The treasure hidden in the current town.
+     * @param treasureFound Whether the current town has already been searched.
+     */
+    public void restore(Mode mode, long seed, long randomState, int turn, Hunter hunter, Terrain terrain,
+                        boolean toughTown, String treasure, boolean treasureFound) {
+        this.mode = mode;
+        this.seed = seed;
+        random.setState(randomState);
+        this.turn = turn;
+        this.hunter = hunter;
+        Shop shop = new Shop(mode.getRules(), window, input);
+        currentTown = new Town(shop, terrain, mode.getRules(), toughTown, treasure, treasureFound, hunter, window, random);
+    }
+
+    /**
+     * Keeps playing a game that was put back with restore().
+     */
+    public void resume() {
+        if (hunter == null) {
+            throw new IllegalStateException("There is no game to resume");
+        }
+        idle = false;
+        showMenu();
+        window.flush();
     }
 
     /**
@@ -40,40 +198,43 @@ public class TreasureHunter {
         welcomePlayer();
         enterTown();
         showMenu();
+        window.flush();
+    }
+
+    /**
+     * Shows everything printed so far in one go and waits for the player's answer.
+     *
+     * @return The answer, in lower case.
+     */
+    private String ask() {
+        window.flush();
+        String line = input.nextLine();
+        if (line == null) {
+            // the player is gone, so give up the hunt
+            return "x";
+        }
+        return line.toLowerCase();
     }
 
     /**
      * Creates a hunter object at the beginning of the game and populates the class member variable with it.
      */
     private void welcomePlayer() {
-        window.addTextToWindow("Welcome to TREASURE HUNTER!\n", Color.BLACK);
-        window.addTextToWindow("Going hunting for the big treasure, eh?\n", Color.BLACK);
-        window.addTextToWindow("What's your name, Hunter? \n", Color.BLACK);
-        String name = SCANNER.nextLine().toLowerCase();
+        window.addTextToWindow("Welcome to TREASURE HUNTER!\n", TextColor.BLACK);
+        window.addTextToWindow("Going hunting for the big treasure, eh?\n", TextColor.BLACK);
+        window.addTextToWindow("What's your name, Hunter? \n", TextColor.BLACK);
+        String name = ask();
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, MAX_NAME_LENGTH);
+        }
         window.clear();
 
 
 
-        window.addTextToWindow("Easy, normal, or hard mode? (e/n/h): ", Color.BLACK);
-        String difficulty = SCANNER.nextLine().toLowerCase();
-        if (difficulty.equals("test")) {
-            hunter = new Hunter(name, 100, false);
-        }
-        else if(difficulty.equals("e")) {
-            easyMode = true;
-            hunter = new Hunter(name, 20, false);
-        }
-        else if (difficulty.equals("h")) {
-            hardMode = true;
-            hunter = new Hunter(name, 10, false);
-        }
-        else if (difficulty.equals("s")) {
-            samuraiMode = true;
-            hunter = new Hunter(name, 10, true);
-        }
-        else {
-            hunter = new Hunter(name, 10, false);
-        }
+        window.addTextToWindow("Easy, normal, or hard mode? (e/n/h): ", TextColor.BLACK);
+        String difficulty = ask();
+        mode = Mode.fromChoice(difficulty);
+        hunter = mode.createHunter(name);
         window.clear();
     }
 
@@ -81,32 +242,28 @@ public class TreasureHunter {
      * Creates a new town and adds the Hunter to it.
      */
     private void enterTown() {
-        double markdown = 0.5;
-        double toughness = 0.4;
-        if (hardMode) {
-            // in hard mode, you get less money back when you sell items
-            markdown = 0.25;
-
-            // and the town is "tougher"
-            toughness = 0.75;
-        }
-        if(easyMode) {
-            markdown = 1;
-            toughness = .25;
-        }
-        if(samuraiMode) {
-            toughness = .8;
+        if (hasWorld) {
+            if (world == null) {
+                world = new World(worldSeed, World.DEFAULT_SIZE_BITS, World.DEFAULT_CACHED_TOWNS, mode, window, input, random);
+            }
+            currentTown = world.townAt(townId);
+            currentTown.hunterArrives(hunter);
+            return;
         }
 
+        // in hard mode, you get less money back when you sell items
+        // and the town is "tougher"; the Mode's Rules know the numbers for each difficulty
+        Rules rules = mode.getRules();
+
         // note that we don't need to access the Shop object
         // outside of this method, so it isn't necessary to store it as an instance
         // variable; we can leave it as a local variable
-        Shop shop = new Shop(markdown, window);
+        Shop shop = new Shop(rules, window, input);
 
         // creating the new Town -- which we need to store as an instance
         // variable in this class, since we need to access the Town
         // object in other methods of this class
-        currentTown = new Town(shop, toughness, window);
+        currentTown = new Town(shop, rules, window, random);
 
         // calling the hunterArrives method, which takes the Hunter
         // as a parameter; note this also could have been done in the
@@ -125,28 +282,65 @@ public class TreasureHunter {
 
         while (!choice.equals("x")) {
             window.clear();
-            window.addTextToWindow(currentTown.getLatestNews(), Color.BLACK);
+            window.addTextToWindow(currentTown.getLatestNews(), TextColor.BLACK);
             if(hunter.getGold() < 0) {
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.count(GameCounter.GAMES_LOST);
+                }
                 break;
             }
             if(hunter.treasureIsFull()) {
+                if (GameMetrics.ENABLED) {
+                    GameMetrics.count(GameCounter.GAMES_WON);
+                }
                 break;
             }
-            window.addTextToWindow("***\n", Color.BLACK);
-            window.addTextToWindow(hunter.toString() + "\n", Color.BLACK);
-            window.addTextToWindow(currentTown.toString() + "\n", Color.BLACK);
-            window.addTextToWindow("(B)uy something at the shop.\n", Color.BLACK);
-            window.addTextToWindow("(S)ell something at the shop.\n", Color.BLACK);
-            window.addTextToWindow("(M)ove on to a different town.\n", Color.BLACK);
-            window.addTextToWindow("(L)ook for trouble!\n", Color.BLACK);
-            window.addTextToWindow("(H)unt for treasure!\n", Color.BLACK);
-            window.addTextToWindow("(D)ig for gold!\n", Color.BLACK);
-            window.addTextToWindow("Give up the hunt and e(X)it.\n", Color.BLACK);
-            window.addTextToWindow("\n", Color.BLACK);
-            window.addTextToWindow("What's your next move?", Color.BLACK);
-            choice = SCANNER.nextLine().toLowerCase();
+            if (turn >= turnLimit) {
+                break;
+            }
+            if (window.isEnabled()) {
+                window.addTextToWindow("***\n", TextColor.BLACK);
+                window.addTextToWindow(hunter.toString() + "\n", TextColor.BLACK);
+                if (world != null) {
+                    window.addTextToWindow("Town " + townId + ". ", TextColor.BLACK);
+                }
+                window.addTextToWindow(currentTown.toString() + "\n", TextColor.BLACK);
+                window.addTextToWindow("(B)uy something at the shop.\n", TextColor.BLACK);
+                window.addTextToWindow("(S)ell something at the shop.\n", TextColor.BLACK);
+                window.addTextToWindow("(M)ove on to a different town.\n", TextColor.BLACK);
+                window.addTextToWindow("(L)ook for trouble!\n", TextColor.BLACK);
+                window.addTextToWindow("(H)unt for treasure!\n", TextColor.BLACK);
+                window.addTextToWindow("(D)ig for gold!\n", TextColor.BLACK);
+                window.addTextToWindow("Give up the hunt and e(X)it.\n", TextColor.BLACK);
+                window.addTextToWindow("\n", TextColor.BLACK);
+                window.addTextToWindow("What's your next move?", TextColor.BLACK);
+            }
+            if (idleMillis > 0 && !hasWorld) {
+                window.flush();
+                if (!input.awaitInput(idleMillis)) {
+                    idle = true;
+                    break;
+                }
+            }
+            choice = ask();
             window.clear();
+            // includes any questions the shop asks, so buying and selling take as long as the player does
+            for (TurnListener listener : turnListeners) {
+                listener.turnStarting(this, choice);
+            }
+            boolean timed = GameMetrics.ENABLED && GameMetrics.isTimed(turn);
+            long start = timed ? System.nanoTime() : 0;
             processChoice(choice);
+            if (GameMetrics.ENABLED) {
+                GameMetrics.count(GameCounter.ACTIONS);
+                if (timed) {
+                    GameMetrics.recordLatency(choice, start);
+                }
+            }
+            turn++;
+            for (TurnListener listener : turnListeners) {
+                listener.turnPlayed(this, choice);
+            }
         }
     }
 
@@ -158,9 +352,11 @@ public class TreasureHunter {
         if (choice.equals("b") || choice.equals("s")) {
             currentTown.enterShop(choice);
         } else if (choice.equals("m")) {
-            if (currentTown.leaveTown()) {
+            if (world != null) {
+                takeRoad();
+            } else if (currentTown.leaveTown()) {
                 // This town is going away so print its news ahead of time.
-                window.addTextToWindow(currentTown.getLatestNews(), Color.BLACK);
+                window.addTextToWindow(currentTown.getLatestNews(), TextColor.BLACK);
                 enterTown();
             }
         } else if (choice.equals("l")) {
@@ -168,12 +364,43 @@ public class TreasureHunter {
         } else if (choice.equals("h")) {
             currentTown.huntForTreasure();
         } else if (choice.equals("x")) {
-            window.addTextToWindow("Fare thee well, " + hunter.getHunterName() + "!", Color.BLACK);
+            window.addTextToWindow("Fare thee well, " + hunter.getHunterName() + "!", TextColor.BLACK);
         } else if (choice.equals("d")){
             currentTown.digForGold();
         } else {
-            window.addTextToWindow("Yikes! That's an invalid option! Try again.", Color.BLACK);
+            window.addTextToWindow("Yikes! That's an invalid option! Try again.", TextColor.BLACK);
         }
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Asks the player which road to take out of town and, if the hunter can cross the terrain, takes it.
+     */
+    private void takeRoad() {
+        if (!currentTown.getTerrain().canCrossTerrain(hunter)) {
+            // prints why the hunter can't leave
+            currentTown.leaveTown();
+            return;
+        }
+        int[] roads = world.roadsFrom(townId);
+        window.addTextToWindow("Roads lead from town " + townId + " to:\n", TextColor.BLACK);
+        for (int i = 0; i < roads.length; i++) {
+            window.addTextToWindow("(" + (i + 1) + ") town " + roads[i] + "\n", TextColor.BLACK);
+        }
+        window.addTextToWindow("Which road? ", TextColor.BLACK);
+        String answer = ask();
+        window.clear();
+        int road = 0;
+        try {
+            road = Math.max(0, Math.min(roads.length - 1, Integer.parseInt(answer.trim()) - 1));
+        } catch (NumberFormatException e) {
+            // anything that isn't a road number takes the first road
+        }
+
+        if (currentTown.leaveTown()) {
+            window.addTextToWindow(currentTown.getLatestNews(), TextColor.BLACK);
+            townId = roads[road];
+            enterTown();
+        }
+    }
+}
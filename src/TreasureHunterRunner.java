@@ -1,6 +1,109 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Starts the game.<p>
+ * Usage: java TreasureHunterRunner [--output swing|terminal|none] [--scrollback lines] [--script file]
+ * [--journal file] [--world seed] [--leaderboard file] [seed]<p>
+ * --output picks where the game is shown: a window (the default), the terminal with ANSI colors,
+ * or nowhere; --terminal and --quiet are short for --output terminal and --output none;
+ * with --scrollback the window keeps that many lines to scroll back through instead of being wiped every turn;
+ * with --script the answers are read from a file (or "-" for everything piped into System.in)
+ * all at once, and "Press Enter" pauses are skipped, so the game runs as fast as it can;
+ * with --journal every input is recorded so the game can be played back with GameReplay
+ * (or added to a ColumnExport store);
+ * with --world the towns are laid out on a fixed map made from the world seed, which a journal
+ * records too;
+ * with --leaderboard the finished run is added to that Leaderboard file;
+ * passing a seed replays a game that was played with that seed.
+ * Run with -Dtreasurehunter.metrics=true to count what the player does (see GameMetrics), and
+ * with -Dtreasurehunter.startup=true to print how long the game took to ask its first question;
+ * -Dtreasurehunter.rules=file plays by a Ruleset file, like one a Balancer wrote.
+ */
+
 public class TreasureHunterRunner {
-    public static void main(String[] args) {
-        TreasureHunter game = new TreasureHunter();
+    public static void main(String[] args) throws IOException {
+        long start = System.nanoTime();
+        String output = OutputSinks.SWING;
+        int scrollback = 0;
+        String scriptFile = null;
+        String journalFile = null;
+        String worldSeed = null;
+        String leaderboardFile = null;
+        long seed = GameRandom.seedFor(System.nanoTime(), 0);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--output")) {
+                i++;
+                output = args[i];
+            } else if (args[i].equals("--scrollback")) {
+                i++;
+                scrollback = Integer.parseInt(args[i]);
+            } else if (args[i].equals("--terminal")) {
+                output = OutputSinks.TERMINAL;
+            } else if (args[i].equals("--quiet")) {
+                output = OutputSinks.NONE;
+            } else if (args[i].equals("--script")) {
+                i++;
+                scriptFile = args[i];
+            } else if (args[i].equals("--journal")) {
+                i++;
+                journalFile = args[i];
+            } else if (args[i].equals("--leaderboard")) {
+                i++;
+                leaderboardFile = args[i];
+            } else if (args[i].equals("--world")) {
+                i++;
+                worldSeed = args[i];
+            } else {
+                seed = Long.parseLong(args[i]);
+            }
+        }
+
+        GameMetrics.start();
+        OutputSink window;
+        if (output.equals(OutputSinks.SWING)) {
+            window = OutputSinks.window(scrollback);
+        } else {
+            window = OutputSinks.create(output);
+        }
+        InputSource input;
+        if (scriptFile == null) {
+            input = new ConsoleInput();
+        } else if (scriptFile.equals("-")) {
+            input = InputQueue.script(System.in);
+        } else {
+            try (InputStream in = Files.newInputStream(Paths.get(scriptFile))) {
+                input = InputQueue.script(in);
+            }
+        }
+        if (Boolean.getBoolean("treasurehunter.startup")) {
+            input = new StartupTimer(input, output, start);
+        }
+        GameJournal journal = null;
+        if (journalFile != null) {
+            journal = new GameJournal(seed, Paths.get(journalFile));
+            input = new JournalInput(input, journal);
+        }
+
+        TreasureHunter game = new TreasureHunter(window, input, seed);
+        if (worldSeed != null) {
+            game.useWorld(Long.parseLong(worldSeed));
+            if (journal != null) {
+                journal.recordWorld(Long.parseLong(worldSeed));
+            }
+        }
         game.play();
+        if (journal != null) {
+            journal.close();
+        }
+        if (leaderboardFile != null && game.getHunter() != null) {
+            try (Leaderboard leaderboard = new Leaderboard(Paths.get(leaderboardFile))) {
+                int record = leaderboard.add(LeaderboardEntry.of(game));
+                System.out.println("Your run ranks number " + (leaderboard.rankOf(record) + 1) + " of "
+                        + leaderboard.size(game.getMode()) + " on " + game.getMode().toString().toLowerCase() + " mode.");
+            }
+        }
     }
 }
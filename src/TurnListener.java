@@ -0,0 +1,23 @@
+/**
+ * Something that wants to know each time a TreasureHunter game finishes a turn,
+ * like a checkpoint that saves the game after every move.
+ */
+
+public interface TurnListener {
+    /**
+     * Called once the player's choice has been read, right before processChoice() carries it out.
+     *
+     * @param game The game the turn is being played in.
+     * @param choice The menu choice about to be processed.
+     */
+    default void turnStarting(TreasureHunter game, String choice) {
+    }
+
+    /**
+     * Called right after processChoice() has carried out the player's choice.
+     *
+     * @param game The game the turn was played in.
+     * @param choice The menu choice that was processed.
+     */
+    void turnPlayed(TreasureHunter game, String choice);
+}
@@ -0,0 +1,132 @@
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map of towns joined by roads, made from a seed so it never has to be stored.<p>
+ * Town number id is built from its own generator, GameRandom.seedFor(seed, id), so it comes
+ * out the same every time no matter when or in what order the towns are visited. The roads go
+ * around a ring (id - 1 and id + 1) plus CHORDS shortcuts to id ^ mask, with the masks picked
+ * from the seed; XOR is its own inverse, so every road goes both ways. Leaving a town along any
+ * road means crossing the terrain around it.<p>
+ * Only the most recently visited towns are kept, in a LinkedHashMap in access order; a town that
+ * falls out is built again from its seed when the hunter comes back. The only thing the game
+ * changes about a town that has to outlive it is whether it has been searched, and that is one
+ * bit per town, so a world of millions of towns takes a few hundred kilobytes.
+ */
+
+public class World {
+    // constants
+    public static final int DEFAULT_SIZE_BITS = 20;
+    public static final int DEFAULT_CACHED_TOWNS = 64;
+    private static final int CHORDS = 2;
+
+    // instance variables
+    private long seed;
+    private int townCount;
+    private int[] chordMasks;
+    private BitSet searched;
+    private LinkedHashMap<Integer, Town> towns;
+
+    private Mode mode;
+    private OutputSink window;
+    private InputSource input;
+    private GameRandom random;
+
+    /**
+     * @param seed The world's seed; the same seed always makes the same world.
+     * @param sizeBits The world has 2 to the power of this many towns.
+     * @param cachedTowns How many towns to keep around after the hunter leaves them.
+     * @param mode The difficulty being played, which decides how tough towns are.
+     * @param window Where the towns' messages are shown.
+     * @param input Where the towns' shops read the player's answers from.
+     * @param random The game's random number generator, used for everything that happens in town.
+     */
+    public World(long seed, int sizeBits, int cachedTowns, Mode mode, OutputSink window,
+                 InputSource input, GameRandom random) {
+        if (sizeBits < 2 || sizeBits > 30) {
+            throw new IllegalArgumentException("A world must have between 2^2 and 2^30 towns");
+        }
+        this.seed = seed;
+        townCount = 1 << sizeBits;
+        chordMasks = new int[CHORDS];
+        for (int i = 0; i < CHORDS; i++) {
+            // at least 2, so a shortcut never just leads next door
+            chordMasks[i] = (int) (GameRandom.seedFor(seed, -1 - i) & (townCount - 1)) | 2;
+        }
+        searched = new BitSet();
+        towns = new LinkedHashMap<Integer, Town>(cachedTowns * 2, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Town> eldest) {
+                if (size() <= cachedTowns) {
+                    return false;
+                }
+                searched.set(eldest.getKey(), eldest.getValue().isTreasureFound());
+                return true;
+            }
+        };
+        this.mode = mode;
+        this.window = window;
+        this.input = input;
+        this.random = random;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTownCount() {
+        return townCount;
+    }
+
+    /**
+     * Finds a town, building it if it isn't being kept; this does not tell the town the hunter has arrived.
+     *
+     * @param id The town's number, from 0 to getTownCount() - 1.
+     * @return The town.
+     */
+    public Town townAt(int id) {
+        Town town = towns.get(id);
+        if (town == null) {
+            Shop shop = new Shop(mode.getRules(), window, input);
+            GameRandom layout = new GameRandom(GameRandom.seedFor(seed, id));
+            town = new Town(shop, mode.getRules(), window, layout, random);
+            if (searched.get(id)) {
+                town.markSearched();
+            }
+            towns.put(id, town);
+        }
+        return town;
+    }
+
+    /**
+     * Lists the towns that can be reached from a town; the list is the same every time.
+     *
+     * @param id The town's number.
+     * @return The numbers of the towns its roads lead to, with no repeats.
+     */
+    public int[] roadsFrom(int id) {
+        int[] roads = new int[2 + CHORDS];
+        int count = 0;
+        count = addRoad(roads, count, (id + 1) & (townCount - 1));
+        count = addRoad(roads, count, (id - 1) & (townCount - 1));
+        for (int mask : chordMasks) {
+            count = addRoad(roads, count, id ^ mask);
+        }
+        if (count < roads.length) {
+            int[] shorter = new int[count];
+            System.arraycopy(roads, 0, shorter, 0, count);
+            return shorter;
+        }
+        return roads;
+    }
+
+    private static int addRoad(int[] roads, int count, int to) {
+        for (int i = 0; i < count; i++) {
+            if (roads[i] == to) {
+                return count;
+            }
+        }
+        roads[count] = to;
+        return count + 1;
+    }
+}
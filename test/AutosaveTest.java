@@ -0,0 +1,101 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Saves sessions to an Autosave log and reads them back the way an operator would after a crash.
+ */
+
+public class AutosaveTest {
+    // the header in front of every record: session, length and CRC32
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    @TempDir
+    Path folder;
+
+    private static byte[] snapshot(int session, int version) {
+        byte[] bytes = new byte[100];
+        Arrays.fill(bytes, (byte) (session * 31 + version));
+        return bytes;
+    }
+
+    @Test
+    public void recoverKeepsEachSessionsLatestSave() throws IOException {
+        Path log = folder.resolve(Autosave.LOG_FILE);
+        try (Autosave autosave = new Autosave(log)) {
+            for (int version = 0; version < 5; version++) {
+                for (int session = 0; session < 10; session++) {
+                    autosave.save(session, snapshot(session, version));
+                }
+            }
+            autosave.forget(3);
+            autosave.forget(7);
+        }
+
+        Map<Long, byte[]> sessions = Autosave.recover(log);
+        assertEquals(8, sessions.size());
+        for (int session = 0; session < 10; session++) {
+            if (session == 3 || session == 7) {
+                assertFalse(sessions.containsKey((long) session));
+            } else {
+                assertArrayEquals(snapshot(session, 4), sessions.get((long) session));
+            }
+        }
+    }
+
+    @Test
+    public void aRecordCutOffByACrashIsLeftOut() throws IOException {
+        Path log = folder.resolve(Autosave.LOG_FILE);
+        try (Autosave autosave = new Autosave(log)) {
+            autosave.save(1, snapshot(1, 0));
+            autosave.save(2, snapshot(2, 0));
+        }
+        byte[] whole = Files.readAllBytes(log);
+        // the first half of another save of session 1
+        Files.write(log, Arrays.copyOf(whole, RECORD_HEADER_SIZE + 50), StandardOpenOption.APPEND);
+
+        Map<Long, byte[]> sessions = Autosave.recover(log);
+        assertEquals(2, sessions.size());
+        assertArrayEquals(snapshot(1, 0), sessions.get(1L));
+
+        // opening the log again rewrites it without the torn record
+        try (Autosave autosave = new Autosave(log)) {
+            assertEquals(2 * (RECORD_HEADER_SIZE + 100), Files.size(log));
+        }
+    }
+
+    @Test
+    public void compactingKeepsTheLogNearTheLiveSaves() throws IOException {
+        Path log = folder.resolve(Autosave.LOG_FILE);
+        try (Autosave autosave = new Autosave(log)) {
+            // far more than the size a log is allowed to reach before it is compacted
+            for (int version = 0; version < 2000; version++) {
+                for (int session = 0; session < 20; session++) {
+                    autosave.save(session, snapshot(session, version));
+                }
+            }
+            for (int session = 10; session < 20; session++) {
+                autosave.forget(session);
+            }
+        }
+        assertTrue(Files.size(log) < 2 << 20, "log is " + Files.size(log) + " bytes");
+
+        try (Autosave autosave = new Autosave(log)) {
+            assertEquals(10 * (RECORD_HEADER_SIZE + 100), Files.size(log));
+        }
+        Map<Long, byte[]> sessions = Autosave.recover(log);
+        assertEquals(10, sessions.size());
+        assertArrayEquals(snapshot(4, 1999), sessions.get(4L));
+    }
+}
@@ -0,0 +1,146 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Exports simulated games to column stores and reads them back with ColumnQuery.<p>
+ * The terrain catalog is loaded once per JVM, so a store with more terrains than a byte can
+ * code is made by giving a new store a terrain dictionary that already holds a mod's terrains;
+ * the catalog's own terrains then get codes past 255.
+ */
+
+public class ColumnExportTest {
+    private static final int GAMES = 300;
+    private static final int MAX_TURNS = 200;
+    private static final long SEED = 42;
+
+    @TempDir
+    Path folder;
+
+    private static List<String> modTerrains(int count) {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            names.add("Mod terrain " + i);
+        }
+        return names;
+    }
+
+    private static Path terrainDictionary(Path store) {
+        return store.resolve(ColumnExport.TERRAINS + ColumnExport.DICTIONARY_SUFFIX);
+    }
+
+    private static Path column(Path store, String name) {
+        return store.resolve(name + ColumnExport.COLUMN_SUFFIX);
+    }
+
+    private static void export(Path store) throws IOException {
+        try (ColumnExport export = new ColumnExport(store)) {
+            export.exportSimulated(Mode.NORMAL, new GreedyStrategy(), GAMES, MAX_TURNS, SEED);
+        }
+    }
+
+    @Test
+    public void moreThan255TerrainsGetTwoByteCodes() throws IOException {
+        Path narrow = folder.resolve("narrow");
+        export(narrow);
+        Path wide = folder.resolve("wide");
+        Files.createDirectories(wide);
+        Files.write(terrainDictionary(wide), modTerrains(300), StandardCharsets.UTF_8);
+        try (ColumnExport export = new ColumnExport(wide)) {
+            assertEquals(2, export.getTerrainWidth());
+            assertEquals(300, export.terrainCode(TerrainCatalog.get(0)));
+            export.exportSimulated(Mode.NORMAL, new GreedyStrategy(), GAMES, MAX_TURNS, SEED);
+        }
+
+        ColumnQuery narrowQuery = new ColumnQuery(narrow);
+        ColumnQuery wideQuery = new ColumnQuery(wide);
+        assertEquals(narrowQuery.getTurns(), wideQuery.getTurns());
+        assertEquals(2 * wideQuery.getTurns(), Files.size(column(wide, ColumnExport.TURN_COLUMNS[ColumnExport.TURN_TERRAIN])));
+        assertEquals(300 + TerrainCatalog.size(), wideQuery.getDictionary(ColumnExport.TERRAINS).size());
+
+        // the same games, so every catalog terrain has the same moves under its code past 255
+        long[][] narrowMoves = narrowQuery.movesByTerrain();
+        long[][] wideMoves = wideQuery.movesByTerrain();
+        long moves = 0;
+        for (int t = 0; t < TerrainCatalog.size(); t++) {
+            String name = TerrainCatalog.get(t).getTerrainNamePlain();
+            int narrowCode = narrowQuery.getDictionary(ColumnExport.TERRAINS).find(name);
+            int wideCode = wideQuery.getDictionary(ColumnExport.TERRAINS).find(name);
+            assertTrue(wideCode >= 300);
+            assertArrayEquals(narrowMoves[narrowCode], wideMoves[wideCode], name);
+            moves += wideMoves[wideCode][0];
+        }
+        assertTrue(moves > 0);
+        for (int code = 0; code < 300; code++) {
+            assertEquals(0, wideMoves[code][0]);
+        }
+    }
+
+    @Test
+    public void aOneByteStoreIsNotWidenedOnceItHasTurns() throws IOException {
+        Path store = folder.resolve("store");
+        export(store);
+        // as if the store had been written with another mod's 255 terrains
+        Files.write(terrainDictionary(store), modTerrains(ColumnDictionary.BYTE_CODES), StandardCharsets.UTF_8);
+        byte[] dictionary = Files.readAllBytes(terrainDictionary(store));
+        long terrainBytes = Files.size(column(store, ColumnExport.TURN_COLUMNS[ColumnExport.TURN_TERRAIN]));
+
+        assertThrows(IOException.class, () -> new ColumnExport(store));
+        assertArrayEquals(dictionary, Files.readAllBytes(terrainDictionary(store)));
+        assertEquals(terrainBytes, Files.size(column(store, ColumnExport.TURN_COLUMNS[ColumnExport.TURN_TERRAIN])));
+        assertEquals(GAMES, new ColumnQuery(store).getGames());
+    }
+
+    @Test
+    public void reopeningDropsAHalfWrittenGame() throws IOException {
+        Path store = folder.resolve("store");
+        export(store);
+        ColumnQuery before = new ColumnQuery(store);
+        long lastGameTurns = before.getTurns() - firstTurnOfLastGame(store);
+        assertTrue(lastGameTurns > 0);
+
+        // a crash part way through the last game's turns: its game row is there, but not all of its gold
+        Path gold = column(store, ColumnExport.TURN_COLUMNS[ColumnExport.TURN_GOLD]);
+        try (FileChannel file = FileChannel.open(gold, StandardOpenOption.WRITE)) {
+            file.truncate(file.size() - Integer.BYTES - 1);
+        }
+        assertEquals(GAMES - 1, new ColumnQuery(store).getGames());
+
+        try (ColumnExport export = new ColumnExport(store)) {
+            assertEquals(GAMES - 1, export.getGames());
+            assertEquals(before.getTurns() - lastGameTurns, export.getTurns());
+        }
+        for (int i = 0; i < ColumnExport.TURN_COLUMNS.length; i++) {
+            assertEquals((before.getTurns() - lastGameTurns) * ColumnExport.TURN_WIDTHS[i],
+                    Files.size(column(store, ColumnExport.TURN_COLUMNS[i])), ColumnExport.TURN_COLUMNS[i]);
+        }
+        for (int i = 0; i < ColumnExport.GAME_COLUMNS.length; i++) {
+            assertEquals((GAMES - 1L) * ColumnExport.GAME_WIDTHS[i],
+                    Files.size(column(store, ColumnExport.GAME_COLUMNS[i])), ColumnExport.GAME_COLUMNS[i]);
+        }
+
+        // and the store can be added to again from there
+        export(store);
+        assertEquals(2 * GAMES - 1, new ColumnQuery(store).getGames());
+    }
+
+    private static long firstTurnOfLastGame(Path store) throws IOException {
+        Path firstTurns = column(store, ColumnExport.GAME_COLUMNS[ColumnExport.GAME_FIRST_TURN]);
+        byte[] bytes = Files.readAllBytes(firstTurns);
+        return ByteBuffer.wrap(bytes).order(ColumnExport.ORDER).getLong(bytes.length - Long.BYTES);
+    }
+}
@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Saves games part way through and checks they come back exactly as they were.
+ */
+
+public class GameSnapshotTest {
+    private static TreasureHunter playedGame(String name, int turns) {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE,
+                new ScriptInput(Arrays.asList(name, "n", "b", "y", "y", "l", "l", "m", "l", "h", "m", "l")), 1234);
+        game.setTurnLimit(turns);
+        game.play();
+        return game;
+    }
+
+    private static TreasureHunter restored(byte[] snapshot) throws IOException {
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new ScriptInput(Arrays.asList()), 0);
+        GameSnapshot.decode(ByteBuffer.wrap(snapshot), game);
+        return game;
+    }
+
+    @Test
+    public void decodeGivesBackTheSameGame() throws IOException {
+        for (int turns = 0; turns <= 8; turns++) {
+            TreasureHunter game = playedGame("Ann", turns);
+            byte[] snapshot = GameSnapshot.toBytes(game);
+            assertEquals(GameSnapshot.encodedSize(game), snapshot.length);
+
+            TreasureHunter copy = restored(snapshot);
+            assertArrayEquals(snapshot, GameSnapshot.toBytes(copy));
+            assertEquals(game.getMode(), copy.getMode());
+            assertEquals(game.getSeed(), copy.getSeed());
+            assertEquals(game.getRandom().getState(), copy.getRandom().getState());
+            assertEquals(game.getTurn(), copy.getTurn());
+            assertEquals(game.getHunter().getGold(), copy.getHunter().getGold());
+            assertEquals(game.getCurrentTown().getTreasure(), copy.getCurrentTown().getTreasure());
+        }
+    }
+
+    @Test
+    public void saveAndLoadGrowTheBufferForLongNames() throws IOException {
+        char[] letters = new char[TreasureHunter.MAX_NAME_LENGTH];
+        Arrays.fill(letters, 'x');
+        TreasureHunter game = playedGame(new String(letters), 4);
+        TreasureHunter copy = new TreasureHunter(NullOutput.INSTANCE, new ScriptInput(Arrays.asList()), 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new GameSnapshot().save(game, Channels.newChannel(bytes));
+        new GameSnapshot().load(copy, Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        assertArrayEquals(GameSnapshot.toBytes(game), GameSnapshot.toBytes(copy));
+    }
+
+    @Test
+    public void otherVersionsAreRejected() {
+        byte[] snapshot = GameSnapshot.toBytes(playedGame("Ann", 2));
+        ByteBuffer.wrap(snapshot).putShort(4, (short) (GameSnapshot.VERSION - 1));
+        assertThrows(IOException.class, () -> restored(snapshot));
+
+        byte[] notSnapshot = GameSnapshot.toBytes(playedGame("Ann", 2));
+        notSnapshot[0] = 0;
+        assertThrows(IOException.class, () -> restored(notSnapshot));
+    }
+}
@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks GoldDistribution's steps on small distributions that can be worked out by hand.
+ */
+
+public class GoldDistributionTest {
+    private static final double EXACT = 1e-12;
+
+    private static double total(GoldDistribution distribution) {
+        return distribution.chanceOfAtLeast(distribution.getLowestGold());
+    }
+
+    @Test
+    public void aStepIsAConvolution() {
+        // -1, 0 or +1 gold, each a third of the time, twice from 1 gold
+        double[] step = {1.0 / 3, 1.0 / 3, 1.0 / 3};
+        GoldDistribution distribution = GoldDistribution.of(1).then(step, -1, 2);
+        assertEquals(1, total(distribution), EXACT);
+        // 1 -> 0 (a third) -> -1 (a ninth) ends the game, and the hunter at -1 stays there
+        assertEquals(1.0 / 9, distribution.chanceOf(-1), EXACT);
+        assertEquals(2.0 / 9, distribution.chanceOf(0), EXACT);
+        assertEquals(3.0 / 9, distribution.chanceOf(1), EXACT);
+        assertEquals(2.0 / 9, distribution.chanceOf(2), EXACT);
+        assertEquals(1.0 / 9, distribution.chanceOf(3), EXACT);
+        assertEquals(1.0 / 9, distribution.getLostChance(), EXACT);
+        assertEquals(1, distribution.getExpectedGold(), EXACT);
+
+        GoldDistribution after = distribution.then(new double[] {0, 1, 0}, -1);
+        assertEquals(-1, after.getLowestGold());
+        assertEquals(3, after.getHighestGold(), "impossible changes don't widen the array");
+    }
+
+    @Test
+    public void lostHuntersDontMoveAgain() {
+        double[] alwaysLose = {1};
+        GoldDistribution distribution = GoldDistribution.of(2).then(alwaysLose, -3, 5);
+        assertEquals(1, distribution.chanceOf(-1), EXACT);
+        assertEquals(1, distribution.getLostChance(), EXACT);
+    }
+
+    @Test
+    public void mixWeighsBothSituations() {
+        GoldDistribution mixed = GoldDistribution.mix(GoldDistribution.of(0), GoldDistribution.of(4), 0.25);
+        assertEquals(1, total(mixed), EXACT);
+        assertEquals(0.75, mixed.chanceOf(0), EXACT);
+        assertEquals(0.25, mixed.chanceOf(4), EXACT);
+        assertEquals(1, mixed.getExpectedGold(), EXACT);
+        assertEquals(0, mixed.quantile(0.5));
+        assertEquals(4, mixed.quantile(0.9));
+    }
+
+    @Test
+    public void crossingsOnlyWearDownItems() {
+        double[] breaks = new double[ItemCatalog.size()];
+        breaks[0] = 0.5;
+        GoldDistribution first = GoldDistribution.of(5).thenCross(breaks).thenCross(breaks);
+        GoldDistribution second = GoldDistribution.of(5);
+        assertEquals(1, first.chanceOf(5));
+        assertEquals(0.25, first.getItemKeptChance(0), EXACT);
+        for (int id = 1; id < ItemCatalog.size(); id++) {
+            assertEquals(1, first.getItemKeptChance(id));
+        }
+        // the kept chances are mixed like the gold
+        assertEquals(0.25 * 0.5 + 0.5, GoldDistribution.mix(first, second, 0.5).getItemKeptChance(0), EXACT);
+        Arrays.fill(breaks, 0);
+        assertEquals(0.25, first.thenCross(breaks).getItemKeptChance(0), EXACT);
+    }
+
+    @Test
+    public void negativeStartingGoldIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> GoldDistribution.of(-1));
+    }
+}
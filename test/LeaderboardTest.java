@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the Leaderboard file's record layout and that reopening it ranks runs the same way.
+ */
+
+public class LeaderboardTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    public void recordsHaveTheDocumentedLayout() throws IOException {
+        Path file = folder.resolve("board.bin");
+        try (Leaderboard board = new Leaderboard(file)) {
+            board.add(new LeaderboardEntry(Mode.HARD, "Ann", 120, 2, 57, 99L));
+            board.add(new LeaderboardEntry(Mode.EASY, "Bob", 30, 3, 80, -5L));
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.BIG_ENDIAN);
+        // the file grows a whole mapped chunk at a time; the count says how much of it is runs
+        assertTrue(bytes.capacity() >= 64 + 2 * 64);
+        assertEquals(Leaderboard.MAGIC, bytes.getInt(0));
+        assertEquals(Leaderboard.VERSION, bytes.getShort(4));
+        assertEquals(64, bytes.getShort(6));
+        assertEquals(2, bytes.getLong(8));
+
+        int at = 64;
+        assertEquals(Mode.HARD.getId(), bytes.get(at));
+        assertEquals(2, bytes.get(at + 1));
+        assertEquals(3, bytes.get(at + 2));
+        assertEquals(120, bytes.getInt(at + 4));
+        assertEquals(57, bytes.getInt(at + 8));
+        assertEquals(99L, bytes.getLong(at + 12));
+        assertEquals("Ann", new String(bytes.array(), at + 20, 3, StandardCharsets.UTF_8));
+        assertEquals(-5L, bytes.getLong(at + 64 + 12));
+    }
+
+    @Test
+    public void reopeningRanksRunsTheSameWay() throws IOException {
+        Path file = folder.resolve("board.bin");
+        try (Leaderboard board = new Leaderboard(file)) {
+            for (int i = 0; i < 300; i++) {
+                board.add(new LeaderboardEntry(Mode.NORMAL, "hunter" + (i % 40), i % 17, i % 4, 10 + i % 13, i));
+            }
+            board.add(new LeaderboardEntry(Mode.SAMURAI, "Sam", 5, 1, 9, 0));
+        }
+
+        try (Leaderboard board = new Leaderboard(file)) {
+            assertEquals(301, board.size());
+            assertEquals(300, board.size(Mode.NORMAL));
+            assertEquals(1, board.size(Mode.SAMURAI));
+            List<LeaderboardEntry> top = board.top(Mode.NORMAL, 300);
+            for (int i = 1; i < top.size(); i++) {
+                // ties keep the earlier run ahead, so scores never go up down the list
+                assertTrue(top.get(i - 1).getScore() >= top.get(i).getScore());
+            }
+            LeaderboardEntry best = board.bestRunOf(Mode.NORMAL, "hunter7");
+            int rank = board.rankOf(Mode.NORMAL, "hunter7");
+            assertEquals(best.getScore(), top.get(rank).getScore());
+            assertEquals(0, board.rankOf(Mode.SAMURAI, "Sam"));
+            assertEquals(-1, board.rankOf(Mode.EASY, "Sam"));
+            assertNull(board.bestRunOf(Mode.EASY, "Sam"));
+
+            int record = board.add(new LeaderboardEntry(Mode.NORMAL, "Top", 1000, 3, 1, 0));
+            assertEquals(0, board.rankOf(record));
+            assertEquals("Top", board.get(record).getName());
+        }
+    }
+
+    @Test
+    public void runsPastTheCountAreNotRead() throws IOException {
+        Path file = folder.resolve("board.bin");
+        try (Leaderboard board = new Leaderboard(file)) {
+            board.add(new LeaderboardEntry(Mode.EASY, "Ann", 10, 1, 5, 0));
+            board.add(new LeaderboardEntry(Mode.EASY, "Bob", 20, 1, 5, 0));
+        }
+        // a run that was cut off before its count was written
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer count = ByteBuffer.allocate(8);
+            count.putLong(0, 1);
+            channel.write(count, 8);
+        }
+        try (Leaderboard board = new Leaderboard(file)) {
+            assertEquals(1, board.size());
+            assertEquals(-1, board.rankOf(Mode.EASY, "Bob"));
+            assertThrows(IndexOutOfBoundsException.class, () -> board.get(1));
+        }
+    }
+
+    @Test
+    public void modesAreStoredByTheirIds() throws IOException {
+        for (Mode mode : Mode.values()) {
+            assertEquals(mode, Mode.fromId(mode.getId()));
+        }
+        Path file = folder.resolve("board.bin");
+        try (Leaderboard board = new Leaderboard(file)) {
+            board.add(new LeaderboardEntry(Mode.SAMURAI, "Sam", 10, 1, 5, 0));
+            board.add(new LeaderboardEntry(Mode.TEST, "Tess", 20, 1, 5, 0));
+        }
+        try (Leaderboard board = new Leaderboard(file)) {
+            assertEquals(Mode.SAMURAI, board.get(0).getMode());
+            assertEquals(Mode.TEST, board.get(1).getMode());
+        }
+
+        // a run from a mode this version doesn't have
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {100}), 64 + 64);
+        }
+        assertThrows(IOException.class, () -> new Leaderboard(file));
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws IOException {
+        Path file = folder.resolve("other.bin");
+        Files.write(file, new byte[128]);
+        assertThrows(IOException.class, () -> new Leaderboard(file));
+    }
+}
@@ -0,0 +1,93 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parks games part way through and checks they come back exactly as they were.
+ */
+
+public class ParkedGamesTest {
+    private static final String[] MODES = {"e", "n", "h", "s", "test"};
+    private static final String[] MOVES = {"b", "s", "m", "l", "d", "h"};
+    private static final String[] ITEMS = {"water", "rope", "machete", "horse", "boat", "boots", "shovel", "sword"};
+
+    private static TreasureHunter playedGame(String name, int number, Random random) {
+        List<String> lines = new ArrayList<String>();
+        lines.add(name);
+        lines.add(MODES[number % MODES.length]);
+        for (int i = 0; i < 40; i++) {
+            String move = MOVES[random.nextInt(MOVES.length)];
+            lines.add(move);
+            if (move.equals("b") || move.equals("s")) {
+                lines.add(ITEMS[random.nextInt(ITEMS.length)]);
+            }
+            lines.add("");
+        }
+        TreasureHunter game = new TreasureHunter(NullOutput.INSTANCE, new ScriptInput(lines), GameRandom.seedFor(7, number));
+        game.setTurnLimit(1 + random.nextInt(20));
+        game.play();
+        return game;
+    }
+
+    private static TreasureHunter emptyGame() {
+        return new TreasureHunter(NullOutput.INSTANCE, new ScriptInput(Arrays.asList()), 0);
+    }
+
+    @Test
+    public void restoredGamesMatchTheirSnapshots() {
+        Random random = new Random(1);
+        ParkedGames parked = new ParkedGames();
+        int games = 500;
+        int[] handles = new int[games];
+        byte[][] snapshots = new byte[games][];
+        int[] turns = new int[games];
+        for (int i = 0; i < games; i++) {
+            TreasureHunter game = playedGame(i % 3 == 0 ? "Zoë" : "Ann" + i, i, random);
+            snapshots[i] = GameSnapshot.toBytes(game);
+            turns[i] = game.getTurn();
+            handles[i] = parked.park(game);
+            assertTrue(handles[i] >= 0, "an ordinary game fits a slot");
+        }
+        assertEquals(games, parked.size());
+
+        for (int i = 0; i < games; i++) {
+            TreasureHunter game = emptyGame();
+            parked.restore(handles[i], game);
+            assertArrayEquals(snapshots[i], GameSnapshot.toBytes(game));
+            assertEquals(turns[i], game.getTurn());
+        }
+        assertEquals(0, parked.size());
+    }
+
+    @Test
+    public void gamesThatDontFitASlotAreKeptOnTheHeap() {
+        char[] letters = new char[ParkedGames.NAME_BYTES + 1];
+        Arrays.fill(letters, 'x');
+        TreasureHunter game = playedGame(new String(letters), 1, new Random(2));
+        byte[] snapshot = GameSnapshot.toBytes(game);
+
+        ParkedGames parked = new ParkedGames();
+        int handle = parked.park(game);
+        assertTrue(handle < 0);
+        TreasureHunter restored = emptyGame();
+        parked.restore(handle, restored);
+        assertArrayEquals(snapshot, GameSnapshot.toBytes(restored));
+    }
+
+    @Test
+    public void freedSlotsAreReused() {
+        ParkedGames parked = new ParkedGames();
+        Random random = new Random(3);
+        int first = parked.park(playedGame("Ann", 0, random));
+        parked.discard(first);
+        assertEquals(0, parked.size());
+        assertEquals(first, parked.park(playedGame("Bob", 1, random)));
+    }
+}
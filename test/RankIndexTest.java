@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks RankIndex's ranks against sorting the same records the slow way.
+ */
+
+public class RankIndexTest {
+    private static final int RECORDS = 5000;
+
+    // scores from a small range, so plenty of them tie and are ranked by record number
+    private static long[] randomScores(long seed) {
+        Random random = new Random(seed);
+        long[] scores = new long[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            scores[i] = random.nextInt(200);
+        }
+        return scores;
+    }
+
+    private static Integer[] rankOrder(long[] scores) {
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer r) -> -scores[r]).thenComparingInt(r -> r));
+        return order;
+    }
+
+    private static void assertRanks(RankIndex index, long[] scores, Integer[] order) {
+        assertEquals(scores.length, index.size());
+        for (int rank = 0; rank < order.length; rank++) {
+            int record = order[rank];
+            assertEquals(rank, index.rankOf(scores[record], record));
+            assertEquals(record, index.recordAt(rank));
+        }
+        int[] top = index.top(50);
+        for (int rank = 0; rank < top.length; rank++) {
+            assertEquals((int) order[rank], top[rank]);
+        }
+    }
+
+    @Test
+    public void addedRecordsRankLikeASort() {
+        long[] scores = randomScores(1);
+        RankIndex index = new RankIndex();
+        for (int record = 0; record < RECORDS; record++) {
+            index.add(scores[record], record);
+        }
+        assertRanks(index, scores, rankOrder(scores));
+    }
+
+    @Test
+    public void builtIndexMatchesAddedOne() {
+        long[] scores = randomScores(2);
+        Integer[] order = rankOrder(scores);
+        long[] sortedScores = new long[RECORDS];
+        int[] sortedRecords = new int[RECORDS];
+        for (int rank = 0; rank < RECORDS; rank++) {
+            sortedRecords[rank] = order[rank];
+            sortedScores[rank] = scores[order[rank]];
+        }
+        RankIndex index = RankIndex.build(sortedScores, sortedRecords, RECORDS);
+        assertRanks(index, scores, order);
+
+        // and it keeps working as runs are added after it was built
+        long[] more = Arrays.copyOf(scores, RECORDS + 100);
+        for (int record = RECORDS; record < more.length; record++) {
+            more[record] = record % 300;
+            index.add(more[record], record);
+        }
+        assertEquals(more.length, index.size());
+        Integer[] moreOrder = rankOrder(more);
+        for (int rank = 0; rank < moreOrder.length; rank++) {
+            assertEquals((int) moreOrder[rank], index.recordAt(rank));
+        }
+    }
+
+    @Test
+    public void topOfASmallIndexListsEverything() {
+        RankIndex index = new RankIndex();
+        index.add(5, 0);
+        index.add(9, 1);
+        index.add(5, 2);
+        assertArrayEquals(new int[] {1, 0, 2}, index.top(10));
+        assertArrayEquals(new int[0], new RankIndex().top(3));
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that TerrainCatalog's alias table picks each terrain as often as its weight says.
+ */
+
+public class TerrainCatalogTest {
+    private static final int ROLLS = 600_000;
+
+    // hands out evenly spaced rolls, so every part of the table gets its exact share
+    private static class EvenRolls extends GameRandom {
+        private int next;
+
+        EvenRolls() {
+            super(0);
+        }
+
+        @Override
+        public double nextDouble() {
+            double roll = (next + 0.5) / ROLLS;
+            next++;
+            return roll;
+        }
+    }
+
+    @Test
+    public void chancesAddUpToOne() {
+        double total = 0;
+        for (int t = 0; t < TerrainCatalog.size(); t++) {
+            total += TerrainCatalog.chanceOf(t);
+        }
+        assertEquals(1, total, 1e-12);
+    }
+
+    @Test
+    public void picksFollowTheWeights() {
+        int[] counts = new int[TerrainCatalog.size()];
+        EvenRolls rolls = new EvenRolls();
+        for (int i = 0; i < ROLLS; i++) {
+            counts[TerrainCatalog.pick(rolls).getId()]++;
+        }
+        for (int t = 0; t < counts.length; t++) {
+            // each column's edge can put at most one even roll on the wrong side
+            assertEquals(TerrainCatalog.chanceOf(t), (double) counts[t] / ROLLS, 2.0 * counts.length / ROLLS,
+                    TerrainCatalog.get(t).getTerrainNamePlain());
+        }
+    }
+
+    @Test
+    public void aPickTakesOneRoll() {
+        GameRandom picked = new GameRandom(42);
+        GameRandom rolled = new GameRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            Terrain terrain = TerrainCatalog.pick(picked);
+            rolled.nextDouble();
+            assertEquals(rolled.getState(), picked.getState());
+            assertSame(terrain, TerrainCatalog.get(terrain.getId()));
+        }
+    }
+}
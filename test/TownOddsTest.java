@@ -0,0 +1,159 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks TownOdds' step chances against their closed forms and its runs against the numbers it
+ * gave before towns were worked out one at a time.
+ */
+
+public class TownOddsTest {
+    private static final double EXACT = 1e-12;
+
+    private static double sum(double[] chances) {
+        double total = 0;
+        for (double chance : chances) {
+            total += chance;
+        }
+        return total;
+    }
+
+    private static double total(GoldDistribution distribution) {
+        return distribution.chanceOfAtLeast(distribution.getLowestGold());
+    }
+
+    @Test
+    public void troubleMatchesTheRolls() {
+        for (Mode mode : Mode.values()) {
+            Rules rules = mode.getRules();
+            TownOdds odds = new TownOdds(rules);
+            int maxBrawlGold = rules.getMaxBrawlGold();
+            for (int tough = 0; tough < 2; tough++) {
+                double fight = tough == 1 ? rules.getToughNoTroubleChance() : rules.getNoTroubleChance();
+                for (int sword = 0; sword < 2; sword++) {
+                    double[] chances = odds.trouble(tough == 1, sword == 1);
+                    assertEquals(2 * maxBrawlGold + 1, chances.length);
+                    assertEquals(1, sum(chances), EXACT);
+                    assertEquals(1 - fight, chances[maxBrawlGold], EXACT);
+
+                    // a fight is won with chance fight(1 - fight), or always with a sword, for 1 to maxBrawlGold gold
+                    double won = sword == 1 ? fight : fight * (1 - fight);
+                    double lost = sword == 1 ? 0 : fight * fight;
+                    double mean = 0;
+                    for (int g = -maxBrawlGold; g <= maxBrawlGold; g++) {
+                        mean += g * chances[maxBrawlGold + g];
+                    }
+                    assertEquals((won - lost) * (maxBrawlGold + 1) / 2, mean, EXACT);
+                    double lostChance = 0;
+                    for (int g = 0; g < maxBrawlGold; g++) {
+                        lostChance += chances[g];
+                    }
+                    assertEquals(lost, lostChance, EXACT);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void digMatchesTheRolls() {
+        for (Mode mode : Mode.values()) {
+            Rules rules = mode.getRules();
+            TownOdds odds = new TownOdds(rules);
+            double[] chances = odds.dig(true);
+            int choices = rules.getDigGoldChoices();
+            assertEquals(choices, chances.length);
+            assertEquals(1, sum(chances), EXACT);
+            double mean = 0;
+            for (int g = 0; g < chances.length; g++) {
+                mean += g * chances[g];
+            }
+            // under digChance one of 0 to choices - 1 gold is found, each as likely
+            assertEquals(rules.getDigChance() * (choices - 1) / 2, mean, EXACT);
+            assertEquals(1, odds.dig(false)[0]);
+        }
+    }
+
+    @Test
+    public void everyDistributionAddsUpToOne() {
+        TownOdds odds = new TownOdds(Mode.HARD.getRules());
+        String[] runs = {"l", "l40", "d30", "l10d10", "l5ml5m2d3", "m3"};
+        for (String run : runs) {
+            for (int gold : new int[] {0, 1, 10}) {
+                assertEquals(1, total(odds.inTown(GoldDistribution.of(gold), run, false, true)), EXACT, run);
+                assertEquals(1, total(odds.after(GoldDistribution.of(gold), run, true, false, false)), EXACT, run);
+            }
+        }
+    }
+
+    @Test
+    public void brawlsWithASwordAddUpTheirMeans() {
+        Rules rules = Mode.NORMAL.getRules();
+        TownOdds odds = new TownOdds(rules);
+        double fight = rules.getNoTroubleChance();
+        // with a sword no fight is lost, so no hunter drops out and the means just add up
+        GoldDistribution distribution = odds.after(GoldDistribution.of(3), "l15", false, true, false);
+        assertEquals(3 + 15 * fight * (rules.getMaxBrawlGold() + 1) / 2.0, distribution.getExpectedGold(), 1e-9);
+        assertEquals(0, distribution.getLostChance(), EXACT);
+    }
+
+    @Test
+    public void crossingsBreakEachItemAsOftenAsTerrainsNeedIt() {
+        Rules rules = Mode.NORMAL.getRules();
+        TownOdds odds = new TownOdds(rules);
+        double[] breaks = odds.crossingBreaks();
+        assertEquals(rules.getItemBreakChance(), sum(breaks), EXACT);
+        for (int t = 0; t < TerrainCatalog.size(); t++) {
+            int item = TerrainCatalog.get(t).getNeededItemId();
+            double chance = 0;
+            for (int other = 0; other < TerrainCatalog.size(); other++) {
+                if (TerrainCatalog.get(other).getNeededItemId() == item) {
+                    chance += TerrainCatalog.chanceOf(other);
+                }
+            }
+            assertEquals(chance * rules.getItemBreakChance(), breaks[item], EXACT);
+        }
+
+        GoldDistribution crossed = odds.inTown(GoldDistribution.of(10), "m3", false, false);
+        assertEquals(1, crossed.chanceOf(10));
+        for (int id = 0; id < ItemCatalog.size(); id++) {
+            assertEquals(Math.pow(1 - breaks[id], 3), crossed.getItemKeptChance(id), EXACT, ItemCatalog.nameOf(id));
+        }
+    }
+
+    @Test
+    public void eachTownRollsItsOwnToughness() {
+        TownOdds odds = new TownOdds(Mode.HARD.getRules());
+        GoldDistribution start = GoldDistribution.of(10);
+        GoldDistribution twoTowns = odds.inTown(start, "l5ml5", false, false);
+        GoldDistribution oneAfterAnother = odds.inTown(odds.inTown(start, "l5", false, false), "l5", false, false);
+        for (int gold = twoTowns.getLowestGold(); gold <= twoTowns.getHighestGold(); gold++) {
+            assertEquals(oneAfterAnother.chanceOf(gold), twoTowns.chanceOf(gold), EXACT);
+        }
+        // a tough first town says nothing about the next one
+        GoldDistribution toughFirst = odds.inTown(odds.after(start, "l5", true, false, false), "l5", false, false);
+        assertEquals(toughFirst.getExpectedGold(), odds.after(start, "l5ml5", true, false, false).getExpectedGold(), EXACT);
+    }
+
+    @Test
+    public void oneTownGivesTheSameNumbersAsBefore() {
+        // worked out before moves started new towns; a run without a move must not have changed
+        assertNumbers(odds(Mode.NORMAL).inTown(GoldDistribution.of(10), "l20d5", false, true),
+                13.576535556422670, 0.43435128891308150, 0.0098731800680325040, 0.45625200322874710);
+        assertNumbers(odds(Mode.HARD).inTown(GoldDistribution.of(10), "l20d5", false, true),
+                5.4199842261713130, 0.67485546800303450, 0.0071768867290720380, 0.24271573310958716);
+        assertNumbers(odds(Mode.NORMAL).after(GoldDistribution.of(10), "l15", true, false, false),
+                0.42589433814806990, 0.77622536049785740, 0.0087367929310539160, 0.10623160079933323);
+    }
+
+    private static TownOdds odds(Mode mode) {
+        return new TownOdds(mode.getRules());
+    }
+
+    private static void assertNumbers(GoldDistribution distribution, double expectedGold, double lost, double chanceOf10,
+                                      double atLeast15) {
+        assertEquals(expectedGold, distribution.getExpectedGold(), EXACT);
+        assertEquals(lost, distribution.getLostChance(), EXACT);
+        assertEquals(chanceOf10, distribution.chanceOf(10), EXACT);
+        assertEquals(atLeast15, distribution.chanceOfAtLeast(15), EXACT);
+    }
+}